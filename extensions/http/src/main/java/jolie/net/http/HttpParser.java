@@ -22,16 +22,12 @@
 
 package jolie.net.http;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
@@ -242,18 +238,168 @@ public class HttpParser {
 
 	private static final int BLOCK_SIZE = 0x1000; // 4K
 
-	private static byte[] readAll( InputStream stream )
+	/*
+	 * Reads a stream until its end into an array that grows as needed, starting from initialSize
+	 * bytes. The array is trimmed only if the stream turns out to be shorter.
+	 */
+	private static byte[] readAll( InputStream stream, int initialSize )
 		throws IOException {
+		byte[] buffer = new byte[ Math.max( initialSize, BLOCK_SIZE ) ];
+		int size = 0;
 		int r;
-		ByteArrayOutputStream c = new ByteArrayOutputStream();
-		byte[] tmp = new byte[ BLOCK_SIZE ];
-		while( (r = stream.read( tmp, 0, BLOCK_SIZE )) != -1 ) {
-			c.write( tmp, 0, r );
-			tmp = new byte[ BLOCK_SIZE ];
+		while( (r = stream.read( buffer, size, buffer.length - size )) != -1 ) {
+			size += r;
+			if( size == buffer.length ) {
+				int next = stream.read();
+				if( next == -1 ) {
+					break;
+				}
+				buffer = Arrays.copyOf( buffer, buffer.length * 2 );
+				buffer[ size++ ] = (byte) next;
+			}
+		}
+		return size == buffer.length ? buffer : Arrays.copyOf( buffer, size );
+	}
+
+	private static void drain( InputStream stream )
+		throws IOException {
+		while( stream.skip( BLOCK_SIZE ) > 0 || stream.read() != -1 ) {
+		}
+	}
+
+	/**
+	 * Exposes the first {@code length} bytes of a stream, without closing it.
+	 */
+	private static class BoundedInputStream extends InputStream {
+		private final InputStream stream;
+		private long remaining;
+
+		private BoundedInputStream( InputStream stream, long length ) {
+			this.stream = stream;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read()
+			throws IOException {
+			if( remaining <= 0 ) {
+				return -1;
+			}
+			int b = stream.read();
+			if( b == -1 ) {
+				throw new EOFException();
+			}
+			remaining--;
+			return b;
+		}
+
+		@Override
+		public int read( byte[] buffer, int offset, int length )
+			throws IOException {
+			if( remaining <= 0 ) {
+				return -1;
+			}
+			int r = stream.read( buffer, offset, (int) Math.min( length, remaining ) );
+			if( r == -1 ) {
+				throw new EOFException();
+			}
+			remaining -= r;
+			return r;
+		}
+
+		@Override
+		public int available()
+			throws IOException {
+			return (int) Math.min( stream.available(), remaining );
+		}
+	}
+
+	/**
+	 * Decodes a chunked body while it is being read, without closing the underlying stream.
+	 *
+	 * Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
+	 */
+	private class ChunkedInputStream extends InputStream {
+		private final InputStream stream = scanner.inputStream();
+		private int remaining = 0;
+		private boolean finished = false;
+
+		private ChunkedInputStream()
+			throws IOException {
+			scanner.readChar();
+		}
+
+		/*
+		 * Moves to the next chunk if the current one has been read, returning false if there are no more
+		 * chunks.
+		 */
+		private boolean nextChunk()
+			throws IOException {
+			if( remaining > 0 ) {
+				return true;
+			}
+			if( finished ) {
+				return false;
+			}
+			// the chunk header contains the size in hex format
+			// and could contain additional parameters which we ignore atm
+			String chunkHeader = scanner.readLine( false );
+			String chunkSize = chunkHeader.split( ";", 2 )[ 0 ];
+			try {
+				remaining = Integer.parseInt( chunkSize, 16 );
+			} catch( NumberFormatException e ) {
+				throw new IOException( "Illegal chunk size " + chunkSize );
+			}
+			finished = remaining <= 0;
+			return !finished;
+		}
+
+		// the real chunk with the specified size is followed by CR-LF
+		private void consumed( int length )
+			throws IOException {
+			remaining -= length;
+			if( remaining == 0 ) {
+				scanner.readChar();
+				scanner.eatSeparators();
+			}
+		}
+
+		@Override
+		public int read()
+			throws IOException {
+			if( !nextChunk() ) {
+				return -1;
+			}
+			int b = stream.read();
+			if( b == -1 ) {
+				throw new EOFException();
+			}
+			consumed( 1 );
+			return b;
+		}
+
+		@Override
+		public int read( byte[] buffer, int offset, int length )
+			throws IOException {
+			if( length == 0 ) {
+				return 0;
+			}
+			if( !nextChunk() ) {
+				return -1;
+			}
+			int r = stream.read( buffer, offset, Math.min( length, remaining ) );
+			if( r == -1 ) {
+				throw new EOFException();
+			}
+			consumed( r );
+			return r;
 		}
-		return c.toByteArray();
 	}
 
+	/*
+	 * Reads the body of a message. Chunked and compressed bodies are decoded while being read from the
+	 * connection, so that only the decoded content is kept in memory.
+	 */
 	private void readContent( HttpMessage message )
 		throws IOException {
 		boolean chunked = false;
@@ -279,41 +425,11 @@ public class HttpParser {
 			}
 		}
 
-		byte[] buffer = null;
-		InputStream stream = scanner.inputStream();
+		InputStream body = null;
 		if( chunked ) {
-			// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
-			List< byte[] > chunks = new ArrayList<>();
-			int l = -1, totalLen = 0;
-			scanner.readChar();
-			do {
-				// the chunk header contains the size in hex format
-				// and could contain additional parameters which we ignore atm
-				String chunkHeader = scanner.readLine( false );
-				String chunkSize = chunkHeader.split( ";", 2 )[ 0 ];
-				try {
-					l = Integer.parseInt( chunkSize, 16 );
-				} catch( NumberFormatException e ) {
-					throw new IOException( "Illegal chunk size " + chunkSize );
-				}
-				// parses the real chunk with the specified size, follwed by CR-LF
-				if( l > 0 ) {
-					totalLen += l;
-					byte[] chunk = new byte[ l ];
-					blockingRead( stream, chunk, 0, l );
-					chunks.add( chunk );
-					scanner.readChar();
-					scanner.eatSeparators();
-				}
-			} while( l > 0 );
-			// parse optional trailer (additional HTTP headers)
-			parseHeaderProperties( message );
-			ByteBuffer b = ByteBuffer.allocate( totalLen );
-			chunks.forEach( b::put );
-			buffer = b.array();
+			body = new ChunkedInputStream();
 		} else if( contentLength > 0 ) {
-			buffer = new byte[ contentLength ];
-			blockingRead( stream, buffer, 0, contentLength );
+			body = new BoundedInputStream( scanner.inputStream(), contentLength );
 		} else if( message.isResponse() ) {
 			// Per https://tools.ietf.org/html/rfc7230#section-3.3.3 payload may only be sent on *responses*
 			// (including the HTTP version header) when there is NO transfer encoding and NO content length
@@ -331,22 +447,40 @@ public class HttpParser {
 				(version.equals( HttpMessage.Version.HTTP_1_0 )
 					&&
 					!message.getPropertyOrEmptyString( "connection" ).equalsIgnoreCase( "keep-alive" )) ) {
-				buffer = readAll( scanner.inputStream() );
+				body = scanner.inputStream();
 			}
 		}
 
-		if( buffer != null ) {
+		if( body != null ) {
+			InputStream content = body;
 			p = message.getProperty( "content-encoding" );
 			if( p != null ) {
 				if( p.contains( "deflate" ) ) {
-					buffer = readAll( new InflaterInputStream( new ByteArrayInputStream( buffer ) ) );
+					content = new InflaterInputStream( body );
 				} else if( p.contains( "gzip" ) ) {
-					buffer = readAll( new GZIPInputStream( new ByteArrayInputStream( buffer ) ) );
+					content = new GZIPInputStream( body );
 				} else if( !p.equals( "identity" ) ) {
 					throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + p );
 				}
 			}
 
+			byte[] buffer;
+			if( content == body && contentLength > 0 ) {
+				buffer = new byte[ contentLength ];
+				blockingRead( body, buffer, 0, contentLength );
+			} else {
+				buffer = readAll( content, contentLength );
+			}
+
+			if( chunked ) {
+				// decoders may stop before the terminating chunk
+				drain( body );
+				// parse optional trailer (additional HTTP headers)
+				parseHeaderProperties( message );
+			} else if( contentLength > 0 ) {
+				drain( body );
+			}
+
 			message.setContent( buffer );
 		}
 	}
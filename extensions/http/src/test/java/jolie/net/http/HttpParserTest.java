@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.net.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HttpParserTest {
+	private static final byte[] BODY = "Hello, World!".getBytes( StandardCharsets.US_ASCII );
+	private static final String NEXT_REQUEST = "GET /next HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+	private static byte[] bytes( String s ) {
+		return s.getBytes( StandardCharsets.ISO_8859_1 );
+	}
+
+	private static byte[] concat( byte[]... arrays ) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for( byte[] array : arrays ) {
+			out.write( array, 0, array.length );
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] largeBody() {
+		// larger than the read block of the parser, and compressible
+		final byte[] body = new byte[ 100000 ];
+		final Random random = new Random( 42 );
+		for( int i = 0; i < body.length; i++ ) {
+			body[ i ] = (byte) ('a' + random.nextInt( 4 ));
+		}
+		return body;
+	}
+
+	private interface Encoder {
+		OutputStream wrap( OutputStream out )
+			throws IOException;
+	}
+
+	private static byte[] encode( byte[] body, Encoder encoder )
+		throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try( OutputStream stream = encoder.wrap( out ) ) {
+			stream.write( body );
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] gzip( byte[] body )
+		throws IOException {
+		return encode( body, GZIPOutputStream::new );
+	}
+
+	private static byte[] deflate( byte[] body )
+		throws IOException {
+		return encode( body, DeflaterOutputStream::new );
+	}
+
+	private static byte[] chunked( byte[] body, int chunkSize, String trailer ) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for( int i = 0; i < body.length; i += chunkSize ) {
+			final int length = Math.min( chunkSize, body.length - i );
+			final byte[] header = bytes( Integer.toHexString( length ) + ";ext=\"v\"\r\n" );
+			out.write( header, 0, header.length );
+			out.write( body, i, length );
+			out.write( '\r' );
+			out.write( '\n' );
+		}
+		final byte[] last = bytes( "0\r\n" + trailer + "\r\n" );
+		out.write( last, 0, last.length );
+		return out.toByteArray();
+	}
+
+	private static byte[] post( String headers, byte[] body ) {
+		return concat( bytes( "POST /test HTTP/1.1\r\nHost: localhost\r\n" + headers + "\r\n" ), body );
+	}
+
+	/*
+	 * Parses a message followed by another request, checking that the body did not consume any byte of
+	 * the next request.
+	 */
+	private static HttpMessage parseFollowedByRequest( byte[] message )
+		throws IOException {
+		final HttpParser parser =
+			new HttpParser( new ByteArrayInputStream( concat( message, bytes( NEXT_REQUEST ) ) ) );
+		final HttpMessage result = parser.parse();
+		final HttpMessage next = parser.parse();
+		assertEquals( "/next", next.requestPath() );
+		assertEquals( "localhost", next.getProperty( "host" ) );
+		return result;
+	}
+
+	private static HttpMessage parse( byte[] message )
+		throws IOException {
+		return new HttpParser( new ByteArrayInputStream( message ) ).parse();
+	}
+
+	@Test
+	public void plainBody()
+		throws IOException {
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Content-Length: " + BODY.length + "\r\n", BODY ) );
+		assertArrayEquals( BODY, message.content() );
+	}
+
+	@Test
+	public void largePlainBody()
+		throws IOException {
+		final byte[] body = largeBody();
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Content-Length: " + body.length + "\r\n", body ) );
+		assertArrayEquals( body, message.content() );
+	}
+
+	@Test
+	public void chunkedBodyWithExtensionsAndTrailers()
+		throws IOException {
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Transfer-Encoding: chunked\r\n", chunked( BODY, 5, "X-Checksum: 42\r\nX-Other: yes\r\n" ) ) );
+		assertArrayEquals( BODY, message.content() );
+		assertEquals( "42", message.getProperty( "x-checksum" ) );
+		assertEquals( "yes", message.getProperty( "x-other" ) );
+	}
+
+	@Test
+	public void chunkedBodyWithoutTrailers()
+		throws IOException {
+		final byte[] body = largeBody();
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Transfer-Encoding: chunked\r\n", chunked( body, 3000, "" ) ) );
+		assertArrayEquals( body, message.content() );
+	}
+
+	@Test
+	public void gzipBody()
+		throws IOException {
+		final byte[] body = largeBody();
+		final byte[] encoded = gzip( body );
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Content-Encoding: gzip\r\nContent-Length: " + encoded.length + "\r\n", encoded ) );
+		assertArrayEquals( body, message.content() );
+	}
+
+	@Test
+	public void deflateBody()
+		throws IOException {
+		final byte[] body = largeBody();
+		final byte[] encoded = deflate( body );
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Content-Encoding: deflate\r\nContent-Length: " + encoded.length + "\r\n", encoded ) );
+		assertArrayEquals( body, message.content() );
+	}
+
+	@Test
+	public void chunkedGzipBodyWithTrailers()
+		throws IOException {
+		final byte[] body = largeBody();
+		final HttpMessage message = parseFollowedByRequest(
+			post( "Content-Encoding: gzip\r\nTransfer-Encoding: chunked\r\n",
+				chunked( gzip( body ), 1000, "X-Checksum: 42\r\n" ) ) );
+		assertArrayEquals( body, message.content() );
+		assertEquals( "42", message.getProperty( "x-checksum" ) );
+	}
+
+	@Test
+	public void emptyBodies()
+		throws IOException {
+		assertArrayEquals( new byte[ 0 ], parseFollowedByRequest( post( "Content-Length: 0\r\n", new byte[ 0 ] ) ).content() );
+		assertArrayEquals( new byte[ 0 ],
+			parseFollowedByRequest( post( "Transfer-Encoding: chunked\r\n", chunked( new byte[ 0 ], 1, "" ) ) )
+				.content() );
+		assertArrayEquals( new byte[ 0 ],
+			parseFollowedByRequest(
+				post( "Content-Encoding: gzip\r\nTransfer-Encoding: chunked\r\n",
+					chunked( gzip( new byte[ 0 ] ), 1, "" ) ) ).content() );
+		assertNull( parseFollowedByRequest( bytes( "GET /test HTTP/1.1\r\nHost: localhost\r\n\r\n" ) ).content() );
+	}
+
+	@Test
+	public void responseBodyIsReadUntilTheEndOfTheStream()
+		throws IOException {
+		final byte[] body = largeBody();
+		assertArrayEquals( body,
+			parse( concat( bytes( "HTTP/1.1 200 OK\r\nConnection: close\r\n\r\n" ), body ) ).content() );
+		assertArrayEquals( body,
+			parse( concat( bytes( "HTTP/1.1 200 OK\r\nConnection: close\r\nContent-Encoding: gzip\r\n\r\n" ),
+				gzip( body ) ) ).content() );
+		assertArrayEquals( new byte[ 0 ],
+			parse( bytes( "HTTP/1.1 200 OK\r\nConnection: close\r\n\r\n" ) ).content() );
+	}
+
+	@Test
+	public void keepAliveResponseWithoutLengthHasNoBody()
+		throws IOException {
+		final HttpMessage message = parse( bytes( "HTTP/1.1 204 No Content\r\n\r\n" ) );
+		assertEquals( 204, message.statusCode() );
+		assertNull( message.content() );
+	}
+
+	@Test( expected = EOFException.class )
+	public void truncatedBodyFails()
+		throws IOException {
+		parse( post( "Content-Length: " + (BODY.length + 1) + "\r\n", BODY ) );
+	}
+
+	@Test( expected = EOFException.class )
+	public void truncatedChunkFails()
+		throws IOException {
+		final byte[] message = post( "Transfer-Encoding: chunked\r\n", chunked( BODY, 100, "" ) );
+		final InputStream stream = new ByteArrayInputStream( message, 0, message.length - 10 );
+		new HttpParser( stream ).parse();
+	}
+}
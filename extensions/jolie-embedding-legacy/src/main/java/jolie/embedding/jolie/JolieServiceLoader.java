@@ -70,7 +70,10 @@ public class JolieServiceLoader extends EmbeddedServiceLoader {
 			config.programDirectory(), config.packagePaths(),
 			// difference:
 			serviceName.orElse( config.executionTarget() ),
-			Optional.empty() );
+			Optional.empty(),
+			config.compile(),
+			config.compileThreshold(),
+			config.moduleCachePath() );
 
 		interpreter = new Interpreter(
 			commandLineParser.getInterpreterConfiguration(),
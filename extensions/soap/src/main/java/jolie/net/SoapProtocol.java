@@ -30,6 +30,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -61,7 +62,6 @@ import javax.xml.soap.MessageFactory;
 import javax.xml.soap.Name;
 import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPBodyElement;
-import javax.xml.soap.SOAPConstants;
 import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPEnvelope;
 import javax.xml.soap.SOAPException;
@@ -91,7 +91,6 @@ import com.sun.xml.xsom.XSElementDecl;
 import com.sun.xml.xsom.XSModelGroup;
 import com.sun.xml.xsom.XSModelGroupDecl;
 import com.sun.xml.xsom.XSParticle;
-import com.sun.xml.xsom.XSSchema;
 import com.sun.xml.xsom.XSSchemaSet;
 import com.sun.xml.xsom.XSTerm;
 import com.sun.xml.xsom.XSType;
@@ -114,6 +113,7 @@ import jolie.net.http.Method;
 import jolie.net.http.UnsupportedMethodException;
 import jolie.net.ports.Interface;
 import jolie.net.protocols.SequentialCommProtocol;
+import jolie.net.soap.SchemaCache;
 import jolie.net.soap.WSDLCache;
 import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
@@ -141,16 +141,19 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 	private String inputId = null;
 	private final Interpreter interpreter;
 	private final MessageFactory messageFactory;
-	private XSSchemaSet schemaSet = null;
+	private SchemaCache.Schemas schemas = null;
 	private final URI uri;
 	private final boolean inInputPort;
 	private Definition wsdlDefinition = null;
 	private Port wsdlPort = null;
 	private final TransformerFactory transformerFactory;
-	private final Map< String, String > namespacePrefixMap = new HashMap<>();
+	private final DocumentBuilderFactory docBuilderFactory;
+	private DocumentBuilder docBuilder = null;
+	private Map< String, String > namespacePrefixMap = Collections.emptyMap();
 	private boolean received = false;
 	private String encoding;
 	private final WSDLCache wsdlCache;
+	private final SchemaCache schemaCache;
 
 	private static class Parameters {
 		private static final String WRAPPED = "wrapped";
@@ -175,25 +178,39 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		return "soap";
 	}
 
+	/**
+	 * Creates a SOAP protocol instance. The factories and caches are shared by all the instances
+	 * created by the same {@link SoapProtocolFactory}. The message factory must create SOAP 1.1
+	 * messages and the document builder factory must be namespace aware.
+	 */
 	public SoapProtocol(
 		VariablePath configurationPath,
 		URI uri,
 		boolean inInputPort,
-		Interpreter interpreter )
-		throws SOAPException, WSDLException {
+		Interpreter interpreter,
+		MessageFactory messageFactory,
+		TransformerFactory transformerFactory,
+		DocumentBuilderFactory docBuilderFactory,
+		WSDLCache wsdlCache,
+		SchemaCache schemaCache ) {
 		super( configurationPath );
 		this.uri = uri;
 		this.inInputPort = inInputPort;
-		this.transformerFactory = TransformerFactory.newInstance();
+		this.transformerFactory = transformerFactory;
 		this.interpreter = interpreter;
-		this.messageFactory = MessageFactory.newInstance( SOAPConstants.SOAP_1_1_PROTOCOL );
-		this.wsdlCache = new WSDLCache();
+		this.messageFactory = messageFactory;
+		this.docBuilderFactory = docBuilderFactory;
+		this.wsdlCache = wsdlCache;
+		this.schemaCache = schemaCache;
 	}
 
 	private void parseSchemaElement( Definition definition, Element element, XSOMParser schemaParser )
 		throws IOException {
 		try {
-			Transformer transformer = transformerFactory.newTransformer();
+			final Transformer transformer;
+			synchronized( transformerFactory ) {
+				transformer = transformerFactory.newTransformer();
+			}
 			transformer.setOutputProperty( OutputKeys.INDENT, "yes" );
 			StringWriter sw = new StringWriter();
 			StreamResult result = new StreamResult( sw );
@@ -213,20 +230,23 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		if( definition != null ) {
 			Types types = definition.getTypes();
 			if( types != null ) {
-				List< ExtensibilityElement > list = types.getExtensibilityElements();
-				for( ExtensibilityElement element : list ) {
-					if( element instanceof SchemaImpl ) {
-						Element schemaElement = ((SchemaImpl) element).getElement();
-						Map< String, String > namespaces = definition.getNamespaces();
-						for( Entry< String, String > entry : namespaces.entrySet() ) {
-							if( entry.getKey().equals( "xmlns" ) || entry.getKey().trim().isEmpty() ) {
-								continue;
-							}
-							if( schemaElement.getAttribute( "xmlns:" + entry.getKey() ).isEmpty() ) {
-								schemaElement.setAttribute( "xmlns:" + entry.getKey(), entry.getValue() );
+				// The definition is shared with the other ports using the same WSDL document
+				synchronized( definition ) {
+					List< ExtensibilityElement > list = types.getExtensibilityElements();
+					for( ExtensibilityElement element : list ) {
+						if( element instanceof SchemaImpl ) {
+							Element schemaElement = ((SchemaImpl) element).getElement();
+							Map< String, String > namespaces = definition.getNamespaces();
+							for( Entry< String, String > entry : namespaces.entrySet() ) {
+								if( entry.getKey().equals( "xmlns" ) || entry.getKey().trim().isEmpty() ) {
+									continue;
+								}
+								if( schemaElement.getAttribute( "xmlns:" + entry.getKey() ).isEmpty() ) {
+									schemaElement.setAttribute( "xmlns:" + entry.getKey(), entry.getValue() );
+								}
 							}
+							parseSchemaElement( definition, schemaElement, schemaParser );
 						}
-						parseSchemaElement( definition, schemaElement, schemaParser );
 					}
 				}
 			}
@@ -235,26 +255,42 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 
 	private XSSchemaSet getSchemaSet()
 		throws IOException, SAXException {
-		if( schemaSet == null ) {
-			XSOMParser schemaParser = new XSOMParser();
-			ValueVector vec = getParameterVector( "schema" );
-			if( vec.size() > 0 ) {
-				for( Value v : vec ) {
-					schemaParser.parse( new File( v.strValue() ) );
-				}
-			}
-			parseWSDLTypes( schemaParser );
-			schemaSet = schemaParser.getResult();
-			String nsPrefix = "jolie";
-			int i = 1;
-			for( XSSchema schema : schemaSet.getSchemas() ) {
-				if( !schema.getTargetNamespace().equals( XMLConstants.W3C_XML_SCHEMA_NS_URI ) ) {
-					namespacePrefixMap.put( schema.getTargetNamespace(), nsPrefix + i++ );
-				}
+		if( schemas == null ) {
+			schemas = schemaCache.get( getSchemaCacheKey(), this::parseSchemaSet );
+			namespacePrefixMap = schemas.namespacePrefixMap();
+		}
+
+		return schemas.schemaSet();
+	}
+
+	private XSSchemaSet parseSchemaSet()
+		throws IOException, SAXException {
+		XSOMParser schemaParser = new XSOMParser();
+		ValueVector vec = getParameterVector( "schema" );
+		if( vec.size() > 0 ) {
+			for( Value v : vec ) {
+				schemaParser.parse( new File( v.strValue() ) );
 			}
 		}
+		parseWSDLTypes( schemaParser );
+		return schemaParser.getResult();
+	}
 
-		return schemaSet;
+	/*
+	 * Identifies the schemas of this port in the schema cache: the WSDL document and the schema files,
+	 * with their modification times so that edited files are compiled again.
+	 */
+	private String getSchemaCacheKey() {
+		final StringBuilder key = new StringBuilder();
+		if( hasParameter( "wsdl" ) ) {
+			final String wsdl = getStringParameter( "wsdl" );
+			key.append( wsdl ).append( '@' ).append( WSDLCache.lastModified( wsdl ) );
+		}
+		for( Value v : getParameterVector( "schema" ) ) {
+			final File file = new File( v.strValue() );
+			key.append( '\n' ).append( file.getAbsolutePath() ).append( '@' ).append( file.lastModified() );
+		}
+		return key.toString();
 	}
 
 	private boolean convertAttributes() {
@@ -516,6 +552,25 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		}
 	}
 
+	// The message factory is shared with the other instances and is not guaranteed to be thread-safe
+	private SOAPMessage createSoapMessage()
+		throws SOAPException {
+		synchronized( messageFactory ) {
+			return messageFactory.createMessage();
+		}
+	}
+
+	// Document builders are not thread-safe, so each instance creates its own from the shared factory
+	private DocumentBuilder getDocumentBuilder()
+		throws ParserConfigurationException {
+		if( docBuilder == null ) {
+			synchronized( docBuilderFactory ) {
+				docBuilder = docBuilderFactory.newDocumentBuilder();
+			}
+		}
+		return docBuilder;
+	}
+
 	private Definition getWSDLDefinition()
 		throws IOException {
 		if( wsdlDefinition == null && hasParameter( "wsdl" ) ) {
@@ -707,7 +762,7 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 				inputId += "Response";
 			}
 
-			SOAPMessage soapMessage = messageFactory.createMessage();
+			SOAPMessage soapMessage = createSoapMessage();
 			soapMessage.setProperty( SOAPMessage.WRITE_XML_DECLARATION, "true" );
 			soapMessage.setProperty( SOAPMessage.CHARACTER_SET_ENCODING, "utf-8" );
 			SOAPEnvelope soapEnvelope = soapMessage.getSOAPPart().getEnvelope();
@@ -1050,7 +1105,7 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 				httpMessage.setLength( 0 );
 
 				try {
-					SOAPMessage soapMessage = messageFactory.createMessage();
+					SOAPMessage soapMessage = createSoapMessage();
 					soapMessage.setProperty( SOAPMessage.WRITE_XML_DECLARATION, "true" );
 					soapMessage.setProperty( SOAPMessage.CHARACTER_SET_ENCODING, "utf-8" );
 					SOAPEnvelope soapEnvelope = soapMessage.getSOAPPart().getEnvelope();
@@ -1204,14 +1259,12 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 				}
 
 
-				SOAPMessage soapMessage = messageFactory.createMessage();
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				SOAPMessage soapMessage = createSoapMessage();
 				/*
 				 * Schema messageSchema = getRecvMessageValidationSchema(); if ( messageSchema != null ) {
 				 * factory.setIgnoringElementContentWhitespace( true ); factory.setSchema( messageSchema ); }
 				 */
-				factory.setNamespaceAware( true );
-				DocumentBuilder builder = factory.newDocumentBuilder();
+				DocumentBuilder builder = getDocumentBuilder();
 				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
 				src.setEncoding( charset );
 				Document doc = builder.parse( src );
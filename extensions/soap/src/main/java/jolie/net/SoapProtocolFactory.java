@@ -23,10 +23,15 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URI;
-import javax.wsdl.WSDLException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPConstants;
 import javax.xml.soap.SOAPException;
+import javax.xml.transform.TransformerFactory;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
+import jolie.net.soap.SchemaCache;
+import jolie.net.soap.WSDLCache;
 import jolie.runtime.AndJarDeps;
 import jolie.runtime.VariablePath;
 
@@ -49,25 +54,59 @@ import jolie.runtime.VariablePath;
 } )
 
 public class SoapProtocolFactory extends CommProtocolFactory {
+	/*
+	 * Shared by all the SOAP protocol instances of the interpreter, so that new connections do not
+	 * have to look up factories and compile schemas again. The message factory is created with the
+	 * first protocol, so that failing to create it is reported as an IOException of that protocol.
+	 */
+	private MessageFactory messageFactory = null;
+	private final TransformerFactory transformerFactory;
+	private final DocumentBuilderFactory docBuilderFactory;
+	private final WSDLCache wsdlCache;
+	private final SchemaCache schemaCache;
+
 	public SoapProtocolFactory( CommCore commCore ) {
 		super( commCore );
+		transformerFactory = TransformerFactory.newInstance();
+		docBuilderFactory = DocumentBuilderFactory.newInstance();
+		docBuilderFactory.setNamespaceAware( true );
+		wsdlCache = new WSDLCache();
+		schemaCache = new SchemaCache();
 	}
 
 	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
 		throws IOException {
-		try {
-			return new SoapProtocol( configurationPath, location, true, commCore().interpreter() );
-		} catch( SOAPException | WSDLException e ) {
-			throw new IOException( e );
-		}
+		return createProtocol( configurationPath, location, true );
 	}
 
 	public CommProtocol createOutputProtocol( VariablePath configurationPath, URI location )
 		throws IOException {
-		try {
-			return new SoapProtocol( configurationPath, location, false, commCore().interpreter() );
-		} catch( SOAPException | WSDLException e ) {
-			throw new IOException( e );
+		return createProtocol( configurationPath, location, false );
+	}
+
+	private synchronized MessageFactory messageFactory()
+		throws IOException {
+		if( messageFactory == null ) {
+			try {
+				messageFactory = MessageFactory.newInstance( SOAPConstants.SOAP_1_1_PROTOCOL );
+			} catch( SOAPException e ) {
+				throw new IOException( e );
+			}
 		}
+		return messageFactory;
+	}
+
+	private CommProtocol createProtocol( VariablePath configurationPath, URI location, boolean inInputPort )
+		throws IOException {
+		return new SoapProtocol(
+			configurationPath,
+			location,
+			inInputPort,
+			commCore().interpreter(),
+			messageFactory(),
+			transformerFactory,
+			docBuilderFactory,
+			wsdlCache,
+			schemaCache );
 	}
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.net.soap;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+
+import org.xml.sax.SAXException;
+
+import com.sun.xml.xsom.XSSchema;
+import com.sun.xml.xsom.XSSchemaSet;
+
+/**
+ * A cache of compiled XML schemas for the SOAP protocol, shared by all the SOAP ports of an
+ * interpreter. Schemas are keyed by the configuration they are compiled from, and each
+ * configuration is compiled only once even if it is requested concurrently.
+ */
+public class SchemaCache {
+	@FunctionalInterface
+	public interface SchemaLoader {
+		/**
+		 * Compiles a schema set, or returns {@code null} if there is none.
+		 */
+		XSSchemaSet load()
+			throws IOException, SAXException;
+	}
+
+	/**
+	 * A compiled schema set together with the namespace prefixes to use for its target namespaces.
+	 */
+	public static class Schemas {
+		private static final String NAMESPACE_PREFIX = "jolie";
+
+		private final XSSchemaSet schemaSet;
+		private final Map< String, String > namespacePrefixMap;
+
+		private Schemas( XSSchemaSet schemaSet ) {
+			this.schemaSet = schemaSet;
+			final Map< String, String > prefixes = new HashMap<>();
+			if( schemaSet != null ) {
+				int i = 1;
+				for( XSSchema schema : schemaSet.getSchemas() ) {
+					if( !schema.getTargetNamespace().equals( XMLConstants.W3C_XML_SCHEMA_NS_URI ) ) {
+						prefixes.put( schema.getTargetNamespace(), NAMESPACE_PREFIX + i++ );
+					}
+				}
+			}
+			this.namespacePrefixMap = Collections.unmodifiableMap( prefixes );
+		}
+
+		/**
+		 * Returns the compiled schema set, or {@code null} if there is none.
+		 */
+		public XSSchemaSet schemaSet() {
+			return schemaSet;
+		}
+
+		/**
+		 * Maps the target namespace of each schema to its prefix.
+		 */
+		public Map< String, String > namespacePrefixMap() {
+			return namespacePrefixMap;
+		}
+	}
+
+	private final Map< String, CompletableFuture< Schemas > > cache = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the schemas for the given configuration key, compiling them with loader if they are not
+	 * in the cache yet.
+	 */
+	public Schemas get( String key, SchemaLoader loader )
+		throws IOException, SAXException {
+		CompletableFuture< Schemas > schemas = cache.get( key );
+		if( schemas == null ) {
+			final CompletableFuture< Schemas > newSchemas = new CompletableFuture<>();
+			schemas = cache.putIfAbsent( key, newSchemas );
+			if( schemas == null ) {
+				schemas = newSchemas;
+				try {
+					newSchemas.complete( new Schemas( loader.load() ) );
+				} catch( IOException | SAXException | RuntimeException e ) {
+					// Do not cache failures, e.g., a schema file may be fixed in the meantime
+					cache.remove( key, newSchemas );
+					newSchemas.completeExceptionally( e );
+				}
+			}
+		}
+
+		try {
+			return schemas.join();
+		} catch( CompletionException e ) {
+			final Throwable cause = e.getCause();
+			if( cause instanceof IOException ) {
+				throw (IOException) cause;
+			} else if( cause instanceof SAXException ) {
+				throw (SAXException) cause;
+			}
+			throw new IOException( cause );
+		}
+	}
+}
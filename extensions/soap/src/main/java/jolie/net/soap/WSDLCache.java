@@ -21,47 +21,88 @@
 
 package jolie.net.soap;
 
-import java.util.HashMap;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.wsdl.Definition;
 import javax.wsdl.WSDLException;
 import javax.wsdl.factory.WSDLFactory;
 import javax.wsdl.xml.WSDLReader;
 
 /**
- * Implements a WSDL document cache for the SOAP protocol.
+ * Implements a WSDL document cache for the SOAP protocol. The cache is shared by all the SOAP ports
+ * of an interpreter, and each document is read only once even if it is requested concurrently.
+ * Documents in local files are keyed also on their modification time, so that edited files are read
+ * again.
  *
  * @author Fabrizio Montesi TODO: WSDL document removal after some time
  */
 public class WSDLCache {
-	// private static WSDLCache instance = null;
+	private final Map< String, CompletableFuture< Definition > > cache = new ConcurrentHashMap<>();
+	private WSDLFactory factory = null; // Created when the first document is read
 
-	private final Map< String, Definition > cache;
-	private final WSDLFactory factory;
-
-	public WSDLCache()
+	public Definition get( String url )
 		throws WSDLException {
-		cache = new HashMap<>();
-		factory = WSDLFactory.newInstance();
+		final String key = url + '@' + lastModified( url );
+		CompletableFuture< Definition > definition = cache.get( key );
+		if( definition == null ) {
+			final CompletableFuture< Definition > newDefinition = new CompletableFuture<>();
+			definition = cache.putIfAbsent( key, newDefinition );
+			if( definition == null ) {
+				definition = newDefinition;
+				try {
+					newDefinition.complete( read( url ) );
+				} catch( WSDLException | RuntimeException e ) {
+					// Do not cache failures, the document may become available later
+					cache.remove( key, newDefinition );
+					newDefinition.completeExceptionally( e );
+				}
+			}
+		}
+
+		try {
+			return definition.join();
+		} catch( CompletionException e ) {
+			if( e.getCause() instanceof WSDLException ) {
+				throw (WSDLException) e.getCause();
+			}
+			throw new WSDLException( WSDLException.OTHER_ERROR, e.getCause().getMessage(), e.getCause() );
+		}
 	}
-	//
-	// public static synchronized WSDLCache getInstance()
-	// throws WSDLException {
-	// if( instance == null ) {
-	// instance = new WSDLCache();
-	// }
-	// return instance;
-	// }
 
-	public synchronized Definition get( String url )
+	private Definition read( String url )
 		throws WSDLException {
-		Definition definition = cache.get( url );
-		if( definition == null ) {
-			WSDLReader reader = factory.newWSDLReader();
-			reader.setFeature( "javax.wsdl.verbose", false );
-			definition = reader.readWSDL( url );
-			cache.put( url, definition );
+		final WSDLReader reader;
+		synchronized( this ) {
+			if( factory == null ) {
+				factory = WSDLFactory.newInstance();
+			}
+			reader = factory.newWSDLReader();
+		}
+		reader.setFeature( "javax.wsdl.verbose", false );
+		return reader.readWSDL( url );
+	}
+
+	/**
+	 * Returns the modification time of the WSDL document at url if it is a local file, or 0 otherwise.
+	 */
+	public static long lastModified( String url ) {
+		File file = null;
+		try {
+			final URI uri = new URI( url );
+			if( uri.getScheme() == null || uri.getScheme().length() == 1 ) {
+				// A path, possibly starting with a drive letter
+				file = new File( url );
+			} else if( "file".equals( uri.getScheme() ) ) {
+				file = new File( uri );
+			}
+		} catch( URISyntaxException | IllegalArgumentException e ) {
+			file = new File( url );
 		}
-		return definition;
+		return (file == null) ? 0L : file.lastModified();
 	}
 }
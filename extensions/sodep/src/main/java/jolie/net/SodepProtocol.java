@@ -21,19 +21,19 @@
 
 package jolie.net;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -55,36 +55,289 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		private static final int LONG = 6;
 	}
 
+	/*
+	 * A direct-mapped cache of decoded names (child names, operation names, resource paths), so that
+	 * names already seen on a connection are decoded without allocating. On a collision, the newest
+	 * name replaces the cached one.
+	 */
+	private static class NameTable {
+		private static final int SIZE = 512; // Must be a power of two
+		private static final int MAX_NAME_LENGTH = 64; // bytes
+		private final byte[][] keys = new byte[ SIZE ][];
+		private final String[] names = new String[ SIZE ];
+
+		private String get( byte[] bytes, int length, Charset charset ) {
+			int hash = 0x811C9DC5; // FNV-1a
+			for( int i = 0; i < length; i++ ) {
+				hash = (hash ^ bytes[ i ]) * 0x01000193;
+			}
+			final int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+			final byte[] key = keys[ slot ];
+			if( key != null && key.length == length && equals( key, bytes, length ) ) {
+				return names[ slot ];
+			}
+			final String name = new String( bytes, 0, length, charset );
+			keys[ slot ] = Arrays.copyOf( bytes, length );
+			names[ slot ] = name;
+			return name;
+		}
+
+		private void clear() {
+			Arrays.fill( keys, null );
+			Arrays.fill( names, null );
+		}
+
+		private static boolean equals( byte[] key, byte[] bytes, int length ) {
+			for( int i = 0; i < length; i++ ) {
+				if( key[ i ] != bytes[ i ] ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	// Initial size of the reusable buffers
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	// Buffers grown beyond this size are not kept after use. The output buffer is flushed to the
+	// stream instead of growing beyond it.
+	private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+	// Number of chars of a long string that are encoded at a time
+	private static final int STRING_CHUNK_LENGTH = 4096;
+
 	public String name() {
 		return "sodep";
 	}
 
-	private Charset stringCharset = StandardCharsets.UTF_8;
+	// Encoding state, guarded by sendLock
+	private final Object sendLock = new Object();
+	private Charset sendCharset = StandardCharsets.UTF_8;
+	private ByteBuffer outBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+	private OutputStream outStream = null;
+	private CharsetEncoder encoder = null;
+
+	// Decoding state, guarded by recvLock
+	private final Object recvLock = new Object();
+	private Charset recvCharset = StandardCharsets.UTF_8;
+	private byte[] stringBytes = new byte[ INITIAL_BUFFER_SIZE ];
+	private InputStream lastInputStream = null;
+	private DataInputStream dataInputStream = null;
+	private NameTable nameTable = null;
 
 	private String readString( DataInput in )
 		throws IOException {
 		int len = in.readInt();
 		if( len > 0 ) {
-			byte[] bb = new byte[ len ];
-			in.readFully( bb );
-			return new String( bb, stringCharset );
+			return readStringBytes( in, len );
+		}
+		return "";
+	}
+
+	private String readStringBytes( DataInput in, int len )
+		throws IOException {
+		byte[] bb = stringBytes;
+		if( len > bb.length ) {
+			bb = new byte[ len ];
+			if( len <= MAX_RETAINED_BUFFER_SIZE ) {
+				stringBytes = bb;
+			}
+		}
+		in.readFully( bb, 0, len );
+		return new String( bb, 0, len, recvCharset );
+	}
+
+	private String readName( DataInput in )
+		throws IOException {
+		if( nameTable == null ) {
+			return readString( in );
+		}
+		int len = in.readInt();
+		if( len > 0 ) {
+			if( len > NameTable.MAX_NAME_LENGTH ) {
+				return readStringBytes( in, len );
+			}
+			in.readFully( stringBytes, 0, len );
+			return nameTable.get( stringBytes, len, recvCharset );
 		}
 		return "";
 	}
 
-	private void writeString( DataOutput out, String str )
+	/*
+	 * Makes room for n bytes in the output buffer. The buffer grows up to MAX_RETAINED_BUFFER_SIZE,
+	 * after which its content is written to the output stream instead, so that large messages are
+	 * not buffered entirely.
+	 */
+	private void ensureCapacity( int n )
+		throws IOException {
+		if( outBuffer.remaining() < n ) {
+			if( outBuffer.position() + n > MAX_RETAINED_BUFFER_SIZE && outBuffer.position() > 0 ) {
+				flush();
+				if( outBuffer.remaining() >= n ) {
+					return;
+				}
+			}
+			final int required = outBuffer.position() + n;
+			final ByteBuffer newBuffer = ByteBuffer.allocate(
+				Math.max( required, Math.min( outBuffer.capacity() * 2, MAX_RETAINED_BUFFER_SIZE ) ) );
+			outBuffer.flip();
+			newBuffer.put( outBuffer );
+			outBuffer = newBuffer;
+		}
+	}
+
+	private void flush()
+		throws IOException {
+		outStream.write( outBuffer.array(), 0, outBuffer.position() );
+		outBuffer.clear();
+	}
+
+	private void writeByte( int b )
+		throws IOException {
+		ensureCapacity( 1 );
+		outBuffer.put( (byte) b );
+	}
+
+	private void writeInt( int i )
+		throws IOException {
+		ensureCapacity( Integer.BYTES );
+		outBuffer.putInt( i );
+	}
+
+	private void writeLong( long l )
+		throws IOException {
+		ensureCapacity( Long.BYTES );
+		outBuffer.putLong( l );
+	}
+
+	private void writeDouble( double d )
+		throws IOException {
+		ensureCapacity( Double.BYTES );
+		outBuffer.putDouble( d );
+	}
+
+	private void writeBoolean( boolean b )
+		throws IOException {
+		writeByte( b ? 1 : 0 );
+	}
+
+	private void writeBytes( byte[] bytes, int offset, int length )
+		throws IOException {
+		if( length > MAX_RETAINED_BUFFER_SIZE ) {
+			flush();
+			outStream.write( bytes, offset, length );
+		} else {
+			ensureCapacity( length );
+			outBuffer.put( bytes, offset, length );
+		}
+	}
+
+	private void writeString( String str )
 		throws IOException {
 		if( str.isEmpty() ) {
-			out.writeInt( 0 );
+			writeInt( 0 );
+		} else if( sendCharset.equals( StandardCharsets.UTF_8 ) ) {
+			writeUTF8String( str );
 		} else {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			Writer writer = new OutputStreamWriter( bos, stringCharset );
-			writer.write( str );
-			writer.close();
-			byte[] bb = bos.toByteArray();
-			out.writeInt( bb.length );
-			out.write( bb );
+			writeEncodedString( str );
+		}
+	}
+
+	/*
+	 * Encodes the string directly into the output buffer, replacing unpaired surrogates with '?' as
+	 * the default UTF-8 encoder does.
+	 */
+	private void writeUTF8String( String str )
+		throws IOException {
+		final int length = str.length();
+		// A UTF-16 char takes at most three bytes in UTF-8 (surrogate pairs take four for two chars)
+		if( outBuffer.remaining() >= Integer.BYTES + length * 3 ) {
+			// The string surely fits, so its length can be written after encoding it
+			final int lengthPosition = outBuffer.position();
+			outBuffer.position( lengthPosition + Integer.BYTES );
+			putUTF8( str, 0, length );
+			outBuffer.putInt( lengthPosition, outBuffer.position() - lengthPosition - Integer.BYTES );
+		} else {
+			// Encode long strings a chunk at a time, so that the buffer can be flushed in between
+			writeInt( utf8Length( str ) );
+			int i = 0;
+			while( i < length ) {
+				final int end = Math.min( length, i + STRING_CHUNK_LENGTH );
+				// One more byte, in case the chunk ends with the first char of a surrogate pair
+				ensureCapacity( (end - i) * 3 + 1 );
+				i = putUTF8( str, i, end );
+			}
+		}
+	}
+
+	/*
+	 * Encodes the chars of str from start to end into the output buffer, which must have enough room.
+	 * Returns the index of the next char to encode, which is end + 1 if the last char is the first
+	 * of a surrogate pair.
+	 */
+	private int putUTF8( String str, int start, int end ) {
+		final int length = str.length();
+		int i = start;
+		for( ; i < end; i++ ) {
+			final char c = str.charAt( i );
+			if( c < 0x80 ) {
+				outBuffer.put( (byte) c );
+			} else if( c < 0x800 ) {
+				outBuffer.put( (byte) (0xC0 | (c >> 6)) );
+				outBuffer.put( (byte) (0x80 | (c & 0x3F)) );
+			} else if( Character.isSurrogate( c ) ) {
+				if( Character.isHighSurrogate( c ) && i + 1 < length
+					&& Character.isLowSurrogate( str.charAt( i + 1 ) ) ) {
+					final int codePoint = Character.toCodePoint( c, str.charAt( ++i ) );
+					outBuffer.put( (byte) (0xF0 | (codePoint >> 18)) );
+					outBuffer.put( (byte) (0x80 | ((codePoint >> 12) & 0x3F)) );
+					outBuffer.put( (byte) (0x80 | ((codePoint >> 6) & 0x3F)) );
+					outBuffer.put( (byte) (0x80 | (codePoint & 0x3F)) );
+				} else {
+					outBuffer.put( (byte) '?' );
+				}
+			} else {
+				outBuffer.put( (byte) (0xE0 | (c >> 12)) );
+				outBuffer.put( (byte) (0x80 | ((c >> 6) & 0x3F)) );
+				outBuffer.put( (byte) (0x80 | (c & 0x3F)) );
+			}
+		}
+		return i;
+	}
+
+	private static int utf8Length( String str ) {
+		final int length = str.length();
+		int bytes = 0;
+		for( int i = 0; i < length; i++ ) {
+			final char c = str.charAt( i );
+			if( c < 0x80 ) {
+				bytes++;
+			} else if( c < 0x800 ) {
+				bytes += 2;
+			} else if( Character.isSurrogate( c ) ) {
+				if( Character.isHighSurrogate( c ) && i + 1 < length
+					&& Character.isLowSurrogate( str.charAt( i + 1 ) ) ) {
+					i++;
+					bytes += 4;
+				} else {
+					bytes++;
+				}
+			} else {
+				bytes += 3;
+			}
 		}
+		return bytes;
+	}
+
+	private void writeEncodedString( String str )
+		throws IOException {
+		if( encoder == null || !encoder.charset().equals( sendCharset ) ) {
+			encoder = sendCharset.newEncoder()
+				.onMalformedInput( CodingErrorAction.REPLACE )
+				.onUnmappableCharacter( CodingErrorAction.REPLACE );
+		}
+		final ByteBuffer bytes = encoder.encode( CharBuffer.wrap( str ) );
+		writeInt( bytes.remaining() );
+		writeBytes( bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining() );
 	}
 
 	private ByteArray readByteArray( DataInput in )
@@ -101,78 +354,74 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		return ret;
 	}
 
-	private void writeByteArray( DataOutput out, ByteArray byteArray )
+	private void writeByteArray( ByteArray byteArray )
 		throws IOException {
 		int size = byteArray.size();
-		out.writeInt( size );
+		writeInt( size );
 		if( size > 0 ) {
-			out.write( byteArray.getBytes() );
+			writeBytes( byteArray.getBytes(), 0, size );
 		}
 	}
 
-	private void writeFault( DataOutput out, FaultException fault )
+	private void writeFault( FaultException fault )
 		throws IOException {
-		writeString( out, fault.faultName() );
-		writeValue( out, fault.value() );
+		writeString( fault.faultName() );
+		writeValue( fault.value() );
 	}
 
-	private void writeValue( DataOutput out, Value value )
+	private void writeValue( Value value )
 		throws IOException {
 		Object valueObject = value.valueObject();
 		if( valueObject == null ) {
-			out.writeByte( DataTypeHeaderId.NULL );
+			writeByte( DataTypeHeaderId.NULL );
 		} else if( valueObject instanceof String ) {
-			out.writeByte( DataTypeHeaderId.STRING );
-			writeString( out, (String) valueObject );
+			writeByte( DataTypeHeaderId.STRING );
+			writeString( (String) valueObject );
 		} else if( valueObject instanceof Integer ) {
-			out.writeByte( DataTypeHeaderId.INT );
-			out.writeInt( (Integer) valueObject );
+			writeByte( DataTypeHeaderId.INT );
+			writeInt( (Integer) valueObject );
 		} else if( valueObject instanceof Double ) {
-			out.writeByte( DataTypeHeaderId.DOUBLE );
-			out.writeDouble( (Double) valueObject );
+			writeByte( DataTypeHeaderId.DOUBLE );
+			writeDouble( (Double) valueObject );
 		} else if( valueObject instanceof ByteArray ) {
-			out.writeByte( DataTypeHeaderId.BYTE_ARRAY );
-			writeByteArray( out, (ByteArray) valueObject );
+			writeByte( DataTypeHeaderId.BYTE_ARRAY );
+			writeByteArray( (ByteArray) valueObject );
 		} else if( valueObject instanceof Boolean ) {
-			out.writeByte( DataTypeHeaderId.BOOL );
-			out.writeBoolean( (Boolean) valueObject );
+			writeByte( DataTypeHeaderId.BOOL );
+			writeBoolean( (Boolean) valueObject );
 		} else if( valueObject instanceof Long ) {
-			out.writeByte( DataTypeHeaderId.LONG );
-			out.writeLong( (Long) valueObject );
+			writeByte( DataTypeHeaderId.LONG );
+			writeLong( (Long) valueObject );
 		} else {
-			out.writeByte( DataTypeHeaderId.NULL );
+			writeByte( DataTypeHeaderId.NULL );
 		}
 
-		Map< String, ValueVector > children = value.children();
-		List< Entry< String, ValueVector > > entries =
-			new LinkedList<>();
-		// if ( !entry.getKey().startsWith( "@" ) ) {
-		// }
-		entries.addAll( children.entrySet() );
-
-		out.writeInt( entries.size() );
+		// Snapshot the children, so that the count matches the entries written even if another
+		// thread adds or removes children meanwhile
+		List< Entry< String, ValueVector > > entries = new ArrayList<>( value.children().entrySet() );
+		writeInt( entries.size() );
 		for( Entry< String, ValueVector > entry : entries ) {
-			writeString( out, entry.getKey() );
-			out.writeInt( entry.getValue().size() );
+			writeString( entry.getKey() );
+			writeInt( entry.getValue().size() );
 			for( Value v : entry.getValue() ) {
-				writeValue( out, v );
+				writeValue( v );
 			}
 		}
 	}
 
-	private void writeMessage( DataOutput out, CommMessage message )
+	private void writeMessage( CommMessage message )
 		throws IOException {
-		out.writeLong( message.id() );
-		writeString( out, message.resourcePath() );
-		writeString( out, message.operationName() );
+		writeLong( message.id() );
+		writeString( message.resourcePath() );
+		writeString( message.operationName() );
 		FaultException fault = message.fault();
 		if( fault == null ) {
-			out.writeBoolean( false );
+			writeBoolean( false );
 		} else {
-			out.writeBoolean( true );
-			writeFault( out, fault );
+			writeBoolean( true );
+			writeFault( fault );
 		}
-		writeValue( out, message.value() );
+		writeValue( message.value() );
 	}
 
 	private Value readValue( DataInput in )
@@ -213,7 +462,7 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		ValueVector vec;
 
 		for( i = 0; i < n; i++ ) {
-			s = readString( in );
+			s = readName( in );
 			vec = ValueVector.create();
 			size = in.readInt();
 			for( k = 0; k < size; k++ ) {
@@ -226,7 +475,7 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 
 	private FaultException readFault( DataInput in )
 		throws IOException {
-		String faultName = readString( in );
+		String faultName = readName( in );
 		Value value = readValue( in );
 		return new FaultException( faultName, value );
 	}
@@ -234,8 +483,8 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 	private CommMessage readMessage( DataInput in )
 		throws IOException {
 		long id = in.readLong();
-		String resourcePath = readString( in );
-		String operationName = readString( in );
+		String resourcePath = readName( in );
+		String operationName = readName( in );
 		FaultException fault = null;
 		if( in.readBoolean() == true ) {
 			fault = readFault( in );
@@ -252,13 +501,33 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		throws IOException {
 		channel().setToBeClosed( !checkBooleanParameter( "keepAlive", true ) );
 
-		String charset = getStringParameter( "charset" );
-		if( !charset.isEmpty() ) {
-			stringCharset = Charset.forName( charset );
-		}
+		encode( ostream, message, getStringParameter( "charset" ) );
+	}
+
+	/*
+	 * Writes the message to ostream, encoding its strings with the given charset (or with the last
+	 * one used, if empty).
+	 */
+	void encode( OutputStream ostream, CommMessage message, String charset )
+		throws IOException {
+		synchronized( sendLock ) {
+			if( !charset.isEmpty() ) {
+				sendCharset = Charset.forName( charset );
+			}
 
-		final DataOutputStream oos = new DataOutputStream( ostream );
-		writeMessage( oos, message );
+			outStream = ostream;
+			try {
+				writeMessage( message );
+				flush();
+			} finally {
+				outStream = null;
+				if( outBuffer.capacity() > MAX_RETAINED_BUFFER_SIZE ) {
+					outBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+				} else {
+					outBuffer.clear();
+				}
+			}
+		}
 	}
 
 	public CommMessage recv( InputStream istream, OutputStream ostream )
@@ -266,11 +535,29 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 		channel().setToBeClosed( !checkBooleanParameter( "keepAlive", true ) );
 
 		String charset = getStringParameter( "charset" );
-		if( !charset.isEmpty() ) {
-			stringCharset = Charset.forName( charset );
-		}
 
-		final DataInputStream ios = new DataInputStream( istream );
-		return readMessage( ios );
+		boolean useNameCache = checkBooleanParameter( "nameCache", true );
+
+		synchronized( recvLock ) {
+			if( !charset.isEmpty() ) {
+				Charset newCharset = Charset.forName( charset );
+				if( !newCharset.equals( recvCharset ) && nameTable != null ) {
+					nameTable.clear();
+				}
+				recvCharset = newCharset;
+			}
+
+			if( !useNameCache ) {
+				nameTable = null;
+			} else if( nameTable == null ) {
+				nameTable = new NameTable();
+			}
+
+			if( istream != lastInputStream ) {
+				lastInputStream = istream;
+				dataInputStream = new DataInputStream( istream );
+			}
+			return readMessage( dataInputStream );
+		}
 	}
 }
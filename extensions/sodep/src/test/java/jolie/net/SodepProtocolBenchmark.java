@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Compares the time to encode a message with SodepProtocol and with SodepReferenceEncoder. Run it
+ * with the main method from the test classpath.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+public class SodepProtocolBenchmark {
+	@Param( { "UTF-8", "ISO-8859-1" } )
+	public String charset;
+
+	// small: a typical request of a few hundred bytes; large: a list of records of about 100 KB
+	@Param( { "small", "large" } )
+	public String payload;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private SodepProtocol protocol;
+	private CommMessage message;
+
+	private static Value record( int i ) {
+		final Value record = Value.create();
+		record.getFirstChild( "id" ).setValue( i );
+		record.getFirstChild( "name" ).setValue( "Record number " + i );
+		record.getFirstChild( "city" ).setValue( "Zürich" );
+		record.getFirstChild( "price" ).setValue( i * 1.5 );
+		record.getFirstChild( "available" ).setValue( i % 2 == 0 );
+		for( int k = 0; k < 3; k++ ) {
+			record.getNewChild( "tag" ).setValue( "tag" + k );
+		}
+		return record;
+	}
+
+	@Setup
+	public void setup() {
+		final Value value;
+		if( "small".equals( payload ) ) {
+			value = record( 1 );
+			value.getFirstChild( "data" ).setValue( new ByteArray( new byte[ 64 ] ) );
+		} else {
+			value = Value.create();
+			for( int i = 0; i < 1000; i++ ) {
+				value.getChildren( "record" ).add( record( i ) );
+			}
+		}
+		message = new CommMessage( 1, "update", "/", value, null );
+		// encode does not read the configuration of the port
+		protocol = new SodepProtocol( null );
+	}
+
+	@Benchmark
+	public int encode() throws IOException {
+		out.reset();
+		protocol.encode( out, message, charset );
+		return out.size();
+	}
+
+	@Benchmark
+	public int encodeReference() throws IOException {
+		out.reset();
+		SodepReferenceEncoder.write( out, message, Charset.forName( charset ) );
+		return out.size();
+	}
+
+	public static void main( String[] args ) throws RunnerException {
+		new Runner( new OptionsBuilder().include( SodepProtocolBenchmark.class.getSimpleName() ).build() ).run();
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/*
+ * Checks that the buffered encoder of SodepProtocol produces the same bytes as SodepReferenceEncoder.
+ */
+public class SodepProtocolTest {
+	private static final int MESSAGES = 200;
+	// Larger than the limit beyond which the output buffer is flushed instead of growing
+	private static final int LARGE_SIZE = 70 * 1024;
+
+	private static SodepProtocol protocol() {
+		// encode does not read the configuration of the port
+		return new SodepProtocol( null );
+	}
+
+	private static char randomChar( Random random ) {
+		switch( random.nextInt( 6 ) ) {
+		case 0:
+			return (char) random.nextInt( 0x80 );
+		case 1:
+			return (char) (0x80 + random.nextInt( 0x780 ));
+		case 2:
+			return (char) (0x800 + random.nextInt( 0xD000 ));
+		case 3:
+			return (char) (Character.MIN_HIGH_SURROGATE + random.nextInt( 0x400 ));
+		case 4:
+			return (char) (Character.MIN_LOW_SURROGATE + random.nextInt( 0x400 ));
+		default:
+			return (char) (0xE000 + random.nextInt( 0x2000 ));
+		}
+	}
+
+	private static String randomString( Random random, int maxLength ) {
+		final int length = random.nextInt( maxLength + 1 );
+		final StringBuilder builder = new StringBuilder( length );
+		while( builder.length() < length ) {
+			if( random.nextInt( 4 ) == 0 ) {
+				// A well-formed surrogate pair
+				builder.appendCodePoint( 0x10000 + random.nextInt( 0x100000 ) );
+			} else {
+				builder.append( randomChar( random ) );
+			}
+		}
+		return builder.toString();
+	}
+
+	private static int randomSize( Random random ) {
+		return random.nextInt( 10 ) == 0 ? LARGE_SIZE + random.nextInt( LARGE_SIZE ) : random.nextInt( 100 );
+	}
+
+	private static Value randomValue( Random random, int depth ) {
+		final Value value = Value.create();
+		switch( random.nextInt( 8 ) ) {
+		case 0:
+			value.setValue( randomString( random, randomSize( random ) ) );
+			break;
+		case 1:
+			value.setValue( random.nextInt() );
+			break;
+		case 2:
+			value.setValue( random.nextDouble() );
+			break;
+		case 3:
+			final byte[] bytes = new byte[ randomSize( random ) ];
+			random.nextBytes( bytes );
+			value.setValue( new ByteArray( bytes ) );
+			break;
+		case 4:
+			value.setValue( random.nextBoolean() );
+			break;
+		case 5:
+			value.setValue( random.nextLong() );
+			break;
+		default:
+			break;
+		}
+		if( depth > 0 ) {
+			final int children = random.nextInt( 4 );
+			for( int i = 0; i < children; i++ ) {
+				final ValueVector vector = value.getChildren( randomString( random, 8 ) );
+				final int size = 1 + random.nextInt( 3 );
+				for( int k = 0; k < size; k++ ) {
+					vector.add( randomValue( random, depth - 1 ) );
+				}
+			}
+		}
+		return value;
+	}
+
+	private static CommMessage randomMessage( Random random ) {
+		final FaultException fault = random.nextInt( 5 ) == 0
+			? new FaultException( randomString( random, 16 ), randomValue( random, 1 ) )
+			: null;
+		return new CommMessage( random.nextLong(), randomString( random, 16 ), randomString( random, 16 ),
+			randomValue( random, 3 ), fault );
+	}
+
+	private static void assertSameEncoding( Charset charset, long seed )
+		throws IOException {
+		final Random random = new Random( seed );
+		// The same protocol instance encodes all messages, so that its buffers are reused
+		final SodepProtocol protocol = protocol();
+		for( int i = 0; i < MESSAGES; i++ ) {
+			final CommMessage message = randomMessage( random );
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			protocol.encode( out, message, charset.name() );
+			assertArrayEquals( "message " + i + " in " + charset, SodepReferenceEncoder.encode( message, charset ),
+				out.toByteArray() );
+		}
+	}
+
+	@Test
+	public void utf8() throws IOException {
+		assertSameEncoding( StandardCharsets.UTF_8, 1 );
+	}
+
+	@Test
+	public void iso88591() throws IOException {
+		assertSameEncoding( StandardCharsets.ISO_8859_1, 2 );
+	}
+
+	@Test
+	public void utf16() throws IOException {
+		assertSameEncoding( StandardCharsets.UTF_16, 3 );
+	}
+
+	@Test
+	public void largeStringsAndByteArrays() throws IOException {
+		final Random random = new Random( 4 );
+		final SodepProtocol protocol = protocol();
+		for( Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16 } ) {
+			final Value value = Value.create();
+			// Strings ending with a surrogate pair split at a chunk boundary, and with an unpaired
+			// high surrogate
+			value.getNewChild( "s" ).setValue( randomString( random, 100 ) + repeat( 'a', LARGE_SIZE - 1 )
+				+ new String( Character.toChars( 0x1F600 ) ) );
+			value.getNewChild( "s" ).setValue( repeat( 'é', LARGE_SIZE ) + '\uD83D' );
+			value.getNewChild( "s" ).setValue( repeat( '中', 4095 ) + new String( Character.toChars( 0x1F600 ) )
+				+ repeat( '中', LARGE_SIZE ) );
+			final byte[] bytes = new byte[ 3 * LARGE_SIZE ];
+			random.nextBytes( bytes );
+			value.getNewChild( "b" ).setValue( new ByteArray( bytes ) );
+			final CommMessage message = new CommMessage( 1, "op", "/", value, null );
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			protocol.encode( out, message, charset.name() );
+			assertArrayEquals( SodepReferenceEncoder.encode( message, charset ), out.toByteArray() );
+		}
+	}
+
+	private static String repeat( char c, int n ) {
+		final char[] chars = new char[ n ];
+		Arrays.fill( chars, c );
+		return new String( chars );
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Map.Entry;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/*
+ * The straightforward encoding of SODEP messages through a DataOutputStream, with a Writer per
+ * string. It is the reference definition of the format that SodepProtocol must match.
+ */
+final class SodepReferenceEncoder {
+	private SodepReferenceEncoder() {}
+
+	private static void writeString( DataOutput out, String str, Charset charset )
+		throws IOException {
+		if( str.isEmpty() ) {
+			out.writeInt( 0 );
+		} else {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			Writer writer = new OutputStreamWriter( bos, charset );
+			writer.write( str );
+			writer.close();
+			byte[] bb = bos.toByteArray();
+			out.writeInt( bb.length );
+			out.write( bb );
+		}
+	}
+
+	private static void writeValue( DataOutput out, Value value, Charset charset )
+		throws IOException {
+		Object valueObject = value.valueObject();
+		if( valueObject instanceof String ) {
+			out.writeByte( 1 );
+			writeString( out, (String) valueObject, charset );
+		} else if( valueObject instanceof Integer ) {
+			out.writeByte( 2 );
+			out.writeInt( (Integer) valueObject );
+		} else if( valueObject instanceof Double ) {
+			out.writeByte( 3 );
+			out.writeDouble( (Double) valueObject );
+		} else if( valueObject instanceof ByteArray ) {
+			out.writeByte( 4 );
+			ByteArray byteArray = (ByteArray) valueObject;
+			out.writeInt( byteArray.size() );
+			out.write( byteArray.getBytes() );
+		} else if( valueObject instanceof Boolean ) {
+			out.writeByte( 5 );
+			out.writeBoolean( (Boolean) valueObject );
+		} else if( valueObject instanceof Long ) {
+			out.writeByte( 6 );
+			out.writeLong( (Long) valueObject );
+		} else {
+			out.writeByte( 0 );
+		}
+
+		out.writeInt( value.children().size() );
+		for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
+			writeString( out, entry.getKey(), charset );
+			out.writeInt( entry.getValue().size() );
+			for( Value v : entry.getValue() ) {
+				writeValue( out, v, charset );
+			}
+		}
+	}
+
+	static void write( OutputStream ostream, CommMessage message, Charset charset )
+		throws IOException {
+		DataOutputStream out = new DataOutputStream( ostream );
+		out.writeLong( message.id() );
+		writeString( out, message.resourcePath(), charset );
+		writeString( out, message.operationName(), charset );
+		FaultException fault = message.fault();
+		out.writeBoolean( fault != null );
+		if( fault != null ) {
+			writeString( out, fault.faultName(), charset );
+			writeValue( out, fault.value(), charset );
+		}
+		writeValue( out, message.value(), charset );
+		out.flush();
+	}
+
+	static byte[] encode( CommMessage message, Charset charset )
+		throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		write( bos, message, charset );
+		return bos.toByteArray();
+	}
+}
@@ -35,6 +35,10 @@ import java.sql.Types;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TimerTask;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import jolie.runtime.ByteArray;
 import jolie.runtime.CanUseJars;
@@ -43,7 +47,9 @@ import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.embedding.RequestResponse;
+import joliex.db.impl.ConnectionPool;
 import joliex.db.impl.NamedStatementParser;
+import joliex.db.impl.StatementCache;
 
 /**
  * @author Fabrizio Montesi 2008 - Marco Montesi: connection string fix for Microsoft SQL Server
@@ -62,7 +68,8 @@ import joliex.db.impl.NamedStatementParser;
 	"db2jcc.jar" // DB2
 } )
 public class DatabaseService extends JavaService {
-	private Connection connection = null;
+	private volatile ConnectionPool connectionPool = null;
+	private volatile ConnectionPool cursorPool = null;
 	private String connectionString = null;
 	private String username = null;
 	private String password = null;
@@ -70,20 +77,121 @@ public class DatabaseService extends JavaService {
 	private String driverClass = null;
 	private static boolean toLowerCase = false;
 	private static boolean toUpperCase = false;
-	private boolean mustCheckConnection = false;
-	private final Object transactionMutex = new Object();
+	private final Map< String, Cursor > cursors = new ConcurrentHashMap<>();
+	private final Map< Connection, StatementCache > statementCaches = new ConcurrentHashMap<>();
+	private final StatementCache.Statistics statementCacheStatistics = new StatementCache.Statistics();
+	private int statementCacheSize = 0;
 	private final static String TEMPLATE_FIELD = "_template";
+	private final static String FETCH_SIZE_FIELD = "_fetchSize";
+	private final static int DEFAULT_FETCH_ROWS = 100;
+	private final static String POOL_CONFIG_FIELD = "connectionPoolConfig";
+	private final static long DEFAULT_CURSOR_TIMEOUT = 60000L;
+	private final static int DEFAULT_MAX_CURSORS = 1;
+	private long cursorTimeout = DEFAULT_CURSOR_TIMEOUT;
+
+	/**
+	 * An open query result that is read incrementally. Each cursor holds a connection of the cursor
+	 * pool, so that it does not starve the statements executed while it is read, until it is closed:
+	 * either explicitly, when it is exhausted, or after being idle for longer than the cursor timeout.
+	 */
+	private static class Cursor {
+		private final ConnectionPool pool;
+		private final Connection connection;
+		private final StatementCache statementCache;
+		private final NamedStatementParser parser;
+		private final ResultSet result;
+		private final ResultSetMetaData metadata;
+		private final Value template;
+		private final Map< String, Integer > colIndexes;
+		private long lastAccess = System.currentTimeMillis();
+		private boolean closed = false;
+
+		private Cursor( ConnectionPool pool, Connection connection, StatementCache statementCache,
+			NamedStatementParser parser, ResultSet result, Value template )
+			throws SQLException {
+			this.pool = pool;
+			this.connection = connection;
+			this.statementCache = statementCache;
+			this.parser = parser;
+			this.result = result;
+			this.metadata = result.getMetaData();
+			this.template = template;
+			this.colIndexes = template == null ? null : columnIndexes( metadata );
+		}
+
+		/**
+		 * Reads at most {@code rows} rows into {@code vector}.
+		 *
+		 * @return {@code true} if the result has no more rows
+		 */
+		private boolean fetch( int rows, ValueVector vector )
+			throws SQLException {
+			final int cols = metadata.getColumnCount();
+			for( int rowIndex = 0; rowIndex < rows; rowIndex++ ) {
+				if( !result.next() ) {
+					return true;
+				}
+				if( template == null ) {
+					rowToValue( result, metadata, cols, vector.get( rowIndex ) );
+				} else {
+					_rowToValueWithTemplate( vector.get( rowIndex ), result, metadata, colIndexes, template );
+				}
+			}
+			return false;
+		}
+
+		private boolean isExpired( long now, long timeout ) {
+			return now - lastAccess >= timeout;
+		}
+
+		/**
+		 * Closes the result, gives the statement back to its cache and the connection back to the pool.
+		 * Must be called at most once.
+		 */
+		private void close() {
+			closed = true;
+			boolean failed = false;
+			try {
+				result.close();
+			} catch( SQLException e ) {
+				failed = true;
+			}
+			statementCache.release( parser );
+			rollbackAndRelease( pool, connection, failed );
+		}
+	}
+
+	/**
+	 * Closes the connections of a pool and the cursors that have been idle for too long, also while no
+	 * statements are executed. The task reschedules itself until the pool is replaced or closed.
+	 */
+	private class PoolMaintenance extends TimerTask {
+		private final ConnectionPool pool;
+		private final ConnectionPool cursorPool;
+		private final long period;
+
+		private PoolMaintenance( ConnectionPool pool, ConnectionPool cursorPool, long period ) {
+			this.pool = pool;
+			this.cursorPool = cursorPool;
+			this.period = period;
+		}
+
+		@Override
+		public void run() {
+			if( connectionPool == pool ) {
+				closeExpiredCursors();
+				pool.evictIdleConnections();
+				cursorPool.evictIdleConnections();
+				interpreter().schedule( new PoolMaintenance( pool, cursorPool, period ), period );
+			}
+		}
+	}
 
 	@Override
 	protected void finalize()
 		throws Throwable {
 		try {
-			if( connection != null ) {
-				try {
-					connection.close();
-				} catch( SQLException e ) {
-				}
-			}
+			close();
 		} finally {
 			super.finalize();
 		}
@@ -91,14 +199,16 @@ public class DatabaseService extends JavaService {
 
 	@RequestResponse
 	public void close() {
-		if( connection != null ) {
-			try {
-				connectionString = null;
-				username = null;
-				password = null;
-				connection.close();
-			} catch( SQLException e ) {
-			}
+		cursors.keySet().forEach( this::closeCursor );
+		final ConnectionPool pool = connectionPool;
+		if( pool != null ) {
+			connectionPool = null;
+			connectionString = null;
+			username = null;
+			password = null;
+			pool.close();
+			cursorPool.close();
+			cursorPool = null;
 		}
 	}
 
@@ -107,7 +217,9 @@ public class DatabaseService extends JavaService {
 		throws FaultException {
 		close();
 
-		mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
+		final boolean mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
+
+		statementCacheSize = request.firstChildOrDefault( "statementCacheSize", Value::intValue, 0 );
 
 		toLowerCase =
 			request.getFirstChild( "toLowerCase" ).isDefined() && request.getFirstChild( "toLowerCase" ).boolValue();
@@ -171,18 +283,17 @@ public class DatabaseService extends JavaService {
 				Class.forName( driverClass );
 			}
 
+			final ConnectionPool.ConnectionFactory connectionFactory;
 			if( isEmbedded ) {
 				connectionString = "jdbc:" + driver + ":" + databaseName;
 				if( !attributes.isEmpty() ) {
 					connectionString += ";" + attributes;
 				}
 				if( "hsqldb".equals( driver ) ) {
-					connection = DriverManager.getConnection(
-						connectionString,
-						username,
-						password );
+					connectionFactory = createConnectionFactory( connectionString, username, password );
 				} else {
-					connection = DriverManager.getConnection( connectionString );
+					final String embeddedConnectionString = connectionString;
+					connectionFactory = () -> DriverManager.getConnection( embeddedConnectionString );
 				}
 			} else {
 				if( driver.startsWith( "hsqldb" ) ) {
@@ -194,14 +305,52 @@ public class DatabaseService extends JavaService {
 						"jdbc:" + driver + "://" + host + (port.isEmpty() ? "" : ":" + port) + separator + databaseName
 							+ "?characterEncoding=" + encoding;
 				}
-				connection = DriverManager.getConnection(
-					connectionString,
-					username,
-					password );
+				connectionFactory = createConnectionFactory( connectionString, username, password );
 			}
 
-			if( connection == null ) {
-				throw new FaultException( "ConnectionError" );
+			final Value poolConfig = request.getFirstChild( POOL_CONFIG_FIELD );
+			final ConnectionPool.ConnectionValidator validator;
+			if( poolConfig.hasChildren( "validationQuery" ) ) {
+				validator = ConnectionPool.queryValidator( poolConfig.getFirstChild( "validationQuery" ).strValue() );
+			} else if( mustCheckConnection ) {
+				validator = createDefaultValidator( driver );
+			} else {
+				validator = null;
+			}
+			final long maxIdleTime = poolConfig.firstChildOrDefault( "maxIdleTime", Value::longValue, 0L );
+			cursorTimeout = poolConfig.firstChildOrDefault( "cursorTimeout", Value::longValue, DEFAULT_CURSOR_TIMEOUT );
+			final Consumer< Connection > closeListener = connection -> {
+				final StatementCache cache = statementCaches.remove( connection );
+				if( cache != null ) {
+					cache.close();
+				}
+			};
+			// Cursor connections are only opened when cursors are, and never waited for
+			final ConnectionPool cursorConnections = new ConnectionPool(
+				connectionFactory,
+				validator,
+				closeListener,
+				0,
+				poolConfig.firstChildOrDefault( "maxCursors", Value::intValue, DEFAULT_MAX_CURSORS ),
+				maxIdleTime );
+			final ConnectionPool pool;
+			try {
+				pool = new ConnectionPool(
+					connectionFactory,
+					validator,
+					closeListener,
+					poolConfig.firstChildOrDefault( "minPoolSize", Value::intValue, 1 ),
+					poolConfig.firstChildOrDefault( "maxPoolSize", Value::intValue, 1 ),
+					maxIdleTime );
+			} catch( SQLException e ) {
+				cursorConnections.close();
+				throw e;
+			}
+			cursorPool = cursorConnections;
+			connectionPool = pool;
+			final long maintenancePeriod = maintenancePeriod( maxIdleTime, cursorTimeout );
+			if( maintenancePeriod > 0 ) {
+				interpreter().schedule( new PoolMaintenance( pool, cursorConnections, maintenancePeriod ), maintenancePeriod );
 			}
 		} catch( ClassNotFoundException e ) {
 			throw new FaultException( "DriverClassNotFound", e );
@@ -210,57 +359,103 @@ public class DatabaseService extends JavaService {
 		}
 	}
 
-	private void _checkConnection()
+	private static long maintenancePeriod( long maxIdleTime, long cursorTimeout ) {
+		if( maxIdleTime <= 0 ) {
+			return cursorTimeout;
+		} else if( cursorTimeout <= 0 ) {
+			return maxIdleTime;
+		} else {
+			return Math.min( maxIdleTime, cursorTimeout );
+		}
+	}
+
+	private static ConnectionPool.ConnectionFactory createConnectionFactory( String connectionString,
+		String username, String password ) {
+		return () -> {
+			Connection connection = DriverManager.getConnection( connectionString, username, password );
+			if( connection == null ) {
+				throw new SQLException( "Could not connect to " + connectionString );
+			}
+			return connection;
+		};
+	}
+
+	private static ConnectionPool.ConnectionValidator createDefaultValidator( String driver ) {
+		if( "postgresql".equals( driver ) ) {
+			/*
+			 * The JDBC4 driver for postgresql does not implemented isValid(). We fallback to isClosed().
+			 */
+			return connection -> !connection.isClosed();
+		} else {
+			return connection -> connection.isValid( 0 );
+		}
+	}
+
+	private ConnectionPool _checkConnection()
 		throws FaultException {
-		if( connection == null ) {
+		final ConnectionPool pool = connectionPool;
+		if( pool == null ) {
 			throw new FaultException( "ConnectionError" );
 		}
-		if( mustCheckConnection ) {
-			try {
-				if( "postgresql".equals( driver ) ) {
-					/*
-					 * The JDBC4 driver for postgresql does not implemented isValid(). We fallback to isClosed().
-					 */
-
-					if( connection.isClosed() ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
-					}
-				} else {
-					if( !connection.isValid( 0 ) ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
-					}
-				}
-			} catch( SQLException e ) {
-				throw new FaultException( "ConnectionError", e );
-			}
+		return pool;
+	}
+
+	private static Connection acquireConnection( ConnectionPool pool )
+		throws FaultException {
+		try {
+			return pool.acquire();
+		} catch( SQLException e ) {
+			throw new FaultException( "ConnectionError", e );
 		}
 	}
 
+	private static void releaseConnection( ConnectionPool pool, Connection connection, boolean failed ) {
+		if( failed ) {
+			pool.releaseAfterFailure( connection );
+		} else {
+			pool.release( connection );
+		}
+	}
+
+	// Ends the transaction opened on a connection with autocommit disabled and releases the connection
+	private static void rollbackAndRelease( ConnectionPool pool, Connection connection, boolean failed ) {
+		try {
+			connection.rollback();
+			connection.setAutoCommit( true );
+		} catch( SQLException e ) {
+			pool.discard( connection );
+			return;
+		}
+		releaseConnection( pool, connection, failed );
+	}
+
+	private StatementCache statementCache( Connection connection ) {
+		return statementCaches.computeIfAbsent( connection,
+			c -> new StatementCache( c, statementCacheSize, statementCacheStatistics ) );
+	}
+
+	@RequestResponse
+	public Value getStatementCacheStatistics() {
+		Value resultValue = Value.create();
+		resultValue.setFirstChild( "hits", statementCacheStatistics.hits() );
+		resultValue.setFirstChild( "misses", statementCacheStatistics.misses() );
+		return resultValue;
+	}
+
 	@RequestResponse
 	public void checkConnection()
 		throws FaultException {
+		final ConnectionPool pool = _checkConnection();
+		final Connection connection = acquireConnection( pool );
 		try {
-			if( "postgresql".equals( driver ) ) {
-				/*
-				 * The JDBC4 driver for postgresql does not implemented isValid(). We fallback to isClosed().
-				 */
-
-				if( connection == null || connection.isClosed() ) {
-					throw new FaultException( "ConnectionError" );
-				}
+			if( createDefaultValidator( driver ).isValid( connection ) ) {
+				pool.release( connection );
 			} else {
-
-				if( connection == null || !connection.isValid( 0 ) ) {
-					throw new FaultException( "ConnectionError" );
-				}
+				pool.discard( connection );
+				throw new FaultException( "ConnectionError" );
 			}
 		} catch( SQLException e ) {
+			pool.discard( connection );
 			throw new FaultException( "ConnectionError", e );
 		}
 	}
@@ -268,23 +463,24 @@ public class DatabaseService extends JavaService {
 	@RequestResponse
 	public Value update( Value request )
 		throws FaultException {
-		_checkConnection();
+		final ConnectionPool pool = _checkConnection();
+		final Connection connection = acquireConnection( pool );
+		final StatementCache statementCache = statementCache( connection );
 		Value resultValue = Value.create();
-		PreparedStatement stm = null;
+		NamedStatementParser parser = null;
+		boolean failed = false;
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				resultValue.setValue( stm.executeUpdate() );
-			}
+			parser = statementCache.prepare( request.strValue() );
+			parser.setParameters( request );
+			resultValue.setValue( parser.getPreparedStatement().executeUpdate() );
 		} catch( SQLException e ) {
+			failed = true;
 			throw createFaultException( e );
 		} finally {
-			if( stm != null ) {
-				try {
-					stm.close();
-				} catch( SQLException e ) {
-				}
+			if( parser != null ) {
+				statementCache.release( parser );
 			}
+			releaseConnection( pool, connection, failed );
 		}
 		return resultValue;
 	}
@@ -383,40 +579,31 @@ public class DatabaseService extends JavaService {
 		}
 	}
 
+	private static String columnLabel( ResultSetMetaData metadata, int index )
+		throws SQLException {
+		if( toLowerCase ) {
+			return metadata.getColumnLabel( index ).toLowerCase();
+		} else if( toUpperCase ) {
+			return metadata.getColumnLabel( index ).toUpperCase();
+		}
+		return metadata.getColumnLabel( index );
+	}
+
+	private static void rowToValue( ResultSet result, ResultSetMetaData metadata, int cols, Value rowValue )
+		throws SQLException {
+		for( int i = 1; i <= cols; i++ ) {
+			setValue( rowValue.getFirstChild( columnLabel( metadata, i ) ), result, metadata.getColumnType( i ), i );
+		}
+	}
+
 	private static void resultSetToValueVector( ResultSet result, ValueVector vector )
 		throws SQLException {
-		Value rowValue, fieldValue;
 		ResultSetMetaData metadata = result.getMetaData();
 		int cols = metadata.getColumnCount();
-		int i;
 		int rowIndex = 0;
-		if( toLowerCase ) {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ).toLowerCase() );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
-				}
-				rowIndex++;
-			}
-		} else if( toUpperCase ) {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ).toUpperCase() );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
-				}
-				rowIndex++;
-			}
-		} else {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ) );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
-				}
-				rowIndex++;
-			}
+		while( result.next() ) {
+			rowToValue( result, metadata, cols, vector.get( rowIndex ) );
+			rowIndex++;
 		}
 	}
 
@@ -440,15 +627,21 @@ public class DatabaseService extends JavaService {
 		}
 	}
 
-	private static void resultSetToValueVectorWithTemplate( ResultSet result, ValueVector vector, Value template )
+	private static Map< String, Integer > columnIndexes( ResultSetMetaData metadata )
 		throws SQLException {
-		Value rowValue;
-		ResultSetMetaData metadata = result.getMetaData();
 		Map< String, Integer > colIndexes = new HashMap<>();
 		int cols = metadata.getColumnCount();
 		for( int i = 0; i < cols; i++ ) {
 			colIndexes.put( metadata.getColumnName( i ), i );
 		}
+		return colIndexes;
+	}
+
+	private static void resultSetToValueVectorWithTemplate( ResultSet result, ValueVector vector, Value template )
+		throws SQLException {
+		Value rowValue;
+		ResultSetMetaData metadata = result.getMetaData();
+		Map< String, Integer > colIndexes = columnIndexes( metadata );
 
 		int rowIndex = 0;
 		while( result.next() ) {
@@ -462,27 +655,33 @@ public class DatabaseService extends JavaService {
 	@RequestResponse
 	public Value executeTransaction( Value request )
 		throws FaultException {
-		_checkConnection();
+		final ConnectionPool pool = _checkConnection();
+		// All the statements of a transaction run on the same connection.
+		final Connection connection = acquireConnection( pool );
+		boolean isConnectionReusable = true;
 		Value resultValue = Value.create();
 		ValueVector resultVector = resultValue.getChildren( "result" );
-		synchronized( transactionMutex ) {
+		try {
 			try {
 				connection.setAutoCommit( false );
 			} catch( SQLException e ) {
 				throw createFaultException( e );
 			}
 
+			final StatementCache statementCache = statementCache( connection );
 			Value currResultValue;
+			NamedStatementParser parser;
 			PreparedStatement stm;
 			int updateCount;
 
 			for( Value statementValue : request.getChildren( "statement" ) ) {
 				currResultValue = Value.create();
-				stm = null;
+				parser = null;
 				try {
 					updateCount = -1;
-					stm = new NamedStatementParser( connection, statementValue.strValue(), statementValue )
-						.getPreparedStatement();
+					parser = statementCache.prepare( statementValue.strValue() );
+					parser.setParameters( statementValue );
+					stm = parser.getPreparedStatement();
 					if( stm.execute() == true ) {
 						updateCount = stm.getUpdateCount();
 						if( updateCount == -1 ) {
@@ -502,16 +701,12 @@ public class DatabaseService extends JavaService {
 					try {
 						connection.rollback();
 					} catch( SQLException e1 ) {
-						connection = null;
+						isConnectionReusable = false;
 					}
 					throw createFaultException( e );
 				} finally {
-					if( stm != null ) {
-						try {
-							stm.close();
-						} catch( SQLException e ) {
-							throw createFaultException( e );
-						}
+					if( parser != null ) {
+						statementCache.release( parser );
 					}
 				}
 			}
@@ -520,17 +715,185 @@ public class DatabaseService extends JavaService {
 				connection.commit();
 			} catch( SQLException e ) {
 				throw createFaultException( e );
-			} finally {
+			}
+		} finally {
+			try {
+				connection.setAutoCommit( true );
+			} catch( SQLException e ) {
+				isConnectionReusable = false;
+			}
+			if( isConnectionReusable ) {
+				pool.release( connection );
+			} else {
+				pool.discard( connection );
+			}
+		}
+		return resultValue;
+	}
+
+	@RequestResponse
+	public Value batchUpdate( Value request )
+		throws FaultException {
+		final ConnectionPool pool = _checkConnection();
+		final Connection connection = acquireConnection( pool );
+		boolean isConnectionReusable = true;
+		Value resultValue = Value.create();
+		ValueVector resultVector = resultValue.getChildren( "result" );
+		final StatementCache statementCache = statementCache( connection );
+		NamedStatementParser parser = null;
+		try {
+			connection.setAutoCommit( false );
+			parser = statementCache.prepare( request.strValue() );
+			final PreparedStatement stm = parser.getPreparedStatement();
+			for( Value parameters : request.getChildren( "parameters" ) ) {
+				parser.setParameters( parameters );
+				stm.addBatch();
+			}
+			for( int updateCount : stm.executeBatch() ) {
+				resultVector.add( Value.create( updateCount ) );
+			}
+			connection.commit();
+		} catch( SQLException e ) {
+			try {
+				connection.rollback();
+			} catch( SQLException e1 ) {
+				isConnectionReusable = false;
+			}
+			throw createFaultException( e );
+		} finally {
+			if( parser != null ) {
 				try {
-					connection.setAutoCommit( true );
+					parser.getPreparedStatement().clearBatch();
 				} catch( SQLException e ) {
-					throw createFaultException( e );
 				}
+				statementCache.release( parser );
+			}
+			try {
+				connection.setAutoCommit( true );
+			} catch( SQLException e ) {
+				isConnectionReusable = false;
+			}
+			if( isConnectionReusable ) {
+				pool.release( connection );
+			} else {
+				pool.discard( connection );
+			}
+		}
+		return resultValue;
+	}
+
+	@RequestResponse
+	public String openCursor( Value request )
+		throws FaultException {
+		final ConnectionPool pool = cursorPool;
+		if( pool == null ) {
+			throw new FaultException( "ConnectionError" );
+		}
+		final Connection connection;
+		try {
+			connection = pool.tryAcquire();
+		} catch( SQLException e ) {
+			throw new FaultException( "ConnectionError", e );
+		}
+		if( connection == null ) {
+			throw new FaultException( "ConnectionError",
+				"Too many open cursors (connectionPoolConfig.maxCursors)" );
+		}
+
+		// The cursor holds its connection exclusively, so no one else uses its statement until it is closed
+		final StatementCache statementCache = statementCache( connection );
+		NamedStatementParser parser = null;
+		ResultSet result = null;
+		try {
+			// Some drivers, e.g., PostgreSQL, honour the fetch size only inside a transaction.
+			connection.setAutoCommit( false );
+			parser = statementCache.prepare( request.strValue() );
+			parser.setParameters( request );
+			final PreparedStatement stm = parser.getPreparedStatement();
+			// A cached statement keeps the fetch size of its previous cursor, 0 lets the driver choose
+			stm.setFetchSize( request.firstChildOrDefault( FETCH_SIZE_FIELD, Value::intValue, 0 ) );
+			result = stm.executeQuery();
+			final Cursor cursor = new Cursor(
+				pool,
+				connection,
+				statementCache,
+				parser,
+				result,
+				request.hasChildren( TEMPLATE_FIELD ) ? request.getFirstChild( TEMPLATE_FIELD ) : null );
+			final String cursorId = UUID.randomUUID().toString();
+			cursors.put( cursorId, cursor );
+			return cursorId;
+		} catch( SQLException e ) {
+			if( result != null ) {
+				try {
+					result.close();
+				} catch( SQLException e1 ) {
+				}
+			}
+			if( parser != null ) {
+				statementCache.release( parser );
 			}
+			rollbackAndRelease( pool, connection, true );
+			throw createFaultException( e );
 		}
+	}
+
+	@RequestResponse
+	public Value fetchCursor( Value request )
+		throws FaultException {
+		final String cursorId = request.getFirstChild( "cursor" ).strValue();
+		final Cursor cursor = cursors.get( cursorId );
+		if( cursor == null ) {
+			throw new FaultException( "CursorNotFound", cursorId );
+		}
+
+		Value resultValue = Value.create();
+		final boolean isExhausted;
+		try {
+			synchronized( cursor ) {
+				if( cursor.closed ) {
+					throw new FaultException( "CursorNotFound", cursorId );
+				}
+				isExhausted = cursor.fetch(
+					request.firstChildOrDefault( "rows", Value::intValue, DEFAULT_FETCH_ROWS ),
+					resultValue.getChildren( "row" ) );
+				cursor.lastAccess = System.currentTimeMillis();
+			}
+		} catch( SQLException e ) {
+			closeCursor( cursorId );
+			throw createFaultException( e );
+		}
+		if( isExhausted ) {
+			closeCursor( cursorId );
+		}
+		resultValue.setFirstChild( "hasMore", !isExhausted );
 		return resultValue;
 	}
 
+	@RequestResponse
+	public void closeCursor( String cursorId ) {
+		final Cursor cursor = cursors.remove( cursorId );
+		if( cursor != null ) {
+			synchronized( cursor ) {
+				cursor.close();
+			}
+		}
+	}
+
+	private void closeExpiredCursors() {
+		if( cursorTimeout <= 0 ) {
+			return;
+		}
+		cursors.forEach( ( cursorId, cursor ) -> {
+			synchronized( cursor ) {
+				if( cursor.isExpired( System.currentTimeMillis(), cursorTimeout )
+					&& cursors.remove( cursorId, cursor ) ) {
+					cursor.close();
+				}
+			}
+		} );
+	}
+
 	static FaultException createFaultException( SQLException e ) {
 		Value v = Value.create();
 		ByteArrayOutputStream bs = new ByteArrayOutputStream();
@@ -545,31 +908,32 @@ public class DatabaseService extends JavaService {
 	@RequestResponse
 	public Value query( Value request )
 		throws FaultException {
-		_checkConnection();
+		final ConnectionPool pool = _checkConnection();
+		final Connection connection = acquireConnection( pool );
+		final StatementCache statementCache = statementCache( connection );
 		Value resultValue = Value.create();
-		PreparedStatement stm = null;
+		NamedStatementParser parser = null;
+		boolean failed = false;
 
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				ResultSet result = stm.executeQuery();
-				if( request.hasChildren( TEMPLATE_FIELD ) ) {
-					resultSetToValueVectorWithTemplate( result, resultValue.getChildren( "row" ),
-						request.getFirstChild( TEMPLATE_FIELD ) );
-				} else {
-					resultSetToValueVector( result, resultValue.getChildren( "row" ) );
-				}
-				result.close();
+			parser = statementCache.prepare( request.strValue() );
+			parser.setParameters( request );
+			ResultSet result = parser.getPreparedStatement().executeQuery();
+			if( request.hasChildren( TEMPLATE_FIELD ) ) {
+				resultSetToValueVectorWithTemplate( result, resultValue.getChildren( "row" ),
+					request.getFirstChild( TEMPLATE_FIELD ) );
+			} else {
+				resultSetToValueVector( result, resultValue.getChildren( "row" ) );
 			}
+			result.close();
 		} catch( SQLException e ) {
+			failed = true;
 			throw createFaultException( e );
 		} finally {
-			if( stm != null ) {
-				try {
-					stm.close();
-				} catch( SQLException e ) {
-				}
+			if( parser != null ) {
+				statementCache.release( parser );
 			}
+			releaseConnection( pool, connection, failed );
 		}
 
 		return resultValue;
@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package joliex.db.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A bounded pool of JDBC connections.
+ *
+ * Connections are handed out by {@link #acquire()} and must be given back with {@link #release},
+ * {@link #releaseAfterFailure} or {@link #discard}. Callers of {@link #acquire()} block when
+ * {@code maxSize} connections are in use, while {@link #tryAcquire()} returns {@code null}. Idle
+ * connections exceeding {@code minSize} are closed after {@code maxIdleTime} milliseconds, which is
+ * checked whenever the pool is used and by {@link #evictIdleConnections()}.
+ * Connections are never closed while holding the monitor of the pool.
+ */
+public class ConnectionPool {
+	@FunctionalInterface
+	public interface ConnectionFactory {
+		Connection createConnection()
+			throws SQLException;
+	}
+
+	/**
+	 * Checks whether a connection can still be used.
+	 */
+	@FunctionalInterface
+	public interface ConnectionValidator {
+		boolean isValid( Connection connection )
+			throws SQLException;
+	}
+
+	private static class IdleConnection {
+		private final Connection connection;
+		private final long idleSince;
+
+		private IdleConnection( Connection connection ) {
+			this.connection = connection;
+			this.idleSince = System.currentTimeMillis();
+		}
+	}
+
+	private final ConnectionFactory factory;
+	private final ConnectionValidator validator;
+	private final Consumer< Connection > closeListener;
+	private final int minSize;
+	private final int maxSize;
+	private final long maxIdleTime;
+	private final Deque< IdleConnection > idleConnections = new ArrayDeque<>();
+	private int openConnections = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates a pool and opens its first {@code minSize} connections.
+	 *
+	 * @param factory creates new connections
+	 * @param validator checks connections before they are handed out, or {@code null} for no checks
+	 * @param closeListener invoked after the pool closes one of its connections
+	 * @param minSize the number of connections to keep open
+	 * @param maxSize the maximum number of open connections
+	 * @param maxIdleTime milliseconds after which idle connections exceeding {@code minSize} are
+	 *        closed, or {@code 0} to keep them open
+	 * @throws SQLException if one of the initial connections cannot be opened
+	 */
+	public ConnectionPool(
+		ConnectionFactory factory,
+		ConnectionValidator validator,
+		Consumer< Connection > closeListener,
+		int minSize,
+		int maxSize,
+		long maxIdleTime )
+		throws SQLException {
+		this.factory = factory;
+		this.validator = validator;
+		this.closeListener = closeListener;
+		this.maxSize = Math.max( 1, maxSize );
+		this.minSize = Math.min( Math.max( 0, minSize ), this.maxSize );
+		this.maxIdleTime = maxIdleTime;
+
+		try {
+			for( int i = 0; i < this.minSize; i++ ) {
+				idleConnections.push( new IdleConnection( factory.createConnection() ) );
+				openConnections++;
+			}
+		} catch( SQLException e ) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a validated connection, waiting for one to be released if the pool is exhausted.
+	 *
+	 * @return a connection that is reserved to the caller until it is released
+	 * @throws SQLException if a new connection cannot be opened or the pool has been closed
+	 */
+	public Connection acquire()
+		throws SQLException {
+		return acquire( true );
+	}
+
+	/**
+	 * Returns a validated connection if one is idle or can be opened, without waiting.
+	 *
+	 * @return a connection that is reserved to the caller until it is released, or {@code null} if
+	 *         all {@code maxSize} connections are in use
+	 * @throws SQLException if a new connection cannot be opened or the pool has been closed
+	 */
+	public Connection tryAcquire()
+		throws SQLException {
+		return acquire( false );
+	}
+
+	private Connection acquire( boolean wait )
+		throws SQLException {
+		while( true ) {
+			IdleConnection idle = null;
+			final List< Connection > expired;
+			synchronized( this ) {
+				while( !closed && idleConnections.isEmpty() && openConnections >= maxSize ) {
+					if( !wait ) {
+						return null;
+					}
+					try {
+						wait();
+					} catch( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+						throw new SQLException( "Interrupted while waiting for a database connection" );
+					}
+				}
+				if( closed ) {
+					throw new SQLException( "The connection pool has been closed" );
+				}
+				expired = removeExpiredConnections();
+				if( idleConnections.isEmpty() ) {
+					openConnections++;
+				} else {
+					idle = idleConnections.pop();
+				}
+			}
+			expired.forEach( this::closeQuietly );
+
+			if( idle == null ) {
+				try {
+					return factory.createConnection();
+				} catch( SQLException e ) {
+					discard( null );
+					throw e;
+				}
+			} else if( isValid( idle.connection ) ) {
+				return idle.connection;
+			} else {
+				discard( idle.connection );
+			}
+		}
+	}
+
+	/**
+	 * Gives a connection back to the pool, making it available to other callers.
+	 *
+	 * @param connection a connection obtained from {@link #acquire()}
+	 */
+	public void release( Connection connection ) {
+		final List< Connection > toClose;
+		synchronized( this ) {
+			if( closed ) {
+				openConnections--;
+				toClose = Collections.singletonList( connection );
+			} else {
+				idleConnections.push( new IdleConnection( connection ) );
+				toClose = removeExpiredConnections();
+				notify();
+			}
+		}
+		toClose.forEach( this::closeQuietly );
+	}
+
+	/**
+	 * Gives back a connection on which a statement has failed. The connection is made available to
+	 * other callers if it is still valid, and discarded otherwise.
+	 *
+	 * @param connection a connection obtained from {@link #acquire()}
+	 */
+	public void releaseAfterFailure( Connection connection ) {
+		if( isValidAfterFailure( connection ) ) {
+			release( connection );
+		} else {
+			discard( connection );
+		}
+	}
+
+	/**
+	 * Closes a connection obtained from {@link #acquire()} that must not be reused, e.g., because a
+	 * failure left it in an unknown state.
+	 *
+	 * @param connection the connection to discard
+	 */
+	public void discard( Connection connection ) {
+		synchronized( this ) {
+			openConnections--;
+			notify();
+		}
+		if( connection != null ) {
+			closeQuietly( connection );
+		}
+	}
+
+	/**
+	 * Closes all idle connections. Connections in use are closed when they are released.
+	 */
+	public void close() {
+		final List< Connection > toClose = new ArrayList<>();
+		synchronized( this ) {
+			closed = true;
+			for( IdleConnection idle : idleConnections ) {
+				toClose.add( idle.connection );
+				openConnections--;
+			}
+			idleConnections.clear();
+			notifyAll();
+		}
+		toClose.forEach( this::closeQuietly );
+	}
+
+	/**
+	 * Closes the idle connections exceeding {@code minSize} that have been idle for longer than
+	 * {@code maxIdleTime}. Meant to be called periodically, so that idle connections are closed also
+	 * while the pool is not used.
+	 */
+	public void evictIdleConnections() {
+		final List< Connection > expired;
+		synchronized( this ) {
+			expired = removeExpiredConnections();
+		}
+		expired.forEach( this::closeQuietly );
+	}
+
+	/**
+	 * Returns the number of open connections, both idle and in use.
+	 */
+	public synchronized int openConnections() {
+		return openConnections;
+	}
+
+	// Must be called while holding the monitor of this pool. The caller closes the returned
+	// connections after releasing the monitor.
+	private List< Connection > removeExpiredConnections() {
+		if( maxIdleTime <= 0 || closed ) {
+			return Collections.emptyList();
+		}
+		final long now = System.currentTimeMillis();
+		List< Connection > expired = Collections.emptyList();
+		// Least recently used connections are at the end of the deque.
+		final Iterator< IdleConnection > it = idleConnections.descendingIterator();
+		while( it.hasNext() && openConnections > minSize ) {
+			final IdleConnection idle = it.next();
+			if( now - idle.idleSince < maxIdleTime ) {
+				break;
+			}
+			it.remove();
+			openConnections--;
+			if( expired.isEmpty() ) {
+				expired = new ArrayList<>();
+			}
+			expired.add( idle.connection );
+		}
+		return expired;
+	}
+
+	private boolean isValid( Connection connection ) {
+		if( validator == null ) {
+			return true;
+		}
+		try {
+			return validator.isValid( connection );
+		} catch( SQLException e ) {
+			return false;
+		}
+	}
+
+	private boolean isValidAfterFailure( Connection connection ) {
+		try {
+			if( connection.isClosed() ) {
+				return false;
+			}
+			return validator == null ? connection.isValid( 0 ) : validator.isValid( connection );
+		} catch( SQLException | RuntimeException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a validator that executes the given query and considers a connection valid if the
+	 * query succeeds.
+	 *
+	 * @param query the validation query, e.g., {@code SELECT 1}
+	 * @return the validator
+	 */
+	public static ConnectionValidator queryValidator( String query ) {
+		return connection -> {
+			try( Statement statement = connection.createStatement() ) {
+				statement.execute( query );
+				return true;
+			}
+		};
+	}
+
+	private void closeQuietly( Connection connection ) {
+		try {
+			connection.close();
+		} catch( SQLException e ) {
+		} finally {
+			closeListener.accept( connection );
+		}
+	}
+}
@@ -51,13 +51,33 @@ public class NamedStatementParser {
 
 	private final Map< String, List< Integer > > parameterPositions = new HashMap<>();
 	private final PreparedStatement statement;
+	private final String sql;
 	// private final GregorianCalendar cal = new GregorianCalendar();
 
 	public NamedStatementParser( Connection connection, String sql, Value parameters )
 		throws SQLException {
+		this( connection, sql );
+		setParameters( parameters );
+	}
+
+	/**
+	 * Prepares a statement without binding its parameters, which can be set afterwards with
+	 * {@link #setParameters(Value)}.
+	 */
+	public NamedStatementParser( Connection connection, String sql )
+		throws SQLException {
+		this.sql = sql;
 		String jdbcSql = parse( sql );
 
 		statement = connection.prepareStatement( jdbcSql );
+	}
+
+	/**
+	 * Binds the named parameters of the statement to the values of the homonymous children of
+	 * {@code parameters}.
+	 */
+	public void setParameters( Value parameters )
+		throws SQLException {
 		Value v;
 		for( Entry< String, List< Integer > > entry : parameterPositions.entrySet() ) {
 			v = parameters.getFirstChild( entry.getKey() );
@@ -179,6 +199,13 @@ public class NamedStatementParser {
 		return parameterPositions.computeIfAbsent( parameterName, k -> new ArrayList<>() );
 	}
 
+	/**
+	 * Returns the named SQL text this statement was created from.
+	 */
+	public String sql() {
+		return sql;
+	}
+
 	public PreparedStatement getPreparedStatement() {
 		return statement;
 	}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package joliex.db.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of the parsed and prepared statements of a connection, keyed by
+ * their named SQL text.
+ *
+ * Statements obtained with {@link #prepare(String)} must be given back with
+ * {@link #release(NamedStatementParser)} once their results have been read.
+ */
+public class StatementCache {
+	/**
+	 * Hit and miss counters, which can be shared by the caches of different connections.
+	 */
+	public static class Statistics {
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		public long hits() {
+			return hits.sum();
+		}
+
+		public long misses() {
+			return misses.sum();
+		}
+	}
+
+	private final Connection connection;
+	private final int maxSize;
+	private final Statistics statistics;
+	private final Map< String, NamedStatementParser > statements;
+
+	/**
+	 * @param connection the connection the statements are prepared on
+	 * @param maxSize the maximum number of cached statements, or {@code 0} to disable caching
+	 * @param statistics the counters to update on lookups
+	 */
+	public StatementCache( Connection connection, int maxSize, Statistics statistics ) {
+		this.connection = connection;
+		this.maxSize = maxSize;
+		this.statistics = statistics;
+		this.statements = new LinkedHashMap< String, NamedStatementParser >( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< String, NamedStatementParser > eldest ) {
+				if( size() > StatementCache.this.maxSize ) {
+					closeQuietly( eldest.getValue() );
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns a prepared statement for the given named SQL text, reusing a cached one if present.
+	 */
+	public synchronized NamedStatementParser prepare( String sql )
+		throws SQLException {
+		NamedStatementParser parser = statements.get( sql );
+		if( parser == null ) {
+			statistics.misses.increment();
+			parser = new NamedStatementParser( connection, sql );
+			if( maxSize > 0 ) {
+				statements.put( sql, parser );
+			}
+		} else {
+			statistics.hits.increment();
+		}
+		return parser;
+	}
+
+	/**
+	 * Signals that a statement obtained from {@link #prepare(String)} is not in use anymore. The
+	 * statement is closed if it is not cached.
+	 */
+	public synchronized void release( NamedStatementParser parser ) {
+		if( statements.get( parser.sql() ) != parser ) {
+			closeQuietly( parser );
+		}
+	}
+
+	/**
+	 * Closes all cached statements.
+	 */
+	public synchronized void close() {
+		statements.values().forEach( StatementCache::closeQuietly );
+		statements.clear();
+	}
+
+	private static void closeQuietly( NamedStatementParser parser ) {
+		try {
+			parser.getPreparedStatement().close();
+		} catch( SQLException e ) {
+		}
+	}
+}
@@ -39,14 +39,19 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.Enumeration;
@@ -652,6 +657,98 @@ public class FileService extends JavaService {
 		}
 	}
 
+	private final static int DEFAULT_CHUNK_SIZE = 65536; // 64K
+
+	@RequestResponse
+	public Value readFileChunk( Value request )
+		throws FaultException {
+		final Path path = Paths.get( request.getFirstChild( "filename" ).strValue() );
+		final long offset = request.hasChildren( "offset" ) ? request.getFirstChild( "offset" ).longValue() : 0L;
+		final int length =
+			request.hasChildren( "length" ) ? request.getFirstChild( "length" ).intValue() : DEFAULT_CHUNK_SIZE;
+		if( offset < 0 || length < 0 ) {
+			throw new FaultException( "IOException",
+				new IOException( "Invalid range: offset " + offset + ", length " + length ) );
+		}
+
+		final Value retValue = Value.create();
+		try( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+			// Positional reads do not load anything beyond the requested range
+			final long size = channel.size();
+			final ByteBuffer buffer = ByteBuffer.allocate( (int) Math.max( 0L, Math.min( length, size - offset ) ) );
+			while( buffer.hasRemaining() && channel.read( buffer, offset + buffer.position() ) >= 0 ) {
+			}
+			final byte[] bytes = buffer.position() == buffer.capacity()
+				? buffer.array()
+				: Arrays.copyOf( buffer.array(), buffer.position() );
+
+			final Value formatValue = request.getFirstChild( "format" );
+			switch( formatValue.strValue() ) {
+			case "base64":
+				retValue.setValue( Base64.getEncoder().encodeToString( bytes ) );
+				break;
+			case "text":
+				if( formatValue.hasChildren( "charset" ) ) {
+					retValue.setValue(
+						new String( bytes, Charset.forName( formatValue.getFirstChild( "charset" ).strValue() ) ) );
+				} else {
+					retValue.setValue( new String( bytes ) );
+				}
+				break;
+			default:
+				retValue.setValue( new ByteArray( bytes ) );
+				break;
+			}
+			retValue.getFirstChild( "size" ).setValue( bytes.length );
+			retValue.getFirstChild( "next" ).setValue( offset + bytes.length );
+			retValue.getFirstChild( "eof" ).setValue( offset + bytes.length >= size );
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		return retValue;
+	}
+
+	@RequestResponse
+	public Long writeFileChunk( Value request )
+		throws FaultException {
+		final Path path = Paths.get( request.getFirstChild( "filename" ).strValue() );
+		final Value content = request.getFirstChild( "content" );
+		final byte[] bytes;
+		if( content.isByteArray() ) {
+			bytes = content.byteArrayValue().getBytes();
+		} else if( request.hasChildren( "encoding" ) ) {
+			bytes = content.strValue()
+				.getBytes( Charset.forName( request.getFirstChild( "encoding" ).strValue() ) );
+		} else {
+			bytes = content.strValue().getBytes();
+		}
+
+		try( FileChannel channel =
+			FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.WRITE ) ) {
+			// Without an offset, the content is appended
+			long position = request.hasChildren( "offset" )
+				? request.getFirstChild( "offset" ).longValue()
+				: channel.size();
+			if( position < 0 ) {
+				throw new FaultException( "IOException", new IOException( "Invalid offset: " + position ) );
+			}
+			final ByteBuffer buffer = ByteBuffer.wrap( bytes );
+			while( buffer.hasRemaining() ) {
+				position += channel.write( buffer, position );
+			}
+			if( request.getFirstChild( "truncate" ).boolValue() ) {
+				channel.truncate( position );
+			}
+			return position;
+		} catch( NoSuchFileException e ) {
+			throw new FaultException( "FileNotFound", e );
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+
 	@RequestResponse
 	public Boolean delete( Value request ) {
 		String filename = request.strValue();
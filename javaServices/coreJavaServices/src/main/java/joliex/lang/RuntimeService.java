@@ -26,6 +26,7 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -49,6 +50,8 @@ import jolie.runtime.embedding.EmbeddedServiceLoadingException;
 import jolie.runtime.embedding.RequestResponse;
 
 public class RuntimeService extends JavaService {
+	private static final int DEFAULT_MONITOR_BUFFER_SIZE = 1024;
+
 	public Value getLocalLocation() {
 		Value v = Value.create();
 		v.setValue( interpreter().commCore().getLocalCommChannel() );
@@ -76,7 +79,13 @@ public class RuntimeService extends JavaService {
 			true );
 		port.optimizeLocation();
 
-		interpreter().setMonitor( port );
+		int bufferSize = 0;
+		if( request.hasChildren( "async" ) && request.getFirstChild( "async" ).boolValue() ) {
+			bufferSize = request.hasChildren( "bufferSize" )
+				? request.getFirstChild( "bufferSize" ).intValue()
+				: DEFAULT_MONITOR_BUFFER_SIZE;
+		}
+		interpreter().setMonitor( port, bufferSize );
 	}
 
 	@RequestResponse
@@ -306,6 +315,7 @@ public class RuntimeService extends JavaService {
 		stats_files( stats.getFirstChild( "files" ) );
 		stats_os( stats.getFirstChild( "os" ) );
 		stats_memory( stats.getFirstChild( "memory" ) );
+		stats_threads( stats.getFirstChild( "threads" ) );
 		return stats;
 	}
 
@@ -333,4 +343,10 @@ public class RuntimeService extends JavaService {
 		stats.setFirstChild( "total", runtime.totalMemory() );
 		stats.setFirstChild( "used", runtime.totalMemory() - runtime.freeMemory() );
 	}
+
+	private void stats_threads( Value stats ) {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		stats.setFirstChild( "count", threadBean.getThreadCount() );
+		stats.setFirstChild( "peakCount", threadBean.getPeakThreadCount() );
+	}
 }
@@ -0,0 +1,554 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package joliex.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.embedding.RequestResponse;
+import joliex.storage.types.LoadRequest;
+import joliex.storage.types.SaveRequest;
+import joliex.storage.types.StoragePath;
+
+/**
+ * A storage that keeps the values saved under each path in an append-only log.
+ *
+ * Saving a value appends a record to the log, and an in-memory index maps each path to its latest
+ * record, so loads and saves cost in proportion to the size of the value involved rather than that
+ * of the whole storage. When most of the log consists of overwritten records, it is compacted in the
+ * background.
+ *
+ * Each record is made of its length, a payload (operation, path, value) and a CRC32 of the payload.
+ * An incomplete or corrupted record at the end of the log, e.g., from a crash during a write, is
+ * discarded with a warning when connecting. A corrupted record followed by other data makes connect
+ * fail instead, leaving the log untouched.
+ */
+public class LogStorage extends AbstractStorageService {
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+
+	private static final byte VOID = 0;
+	private static final byte STRING = 1;
+	private static final byte INT = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte BOOL = 5;
+	private static final byte RAW = 6;
+
+	private static final long DEFAULT_COMPACTION_THRESHOLD = 1L << 20; // 1 MB
+	private static final int RECORD_OVERHEAD = 8; // length and checksum
+	private static final int MIN_PAYLOAD_LENGTH = 5; // operation and key length
+
+	private static final Logger LOGGER = Logger.getLogger( LogStorage.class.getName() );
+
+	private static class Entry {
+		private final long offset;
+		private final int length;
+
+		private Entry( long offset, int length ) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	private Path file = null;
+	private FileChannel channel = null;
+	private Map< String, Entry > index = new HashMap<>();
+	private long size = 0; // end of the log
+	private long liveSize = 0; // sum of the lengths of the indexed records
+	private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+	private boolean sync = false;
+	private boolean compacting = false;
+
+	@RequestResponse
+	public synchronized void connect( Value request )
+		throws FaultException {
+		try {
+			if( channel != null ) {
+				channel.close();
+			}
+			file = Paths.get( request.getFirstChild( "filename" ).strValue() );
+			if( request.hasChildren( "compactionThreshold" ) ) {
+				compactionThreshold = request.getFirstChild( "compactionThreshold" ).longValue();
+			}
+			sync = request.getFirstChild( "sync" ).boolValue();
+			// left over by a compaction that was interrupted
+			Files.deleteIfExists( compactFile() );
+			channel = FileChannel.open( file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE );
+			replay();
+		} catch( IOException e ) {
+			if( channel != null ) {
+				try {
+					channel.close();
+				} catch( IOException ce ) {
+				}
+			}
+			channel = null;
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	@Override
+	public Value load( LoadRequest request )
+		throws FaultException {
+		try {
+			final ByteBuffer record;
+			synchronized( this ) {
+				checkConnection();
+				final Entry entry = index.get( key( request.storagePath() ) );
+				if( entry == null ) {
+					return Value.create();
+				}
+				record = read( channel, entry.offset, entry.length );
+			}
+			final DataInputStream istream = new DataInputStream(
+				new ByteArrayInputStream( record.array(), 4, record.capacity() - RECORD_OVERHEAD ) );
+			istream.readByte();
+			istream.skipBytes( istream.readInt() );
+			final Value value = Value.create();
+			readValue( istream, value );
+			return value;
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	@Override
+	public void save( SaveRequest request )
+		throws FaultException {
+		try {
+			final String key = key( request.storagePath() );
+			// SaveRequest holds the whole request, the value to save is its "value" child
+			final ByteBuffer record = record( PUT, key, request.value().getFirstChild( "value" ) );
+			synchronized( this ) {
+				checkConnection();
+				append( key, record );
+			}
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	@RequestResponse
+	public void delete( LoadRequest request )
+		throws FaultException {
+		try {
+			final String key = key( request.storagePath() );
+			synchronized( this ) {
+				checkConnection();
+				if( index.containsKey( key ) ) {
+					append( key, record( DELETE, key, null ) );
+				}
+			}
+		} catch( IOException e ) {
+			throw new FaultException( "StorageFault", e.getMessage() );
+		}
+	}
+
+	private void checkConnection()
+		throws IOException {
+		if( channel == null ) {
+			throw new IOException( "Log file not specified (maybe you forgot to call connect?)" );
+		}
+	}
+
+	private static String key( StoragePath path ) {
+		final StringBuilder builder = new StringBuilder();
+		for( StoragePath.Node node : path.nodes() ) {
+			builder.append( node.name().length() ).append( ':' ).append( node.name() )
+				.append( '[' ).append( node.index() ).append( ']' );
+		}
+		return builder.toString();
+	}
+
+	// Must be called while holding the monitor of this storage.
+	private void append( String key, ByteBuffer record )
+		throws IOException {
+		final int length = record.remaining();
+		write( channel, record, size );
+		if( sync ) {
+			channel.force( false );
+		}
+		final Entry previous = index.remove( key );
+		if( previous != null ) {
+			liveSize -= previous.length;
+		}
+		if( record.get( 4 ) == PUT ) {
+			index.put( key, new Entry( size, length ) );
+			liveSize += length;
+		}
+		size += length;
+
+		if( !compacting && size > compactionThreshold && size - liveSize > liveSize ) {
+			compacting = true;
+			interpreter().execute( this::compact );
+		}
+	}
+
+	/*
+	 * Rebuilds the index by reading the log from the beginning. A damaged record is truncated only if
+	 * it is a torn write at the end of the log, otherwise an IOException is thrown.
+	 */
+	private void replay()
+		throws IOException {
+		index = new HashMap<>();
+		liveSize = 0;
+		size = 0;
+		final long fileSize = channel.size();
+		final ByteBuffer header = ByteBuffer.allocate( 4 );
+		while( size < fileSize ) {
+			if( size + RECORD_OVERHEAD > fileSize ) {
+				discardTail( fileSize );
+				return;
+			}
+			header.clear();
+			readFully( channel, header, size );
+			final int payloadLength = header.getInt( 0 );
+			if( payloadLength < MIN_PAYLOAD_LENGTH || payloadLength > fileSize - size - RECORD_OVERHEAD ) {
+				// a length past the end of the log is an incomplete write, other bad lengths are not
+				if( payloadLength > fileSize - size - RECORD_OVERHEAD || isZeroFilled( size, fileSize ) ) {
+					discardTail( fileSize );
+					return;
+				}
+				throw corrupted( payloadLength );
+			}
+			final int length = payloadLength + RECORD_OVERHEAD;
+			final ByteBuffer record = read( channel, size, length );
+			if( !isValid( record ) ) {
+				if( size + length == fileSize || isZeroFilled( size, fileSize ) ) {
+					discardTail( fileSize );
+					return;
+				}
+				throw corrupted( payloadLength );
+			}
+			final String key = recordKey( record );
+			final Entry previous = index.remove( key );
+			if( previous != null ) {
+				liveSize -= previous.length;
+			}
+			if( record.get( 4 ) == PUT ) {
+				index.put( key, new Entry( size, length ) );
+				liveSize += length;
+			}
+			size += length;
+		}
+	}
+
+	// Must be called by replay, with size pointing at the damaged record.
+	private void discardTail( long fileSize )
+		throws IOException {
+		LOGGER.warning( "Discarding an incomplete record at the end of " + file + " ("
+			+ (fileSize - size) + " bytes at offset " + size + ")" );
+		channel.truncate( size );
+	}
+
+	// Must be called by replay, with size pointing at the damaged record.
+	private IOException corrupted( int payloadLength ) {
+		return new IOException( "Corrupted record at offset " + size + " of " + file
+			+ " (payload length " + payloadLength + "), followed by other records" );
+	}
+
+	// Checks whether the log contains only zeros from the given offset, as after a crash on file
+	// systems that extend a file before writing its content.
+	private boolean isZeroFilled( long offset, long fileSize )
+		throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate( (int) Math.min( 1 << 16, fileSize - offset ) );
+		while( offset < fileSize ) {
+			buffer.clear();
+			buffer.limit( (int) Math.min( buffer.capacity(), fileSize - offset ) );
+			readFully( channel, buffer, offset );
+			for( int i = 0; i < buffer.limit(); i++ ) {
+				if( buffer.get( i ) != 0 ) {
+					return false;
+				}
+			}
+			offset += buffer.limit();
+		}
+		return true;
+	}
+
+	/*
+	 * Rewrites the log with only the latest record of each path. Saves can proceed while the live
+	 * records are copied; the records they append in the meantime are copied at the end, before the
+	 * new log replaces the old one.
+	 */
+	private void compact() {
+		final Path compactFile = compactFile();
+		FileChannel target = null;
+		try {
+			final FileChannel source;
+			final Map< String, Entry > snapshot;
+			final long snapshotSize;
+			synchronized( this ) {
+				source = channel;
+				snapshot = new HashMap<>( index );
+				snapshotSize = size;
+			}
+
+			target = FileChannel.open( compactFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE );
+			final Map< String, Entry > newIndex = new HashMap<>();
+			long newSize = 0;
+			for( Map.Entry< String, Entry > e : snapshot.entrySet() ) {
+				final Entry entry = e.getValue();
+				write( target, read( source, entry.offset, entry.length ), newSize );
+				newIndex.put( e.getKey(), new Entry( newSize, entry.length ) );
+				newSize += entry.length;
+			}
+
+			synchronized( this ) {
+				if( channel != source ) {
+					// reconnected in the meantime
+					return;
+				}
+				long position = snapshotSize;
+				final ByteBuffer header = ByteBuffer.allocate( 4 );
+				while( position < size ) {
+					header.clear();
+					readFully( source, header, position );
+					final int length = header.getInt( 0 ) + RECORD_OVERHEAD;
+					final ByteBuffer record = read( source, position, length );
+					final String key = recordKey( record );
+					newIndex.remove( key );
+					if( record.get( 4 ) == PUT ) {
+						newIndex.put( key, new Entry( newSize, length ) );
+					}
+					write( target, record, newSize );
+					newSize += length;
+					position += length;
+				}
+				if( sync ) {
+					target.force( false );
+				}
+				try {
+					Files.move( compactFile, file, StandardCopyOption.ATOMIC_MOVE );
+				} catch( AtomicMoveNotSupportedException e ) {
+					Files.move( compactFile, file, StandardCopyOption.REPLACE_EXISTING );
+				}
+				source.close();
+				channel = target;
+				target = null;
+				index = newIndex;
+				size = newSize;
+				liveSize = 0;
+				for( Entry entry : newIndex.values() ) {
+					liveSize += entry.length;
+				}
+			}
+		} catch( IOException e ) {
+			interpreter().logWarning( "Compaction of " + file + " failed: " + e.getMessage() );
+		} finally {
+			synchronized( this ) {
+				compacting = false;
+			}
+			if( target != null ) {
+				try {
+					target.close();
+					Files.deleteIfExists( compactFile );
+				} catch( IOException e ) {
+				}
+			}
+		}
+	}
+
+	private Path compactFile() {
+		return file.resolveSibling( file.getFileName() + ".compact" );
+	}
+
+	private static ByteBuffer record( byte operation, String key, Value value )
+		throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream ostream = new DataOutputStream( bytes );
+		ostream.writeInt( 0 ); // length, set below
+		ostream.writeByte( operation );
+		writeString( ostream, key );
+		if( value != null ) {
+			writeValue( ostream, value );
+		}
+		ostream.writeInt( 0 ); // checksum, set below
+		ostream.flush();
+
+		final ByteBuffer record = ByteBuffer.wrap( bytes.toByteArray() );
+		final int payloadLength = record.capacity() - RECORD_OVERHEAD;
+		record.putInt( 0, payloadLength );
+		record.putInt( 4 + payloadLength, checksum( record, payloadLength ) );
+		return record;
+	}
+
+	private static boolean isValid( ByteBuffer record ) {
+		final int payloadLength = record.capacity() - RECORD_OVERHEAD;
+		return record.getInt( 4 + payloadLength ) == checksum( record, payloadLength );
+	}
+
+	private static int checksum( ByteBuffer record, int payloadLength ) {
+		final CRC32 crc = new CRC32();
+		crc.update( record.array(), 4, payloadLength );
+		return (int) crc.getValue();
+	}
+
+	private static String recordKey( ByteBuffer record ) {
+		final int keyLength = record.getInt( 5 );
+		return new String( record.array(), 9, keyLength, StandardCharsets.UTF_8 );
+	}
+
+	private static ByteBuffer read( FileChannel channel, long offset, int length )
+		throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate( length );
+		readFully( channel, buffer, offset );
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void readFully( FileChannel channel, ByteBuffer buffer, long offset )
+		throws IOException {
+		while( buffer.hasRemaining() ) {
+			if( channel.read( buffer, offset + buffer.position() ) < 0 ) {
+				throw new IOException( "Unexpected end of log" );
+			}
+		}
+	}
+
+	private static void write( FileChannel channel, ByteBuffer buffer, long offset )
+		throws IOException {
+		final int start = buffer.position();
+		while( buffer.hasRemaining() ) {
+			channel.write( buffer, offset + buffer.position() - start );
+		}
+	}
+
+	private static void writeString( DataOutputStream ostream, String s )
+		throws IOException {
+		final byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+		ostream.writeInt( bytes.length );
+		ostream.write( bytes );
+	}
+
+	private static String readString( DataInputStream istream )
+		throws IOException {
+		final byte[] bytes = new byte[ istream.readInt() ];
+		istream.readFully( bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+
+	private static void writeValue( DataOutputStream ostream, Value value )
+		throws IOException {
+		if( value.isString() ) {
+			ostream.writeByte( STRING );
+			writeString( ostream, value.strValue() );
+		} else if( value.isInt() ) {
+			ostream.writeByte( INT );
+			ostream.writeInt( value.intValue() );
+		} else if( value.isLong() ) {
+			ostream.writeByte( LONG );
+			ostream.writeLong( value.longValue() );
+		} else if( value.isDouble() ) {
+			ostream.writeByte( DOUBLE );
+			ostream.writeDouble( value.doubleValue() );
+		} else if( value.isBool() ) {
+			ostream.writeByte( BOOL );
+			ostream.writeBoolean( value.boolValue() );
+		} else if( value.isByteArray() ) {
+			ostream.writeByte( RAW );
+			final byte[] bytes = value.byteArrayValue().getBytes();
+			ostream.writeInt( bytes.length );
+			ostream.write( bytes );
+		} else {
+			ostream.writeByte( VOID );
+		}
+
+		if( value.hasChildren() ) {
+			final Map< String, ValueVector > children = value.children();
+			ostream.writeInt( children.size() );
+			for( Map.Entry< String, ValueVector > child : children.entrySet() ) {
+				writeString( ostream, child.getKey() );
+				ostream.writeInt( child.getValue().size() );
+				for( Value element : child.getValue() ) {
+					writeValue( ostream, element );
+				}
+			}
+		} else {
+			ostream.writeInt( 0 );
+		}
+	}
+
+	private static void readValue( DataInputStream istream, Value value )
+		throws IOException {
+		switch( istream.readByte() ) {
+		case STRING:
+			value.setValue( readString( istream ) );
+			break;
+		case INT:
+			value.setValue( istream.readInt() );
+			break;
+		case LONG:
+			value.setValue( istream.readLong() );
+			break;
+		case DOUBLE:
+			value.setValue( istream.readDouble() );
+			break;
+		case BOOL:
+			value.setValue( istream.readBoolean() );
+			break;
+		case RAW:
+			final byte[] bytes = new byte[ istream.readInt() ];
+			istream.readFully( bytes );
+			value.setValue( new ByteArray( bytes ) );
+			break;
+		default:
+			break;
+		}
+
+		final int childrenCount = istream.readInt();
+		for( int i = 0; i < childrenCount; i++ ) {
+			final ValueVector vector = value.getChildren( readString( istream ) );
+			final int size = istream.readInt();
+			for( int j = 0; j < size; j++ ) {
+				final Value element = Value.create();
+				readValue( istream, element );
+				vector.add( element );
+			}
+		}
+	}
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package joliex.db.impl;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import joliex.db.DatabaseService;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionPoolTest {
+	/**
+	 * Creates connections that track whether they are closed or broken and their transactions. Their
+	 * queries return {@code rows} rows with an integer column {@code n}, numbered from 1.
+	 */
+	private static class FakeConnections {
+		private final List< Connection > created = new CopyOnWriteArrayList<>();
+		private final List< Connection > broken = new CopyOnWriteArrayList<>();
+		private final List< Connection > closed = new CopyOnWriteArrayList<>();
+		private final List< Connection > commits = new CopyOnWriteArrayList<>();
+		private final List< Connection > rollbacks = new CopyOnWriteArrayList<>();
+		private volatile int rows = 0;
+		private volatile boolean failStatements = false;
+
+		private Connection create() {
+			final AtomicBoolean isClosed = new AtomicBoolean( false );
+			final Connection[] self = new Connection[ 1 ];
+			self[ 0 ] = (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class< ? >[] { Connection.class },
+				( proxy, method, args ) -> {
+					switch( method.getName() ) {
+					case "close":
+						if( !isClosed.getAndSet( true ) ) {
+							closed.add( self[ 0 ] );
+						}
+						return null;
+					case "isClosed":
+						return isClosed.get();
+					case "isValid":
+						return !isClosed.get() && !broken.contains( self[ 0 ] );
+					case "setAutoCommit":
+						return null;
+					case "commit":
+						commits.add( self[ 0 ] );
+						return null;
+					case "rollback":
+						rollbacks.add( self[ 0 ] );
+						return null;
+					case "prepareStatement":
+						return createStatement();
+					case "hashCode":
+						return System.identityHashCode( proxy );
+					case "equals":
+						return proxy == args[ 0 ];
+					case "toString":
+						return "FakeConnection@" + System.identityHashCode( proxy );
+					default:
+						throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+			created.add( self[ 0 ] );
+			return self[ 0 ];
+		}
+
+		private PreparedStatement createStatement() {
+			final AtomicInteger batchSize = new AtomicInteger( 0 );
+			return (PreparedStatement) Proxy.newProxyInstance(
+				PreparedStatement.class.getClassLoader(),
+				new Class< ? >[] { PreparedStatement.class },
+				( proxy, method, args ) -> {
+					if( method.getName().startsWith( "set" ) || method.getName().equals( "close" ) ) {
+						return null;
+					}
+					switch( method.getName() ) {
+					case "addBatch":
+						batchSize.incrementAndGet();
+						return null;
+					case "clearBatch":
+						batchSize.set( 0 );
+						return null;
+					case "executeBatch":
+						if( failStatements ) {
+							throw new SQLException( "Batch failed" );
+						}
+						final int[] counts = new int[ batchSize.getAndSet( 0 ) ];
+						Arrays.fill( counts, 1 );
+						return counts;
+					case "executeQuery":
+						if( failStatements ) {
+							throw new SQLException( "Query failed" );
+						}
+						return createResultSet( rows );
+					default:
+						throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+		}
+
+		private static ResultSet createResultSet( int rows ) {
+			final ResultSetMetaData metadata = (ResultSetMetaData) Proxy.newProxyInstance(
+				ResultSetMetaData.class.getClassLoader(),
+				new Class< ? >[] { ResultSetMetaData.class },
+				( proxy, method, args ) -> {
+					switch( method.getName() ) {
+					case "getColumnCount":
+						return 1;
+					case "getColumnType":
+						return Types.INTEGER;
+					case "getColumnLabel":
+						return "n";
+					default:
+						throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+			final AtomicInteger row = new AtomicInteger( 0 );
+			return (ResultSet) Proxy.newProxyInstance(
+				ResultSet.class.getClassLoader(),
+				new Class< ? >[] { ResultSet.class },
+				( proxy, method, args ) -> {
+					switch( method.getName() ) {
+					case "next":
+						return row.incrementAndGet() <= rows;
+					case "getInt":
+						return row.get();
+					case "getMetaData":
+						return metadata;
+					case "close":
+						return null;
+					default:
+						throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+		}
+	}
+
+	/**
+	 * Hands out the connections of {@link #connections} for the URLs starting with {@code jdbc:fake:}.
+	 */
+	public static class FakeDriver implements Driver {
+		private static volatile FakeConnections connections;
+
+		static {
+			try {
+				DriverManager.registerDriver( new FakeDriver() );
+			} catch( SQLException e ) {
+				throw new IllegalStateException( e );
+			}
+		}
+
+		@Override
+		public Connection connect( String url, Properties info ) {
+			return acceptsURL( url ) ? connections.create() : null;
+		}
+
+		@Override
+		public boolean acceptsURL( String url ) {
+			return url.startsWith( "jdbc:fake:" );
+		}
+
+		@Override
+		public DriverPropertyInfo[] getPropertyInfo( String url, Properties info ) {
+			return new DriverPropertyInfo[ 0 ];
+		}
+
+		@Override
+		public int getMajorVersion() {
+			return 1;
+		}
+
+		@Override
+		public int getMinorVersion() {
+			return 0;
+		}
+
+		@Override
+		public boolean jdbcCompliant() {
+			return false;
+		}
+
+		@Override
+		public Logger getParentLogger()
+			throws SQLFeatureNotSupportedException {
+			throw new SQLFeatureNotSupportedException();
+		}
+	}
+
+	private static DatabaseService connect( FakeConnections connections, int maxPoolSize, int maxCursors )
+		throws FaultException {
+		return connect( connections, maxPoolSize, maxCursors, 0 );
+	}
+
+	private static DatabaseService connect( FakeConnections connections, int maxPoolSize, int maxCursors,
+		int statementCacheSize )
+		throws FaultException {
+		FakeDriver.connections = connections;
+		final Value request = Value.create();
+		request.getFirstChild( "driver" ).setValue( "fake" );
+		request.getFirstChild( "driver" ).getFirstChild( "class" ).setValue( FakeDriver.class.getName() );
+		request.getFirstChild( "host" ).setValue( "" );
+		request.getFirstChild( "database" ).setValue( "test" );
+		request.getFirstChild( "username" ).setValue( "" );
+		request.getFirstChild( "password" ).setValue( "" );
+		request.getFirstChild( "statementCacheSize" ).setValue( statementCacheSize );
+		final Value poolConfig = request.getFirstChild( "connectionPoolConfig" );
+		poolConfig.getFirstChild( "maxPoolSize" ).setValue( maxPoolSize );
+		poolConfig.getFirstChild( "maxCursors" ).setValue( maxCursors );
+		poolConfig.getFirstChild( "cursorTimeout" ).setValue( 0 );
+		final DatabaseService database = new DatabaseService();
+		database.connect( request );
+		return database;
+	}
+
+	private static Value fetch( DatabaseService database, String cursorId, int rows )
+		throws FaultException {
+		final Value request = Value.create();
+		request.getFirstChild( "cursor" ).setValue( cursorId );
+		request.getFirstChild( "rows" ).setValue( rows );
+		return database.fetchCursor( request );
+	}
+
+	private static void assertFault( String faultName, FaultException e ) {
+		assertEquals( faultName, e.faultName() );
+	}
+
+	private static ConnectionPool createPool( FakeConnections connections, List< Connection > closeEvents,
+		int minSize, int maxSize, long maxIdleTime )
+		throws SQLException {
+		return new ConnectionPool( connections::create, null, closeEvents::add, minSize, maxSize, maxIdleTime );
+	}
+
+	@Test
+	public void reusesReleasedConnections()
+		throws SQLException {
+		final FakeConnections connections = new FakeConnections();
+		final ConnectionPool pool = createPool( connections, new CopyOnWriteArrayList<>(), 1, 2, 0 );
+		final Connection first = pool.acquire();
+		pool.release( first );
+		assertSame( first, pool.acquire() );
+		assertEquals( 1, connections.created.size() );
+	}
+
+	@Test
+	public void blocksWhenExhausted()
+		throws Exception {
+		final ConnectionPool pool = createPool( new FakeConnections(), new CopyOnWriteArrayList<>(), 0, 1, 0 );
+		final Connection connection = pool.acquire();
+		final AtomicReference< Connection > acquired = new AtomicReference<>();
+		final CountDownLatch done = new CountDownLatch( 1 );
+		final Thread waiter = new Thread( () -> {
+			try {
+				acquired.set( pool.acquire() );
+			} catch( SQLException e ) {
+			}
+			done.countDown();
+		} );
+		waiter.start();
+		assertFalse( done.await( 200, TimeUnit.MILLISECONDS ) );
+		pool.release( connection );
+		assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+		assertSame( connection, acquired.get() );
+		assertEquals( 1, pool.openConnections() );
+	}
+
+	@Test
+	public void evictsIdleConnectionsWithoutRequests()
+		throws Exception {
+		final FakeConnections connections = new FakeConnections();
+		final ConnectionPool pool = createPool( connections, new CopyOnWriteArrayList<>(), 1, 3, 50 );
+		final Connection a = pool.acquire();
+		final Connection b = pool.acquire();
+		final Connection c = pool.acquire();
+		pool.release( a );
+		pool.release( b );
+		pool.release( c );
+		assertEquals( 3, pool.openConnections() );
+
+		Thread.sleep( 100 );
+		pool.evictIdleConnections();
+		assertEquals( 1, pool.openConnections() );
+		assertEquals( 2, connections.closed.size() );
+		// The most recently used connection is kept.
+		assertFalse( connections.closed.contains( c ) );
+	}
+
+	@Test
+	public void closesConnectionsOutsideTheMonitor()
+		throws Exception {
+		final FakeConnections connections = new FakeConnections();
+		final AtomicBoolean heldLock = new AtomicBoolean( false );
+		final AtomicReference< ConnectionPool > poolRef = new AtomicReference<>();
+		final ConnectionPool pool = new ConnectionPool(
+			connections::create,
+			null,
+			connection -> heldLock.compareAndSet( false, Thread.holdsLock( poolRef.get() ) ),
+			0, 2, 10 );
+		poolRef.set( pool );
+		final Connection a = pool.acquire();
+		final Connection b = pool.acquire();
+		pool.release( a );
+		Thread.sleep( 50 );
+		pool.release( b ); // Evicts a
+		pool.acquire();
+		pool.close();
+		pool.release( b );
+		assertEquals( 2, connections.closed.size() );
+		assertFalse( heldLock.get() );
+	}
+
+	@Test
+	public void discardsBrokenConnectionsAfterFailures()
+		throws SQLException {
+		final FakeConnections connections = new FakeConnections();
+		final List< Connection > closeEvents = new CopyOnWriteArrayList<>();
+		final ConnectionPool pool = createPool( connections, closeEvents, 0, 2, 0 );
+
+		final Connection healthy = pool.acquire();
+		pool.releaseAfterFailure( healthy );
+		assertTrue( closeEvents.isEmpty() );
+		assertSame( healthy, pool.acquire() );
+
+		connections.broken.add( healthy );
+		pool.releaseAfterFailure( healthy );
+		assertEquals( 1, closeEvents.size() );
+		assertEquals( 0, pool.openConnections() );
+		assertNotSame( healthy, pool.acquire() );
+	}
+
+	@Test
+	public void closesReleasedConnectionsAfterClose()
+		throws SQLException {
+		final FakeConnections connections = new FakeConnections();
+		final ConnectionPool pool = createPool( connections, new CopyOnWriteArrayList<>(), 2, 2, 0 );
+		final Connection inUse = pool.acquire();
+		pool.close();
+		assertEquals( 1, connections.closed.size() );
+		pool.release( inUse );
+		assertEquals( 2, connections.closed.size() );
+		assertEquals( 0, pool.openConnections() );
+	}
+
+	@Test( expected = SQLException.class )
+	public void refusesRequestsAfterClose()
+		throws SQLException {
+		final ConnectionPool pool = createPool( new FakeConnections(), new CopyOnWriteArrayList<>(), 1, 1, 0 );
+		pool.close();
+		pool.acquire();
+	}
+
+	@Test
+	public void tryAcquireDoesNotWait()
+		throws SQLException {
+		final ConnectionPool pool = createPool( new FakeConnections(), new CopyOnWriteArrayList<>(), 0, 1, 0 );
+		final Connection connection = pool.tryAcquire();
+		assertNull( pool.tryAcquire() );
+		pool.release( connection );
+		assertSame( connection, pool.tryAcquire() );
+	}
+
+	@Test( timeout = 5000 )
+	public void cursorsDoNotStarveOtherStatements()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		connections.rows = 2;
+		final DatabaseService database = connect( connections, 1, 1 );
+		final String cursorId = database.openCursor( Value.create( "select n from t" ) );
+		assertEquals( 2, database.query( Value.create( "select n from t" ) ).getChildren( "row" ).size() );
+		assertEquals( 2, fetch( database, cursorId, 10 ).getChildren( "row" ).size() );
+		database.close();
+	}
+
+	@Test( timeout = 5000 )
+	public void refusesCursorsBeyondTheLimit()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		final DatabaseService database = connect( connections, 1, 1 );
+		final String cursorId = database.openCursor( Value.create( "select n from t" ) );
+		try {
+			database.openCursor( Value.create( "select n from t" ) );
+			fail( "Expected ConnectionError" );
+		} catch( FaultException e ) {
+			assertFault( "ConnectionError", e );
+		}
+		database.closeCursor( cursorId );
+		database.closeCursor( database.openCursor( Value.create( "select n from t" ) ) );
+		database.close();
+	}
+
+	@Test
+	public void releasesTheConnectionOfExhaustedCursors()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		connections.rows = 5;
+		final DatabaseService database = connect( connections, 1, 1 );
+		final int initialConnections = connections.created.size();
+		final String cursorId = database.openCursor( Value.create( "select n from t" ) );
+
+		Value result = fetch( database, cursorId, 2 );
+		assertEquals( 2, result.getChildren( "row" ).size() );
+		assertEquals( 1, result.getChildren( "row" ).get( 0 ).getFirstChild( "n" ).intValue() );
+		assertTrue( result.getFirstChild( "hasMore" ).boolValue() );
+		fetch( database, cursorId, 2 );
+		result = fetch( database, cursorId, 2 );
+		assertEquals( 1, result.getChildren( "row" ).size() );
+		assertEquals( 5, result.getChildren( "row" ).get( 0 ).getFirstChild( "n" ).intValue() );
+		assertFalse( result.getFirstChild( "hasMore" ).boolValue() );
+		try {
+			fetch( database, cursorId, 2 );
+			fail( "Expected CursorNotFound" );
+		} catch( FaultException e ) {
+			assertFault( "CursorNotFound", e );
+		}
+
+		// The connection of the cursor is rolled back and reused by the next one.
+		assertEquals( 1, connections.rollbacks.size() );
+		database.openCursor( Value.create( "select n from t" ) );
+		assertEquals( initialConnections + 1, connections.created.size() );
+		assertTrue( connections.closed.isEmpty() );
+		database.close();
+	}
+
+	@Test
+	public void keepsTheConnectionOfFailedCursors()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		final DatabaseService database = connect( connections, 1, 1 );
+		final int initialConnections = connections.created.size();
+		connections.failStatements = true;
+		try {
+			database.openCursor( Value.create( "select n from t" ) );
+			fail( "Expected SQLException" );
+		} catch( FaultException e ) {
+			assertFault( "SQLException", e );
+		}
+		assertEquals( 1, connections.rollbacks.size() );
+		assertTrue( connections.closed.isEmpty() );
+
+		connections.failStatements = false;
+		database.openCursor( Value.create( "select n from t" ) );
+		assertEquals( initialConnections + 1, connections.created.size() );
+		database.close();
+	}
+
+	@Test
+	public void cursorsReuseCachedStatements()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		connections.rows = 1;
+		final DatabaseService database = connect( connections, 1, 1, 4 );
+		for( int i = 0; i < 3; i++ ) {
+			final String cursorId = database.openCursor( Value.create( "select n from t" ) );
+			assertEquals( 1, fetch( database, cursorId, 10 ).getChildren( "row" ).size() );
+		}
+		final Value statistics = database.getStatementCacheStatistics();
+		assertEquals( 2, statistics.getFirstChild( "hits" ).longValue() );
+		assertEquals( 1, statistics.getFirstChild( "misses" ).longValue() );
+		database.close();
+	}
+
+	@Test
+	public void commitsBatchUpdates()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		final DatabaseService database = connect( connections, 1, 1 );
+		final Value request = Value.create( "insert into t values (:n)" );
+		for( int i = 0; i < 3; i++ ) {
+			request.getNewChild( "parameters" ).getFirstChild( "n" ).setValue( i );
+		}
+		final Value result = database.batchUpdate( request );
+		assertEquals( 3, result.getChildren( "result" ).size() );
+		assertEquals( 1, result.getChildren( "result" ).get( 0 ).intValue() );
+		assertEquals( 1, connections.commits.size() );
+		assertTrue( connections.rollbacks.isEmpty() );
+		database.close();
+	}
+
+	@Test
+	public void rollsBackFailedBatchUpdates()
+		throws FaultException {
+		final FakeConnections connections = new FakeConnections();
+		final DatabaseService database = connect( connections, 1, 1 );
+		final Value request = Value.create( "insert into t values (:n)" );
+		request.getNewChild( "parameters" ).getFirstChild( "n" ).setValue( 1 );
+		connections.failStatements = true;
+		try {
+			database.batchUpdate( request );
+			fail( "Expected SQLException" );
+		} catch( FaultException e ) {
+			assertFault( "SQLException", e );
+		}
+		assertTrue( connections.commits.isEmpty() );
+		assertEquals( 1, connections.rollbacks.size() );
+
+		// The connection is still usable.
+		connections.failStatements = false;
+		assertEquals( 1, database.batchUpdate( request ).getChildren( "result" ).size() );
+		assertEquals( 1, connections.created.size() );
+		assertTrue( connections.closed.isEmpty() );
+		database.close();
+	}
+}
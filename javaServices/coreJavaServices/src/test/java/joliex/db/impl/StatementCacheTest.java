@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package joliex.db.impl;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jolie.runtime.Value;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StatementCacheTest {
+	/**
+	 * A prepared statement that records whether it is closed and the last value bound to each
+	 * parameter index.
+	 */
+	private static class FakeStatement {
+		private final String jdbcSql;
+		private final Map< Integer, Object > parameters = new HashMap<>();
+		private boolean closed = false;
+		private final PreparedStatement statement;
+
+		private FakeStatement( String jdbcSql ) {
+			this.jdbcSql = jdbcSql;
+			this.statement = (PreparedStatement) Proxy.newProxyInstance(
+				PreparedStatement.class.getClassLoader(),
+				new Class< ? >[] { PreparedStatement.class },
+				( proxy, method, args ) -> {
+					if( method.getName().startsWith( "set" ) ) {
+						parameters.put( (Integer) args[ 0 ], args[ 1 ] );
+						return null;
+					}
+					switch( method.getName() ) {
+					case "close":
+						closed = true;
+						return null;
+					case "hashCode":
+						return System.identityHashCode( proxy );
+					case "equals":
+						return proxy == args[ 0 ];
+					default:
+						throw new UnsupportedOperationException( method.getName() );
+					}
+				} );
+		}
+	}
+
+	/**
+	 * A connection that records the statements prepared on it.
+	 */
+	private static class FakeConnection {
+		private final List< FakeStatement > prepared = new ArrayList<>();
+		private final Connection connection = (Connection) Proxy.newProxyInstance(
+			Connection.class.getClassLoader(),
+			new Class< ? >[] { Connection.class },
+			( proxy, method, args ) -> {
+				switch( method.getName() ) {
+				case "prepareStatement":
+					final FakeStatement statement = new FakeStatement( (String) args[ 0 ] );
+					prepared.add( statement );
+					return statement.statement;
+				case "hashCode":
+					return System.identityHashCode( proxy );
+				case "equals":
+					return proxy == args[ 0 ];
+				default:
+					throw new UnsupportedOperationException( method.getName() );
+				}
+			} );
+
+		private FakeStatement statementOf( NamedStatementParser parser ) {
+			for( FakeStatement statement : prepared ) {
+				if( statement.statement == parser.getPreparedStatement() ) {
+					return statement;
+				}
+			}
+			throw new IllegalArgumentException( "Unknown statement" );
+		}
+	}
+
+	@Test
+	public void reusesCachedStatements()
+		throws SQLException {
+		final FakeConnection connection = new FakeConnection();
+		final StatementCache.Statistics statistics = new StatementCache.Statistics();
+		final StatementCache cache = new StatementCache( connection.connection, 2, statistics );
+
+		final NamedStatementParser first = cache.prepare( "SELECT * FROM t" );
+		cache.release( first );
+		final NamedStatementParser second = cache.prepare( "SELECT * FROM t" );
+		cache.release( second );
+
+		assertSame( first, second );
+		assertEquals( 1, connection.prepared.size() );
+		assertFalse( connection.statementOf( first ).closed );
+		assertEquals( 1, statistics.hits() );
+		assertEquals( 1, statistics.misses() );
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedStatements()
+		throws SQLException {
+		final FakeConnection connection = new FakeConnection();
+		final StatementCache.Statistics statistics = new StatementCache.Statistics();
+		final StatementCache cache = new StatementCache( connection.connection, 2, statistics );
+
+		final NamedStatementParser a = cache.prepare( "SELECT a FROM t" );
+		cache.release( a );
+		final NamedStatementParser b = cache.prepare( "SELECT b FROM t" );
+		cache.release( b );
+		// Using a makes b the least recently used statement
+		cache.release( cache.prepare( "SELECT a FROM t" ) );
+		final NamedStatementParser c = cache.prepare( "SELECT c FROM t" );
+		cache.release( c );
+
+		assertTrue( connection.statementOf( b ).closed );
+		assertFalse( connection.statementOf( a ).closed );
+		assertFalse( connection.statementOf( c ).closed );
+		assertSame( a, cache.prepare( "SELECT a FROM t" ) );
+		assertNotSame( b, cache.prepare( "SELECT b FROM t" ) );
+		assertEquals( 2, statistics.hits() );
+		assertEquals( 4, statistics.misses() );
+	}
+
+	@Test
+	public void releaseClosesUncachedStatements()
+		throws SQLException {
+		final FakeConnection connection = new FakeConnection();
+		final StatementCache.Statistics statistics = new StatementCache.Statistics();
+		final StatementCache cache = new StatementCache( connection.connection, 0, statistics );
+
+		final NamedStatementParser first = cache.prepare( "SELECT * FROM t" );
+		final NamedStatementParser second = cache.prepare( "SELECT * FROM t" );
+		assertNotSame( first, second );
+		assertFalse( connection.statementOf( first ).closed );
+		cache.release( first );
+		cache.release( second );
+
+		assertTrue( connection.statementOf( first ).closed );
+		assertTrue( connection.statementOf( second ).closed );
+		assertEquals( 0, statistics.hits() );
+		assertEquals( 2, statistics.misses() );
+	}
+
+	@Test
+	public void rebindsCachedStatements()
+		throws SQLException {
+		final FakeConnection connection = new FakeConnection();
+		final StatementCache cache = new StatementCache( connection.connection, 2, new StatementCache.Statistics() );
+		final String sql = "SELECT * FROM t WHERE a = :a AND b = :b OR a > :a";
+
+		final NamedStatementParser first = cache.prepare( sql );
+		first.setParameters( parameters( 1, "x" ) );
+		cache.release( first );
+		final NamedStatementParser second = cache.prepare( sql );
+		second.setParameters( parameters( 2, "y" ) );
+
+		final FakeStatement statement = connection.statementOf( second );
+		assertEquals( "SELECT * FROM t WHERE a = ? AND b = ? OR a > ?", statement.jdbcSql );
+		assertEquals( 2, statement.parameters.get( 1 ) );
+		assertEquals( "y", statement.parameters.get( 2 ) );
+		assertEquals( 2, statement.parameters.get( 3 ) );
+	}
+
+	@Test
+	public void closeClosesCachedStatements()
+		throws SQLException {
+		final FakeConnection connection = new FakeConnection();
+		final StatementCache cache = new StatementCache( connection.connection, 2, new StatementCache.Statistics() );
+		final NamedStatementParser a = cache.prepare( "SELECT a FROM t" );
+		cache.release( a );
+		final NamedStatementParser b = cache.prepare( "SELECT b FROM t" );
+		cache.release( b );
+		cache.close();
+
+		assertTrue( connection.statementOf( a ).closed );
+		assertTrue( connection.statementOf( b ).closed );
+	}
+
+	private static Value parameters( int a, String b ) {
+		final Value parameters = Value.create();
+		parameters.getFirstChild( "a" ).setValue( a );
+		parameters.getFirstChild( "b" ).setValue( b );
+		return parameters;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package joliex.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import joliex.storage.types.LoadRequest;
+import joliex.storage.types.SaveRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class LogStorageTest {
+	private static final int KEYS = 10;
+
+	private Path directory;
+	private Path file;
+
+	@Before
+	public void setUp()
+		throws IOException {
+		directory = Files.createTempDirectory( "log-storage-test" );
+		file = directory.resolve( "storage.log" );
+	}
+
+	@After
+	public void tearDown()
+		throws IOException {
+		Files.deleteIfExists( file );
+		Files.deleteIfExists( directory );
+	}
+
+	private LogStorage connect()
+		throws FaultException {
+		final LogStorage storage = new LogStorage();
+		final Value request = Value.create();
+		request.getFirstChild( "filename" ).setValue( file.toString() );
+		storage.connect( request );
+		return storage;
+	}
+
+	private static Value path( String key ) {
+		final Value path = Value.create();
+		path.getNewChild( "node" ).getFirstChild( "name" ).setValue( key );
+		return path;
+	}
+
+	private static void save( LogStorage storage, String key, Value value )
+		throws FaultException {
+		final Value request = Value.create();
+		request.getChildren( "path" ).add( path( key ) );
+		request.getChildren( "value" ).add( value );
+		storage.save( SaveRequest.fromValue( request ) );
+	}
+
+	private static Value load( LogStorage storage, String key )
+		throws FaultException {
+		return storage.load( LoadRequest.fromValue( path( key ) ) );
+	}
+
+	private static Value value( int i ) {
+		final Value value = Value.create( "value" + i );
+		value.getFirstChild( "n" ).setValue( i );
+		value.getNewChild( "list" ).setValue( (long) i );
+		value.getNewChild( "list" ).setValue( i * 0.5 );
+		return value;
+	}
+
+	private static void assertValue( int i, Value value ) {
+		assertEquals( "value" + i, value.strValue() );
+		assertEquals( i, value.getFirstChild( "n" ).intValue() );
+		assertEquals( 2, value.getChildren( "list" ).size() );
+		assertEquals( (long) i, value.getChildren( "list" ).get( 0 ).longValue() );
+		assertEquals( i * 0.5, value.getChildren( "list" ).get( 1 ).doubleValue(), 0 );
+	}
+
+	private long saveKeys()
+		throws Exception {
+		final LogStorage storage = connect();
+		for( int i = 0; i < KEYS; i++ ) {
+			save( storage, "key" + i, value( i ) );
+		}
+		return Files.size( file );
+	}
+
+	private static void assertKeys( LogStorage storage, int count )
+		throws FaultException {
+		for( int i = 0; i < count; i++ ) {
+			assertValue( i, load( storage, "key" + i ) );
+		}
+	}
+
+	private void write( long offset, byte[] bytes )
+		throws IOException {
+		try( FileChannel channel = FileChannel.open( file, StandardOpenOption.WRITE ) ) {
+			channel.write( ByteBuffer.wrap( bytes ), offset );
+		}
+	}
+
+	private void flipByte( long offset )
+		throws IOException {
+		final byte[] content = Files.readAllBytes( file );
+		write( offset, new byte[] { (byte) ~content[ (int) offset ] } );
+	}
+
+	@Test
+	public void valuesSurviveReconnecting()
+		throws Exception {
+		final LogStorage storage = connect();
+		for( int i = 0; i < KEYS; i++ ) {
+			save( storage, "key" + i, value( i ) );
+		}
+		save( storage, "key0", value( 42 ) );
+		storage.delete( LoadRequest.fromValue( path( "key1" ) ) );
+
+		final LogStorage reconnected = connect();
+		assertValue( 42, load( reconnected, "key0" ) );
+		assertFalse( load( reconnected, "key1" ).isDefined() );
+		for( int i = 2; i < KEYS; i++ ) {
+			assertValue( i, load( reconnected, "key" + i ) );
+		}
+	}
+
+	@Test
+	public void incompleteTailRecordIsDiscarded()
+		throws Exception {
+		final long size = saveKeys();
+		// a record whose length points past the end of the log
+		write( size, new byte[] { 0, 0, 1, 0, 1, 2, 3 } );
+
+		final LogStorage storage = connect();
+		assertEquals( size, Files.size( file ) );
+		assertKeys( storage, KEYS );
+		save( storage, "key" + KEYS, value( KEYS ) );
+		assertKeys( connect(), KEYS + 1 );
+	}
+
+	@Test
+	public void incompleteHeaderIsDiscarded()
+		throws Exception {
+		final long size = saveKeys();
+		write( size, new byte[] { 0, 0 } );
+
+		assertKeys( connect(), KEYS );
+		assertEquals( size, Files.size( file ) );
+	}
+
+	@Test
+	public void tailRecordWithWrongChecksumIsDiscarded()
+		throws Exception {
+		final long size = saveKeys();
+		flipByte( size - 1 );
+
+		final LogStorage storage = connect();
+		assertKeys( storage, KEYS - 1 );
+		assertFalse( load( storage, "key" + (KEYS - 1) ).isDefined() );
+	}
+
+	@Test
+	public void zeroFilledTailIsDiscarded()
+		throws Exception {
+		final long size = saveKeys();
+		write( size, new byte[ 100 ] );
+
+		assertKeys( connect(), KEYS );
+		assertEquals( size, Files.size( file ) );
+	}
+
+	@Test
+	public void corruptedRecordFollowedByOthersFailsConnect()
+		throws Exception {
+		final long size = saveKeys();
+		// the first record holds the operation right after its length
+		flipByte( 5 );
+		final byte[] content = Files.readAllBytes( file );
+
+		try {
+			connect();
+			fail( "Connecting to a log with a corrupted record must fail" );
+		} catch( FaultException e ) {
+			assertEquals( "StorageFault", e.faultName() );
+		}
+		assertEquals( size, Files.size( file ) );
+		assertArrayEquals( content, Files.readAllBytes( file ) );
+	}
+
+	@Test
+	public void invalidLengthFollowedByOthersFailsConnect()
+		throws Exception {
+		final long size = saveKeys();
+		write( 0, new byte[] { 0, 0, 0, 0 } );
+
+		try {
+			connect();
+			fail( "Connecting to a log with a corrupted record must fail" );
+		} catch( FaultException e ) {
+			assertEquals( "StorageFault", e.faultName() );
+		}
+		assertEquals( size, Files.size( file ) );
+	}
+}
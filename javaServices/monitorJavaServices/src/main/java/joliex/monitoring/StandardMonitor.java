@@ -67,6 +67,11 @@ public class StandardMonitor extends AbstractMonitorJavaService {
 		}
 	}
 
+	public void pushEvents( Value request ) {
+		for( Value event : request.getChildren( "events" ) ) {
+			pushEvent( MonitoringEvent.fromValue( event ) );
+		}
+	}
 
 	public Value flush() {
 		synchronized( this ) {
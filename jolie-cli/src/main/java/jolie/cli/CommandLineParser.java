@@ -54,6 +54,7 @@ import java.util.stream.Collectors;
 
 import jolie.Interpreter;
 import jolie.JolieClassLoader;
+import jolie.compiler.ProcessCompiler;
 import jolie.jap.JapURLConnection;
 import jolie.lang.Constants;
 import jolie.lang.parse.Scanner;
@@ -91,6 +92,9 @@ public class CommandLineParser implements Closeable {
 	private final Level logLevel;
 	private final String executionTarget;
 	private final Optional< Path > parametersFilepath;
+	private final boolean compile;
+	private final int compileThreshold;
+	private final Optional< Path > moduleCachePath;
 	private File programDirectory = null;
 	private int cellId = 0;
 
@@ -152,6 +156,13 @@ public class CommandLineParser implements Closeable {
 					"Check for correlation and other data related typing errors (default: false)" ) )
 			.append(
 				getOptionString( "--check", "Check for syntactic and semantic errors." ) )
+			.append(
+				getOptionString( "--compile",
+					"Compile frequently executed loops for faster execution (default: false)" ) )
+			.append(
+				getOptionString( "--compileThreshold [number]",
+					"Set the number of iterations after which a loop is compiled, implies --compile (default: "
+						+ ProcessCompiler.DEFAULT_THRESHOLD + ")" ) )
 			.append(
 				getOptionString( "--trace [console|file]",
 					"Activate tracer. console prints out in the console, file creates a json file" ) )
@@ -170,6 +181,12 @@ public class CommandLineParser implements Closeable {
 			.append(
 				getOptionString( "--params json_file",
 					"Use the contents of json_file as the argument of the service being executed." ) )
+			.append(
+				getOptionString( "--moduleCache PATH",
+					"Store parsed modules in directory PATH and reuse them in later runs to speed up startup" ) )
+			.append(
+				getOptionString( "--warmModuleCache PATH",
+					"Check the program without running it, storing its parsed modules in directory PATH (as --moduleCache)" ) )
 			.append(
 				getOptionString( "--version", "Display this program version information" ) )
 			.append(
@@ -269,6 +286,8 @@ public class CommandLineParser implements Closeable {
 		boolean bTracer = false;
 		boolean bStackTraces = false;
 		boolean bCheck = false;
+		boolean bCompile = false;
+		int cThreshold = ProcessCompiler.DEFAULT_THRESHOLD;
 		boolean bTypeCheck = false; // Default for typecheck
 		Level lLogLevel = Level.INFO;
 		String tMode = "console";
@@ -282,6 +301,7 @@ public class CommandLineParser implements Closeable {
 		String pwd = UriUtils.normalizeWindowsPath( new File( "" ).getCanonicalPath() );
 		String tService = null;
 		Path tParams = null;
+		Path tModuleCache = null;
 		includeList.add( pwd );
 		includeList.add( "include" );
 		libList.add( pwd );
@@ -362,6 +382,18 @@ public class CommandLineParser implements Closeable {
 			} else if( "--check".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bCheck = true;
+			} else if( "--compile".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				bCompile = true;
+			} else if( "--compileThreshold".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cThreshold = Integer.parseInt( argsList.get( i ) );
+				if( cThreshold < 1 ) {
+					throw new CommandLineException( "The compile threshold must be at least 1" );
+				}
+				bCompile = true;
+				optionsList.add( argsList.get( i ) );
 			} else if( "--trace".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bTracer = true;
@@ -450,6 +482,15 @@ public class CommandLineParser implements Closeable {
 				if( !Files.exists( tParams ) ) {
 					throw new FileNotFoundException( argsList.get( i ) );
 				}
+			} else if( "--moduleCache".equals( argsList.get( i ) )
+				|| "--warmModuleCache".equals( argsList.get( i ) ) ) {
+				if( "--warmModuleCache".equals( argsList.get( i ) ) ) {
+					bCheck = true;
+				}
+				optionsList.add( argsList.get( i ) );
+				i++;
+				tModuleCache = Paths.get( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
 			} else if( "--version".equals( argsList.get( i ) ) ) {
 				throw new CommandLineException( getVersionString() );
 			} else if( olFilepath == null && !argsList.get( i ).startsWith( "-" ) ) {
@@ -504,6 +545,7 @@ public class CommandLineParser implements Closeable {
 		printStackTraces = bStackTraces;
 		executionTarget = tService;
 		parametersFilepath = Optional.ofNullable( tParams );
+		moduleCachePath = Optional.ofNullable( tModuleCache );
 
 		correlationAlgorithmType = CorrelationEngine.Type.fromString( csetAlgorithmName );
 		if( correlationAlgorithmType == null ) {
@@ -583,6 +625,8 @@ public class CommandLineParser implements Closeable {
 		isProgramCompiled = olFilepath.endsWith( ".olc" );
 		tracer = bTracer && !isProgramCompiled;
 		check = bCheck && !isProgramCompiled;
+		compile = bCompile;
+		compileThreshold = cThreshold;
 		programFilepath = new File( olResult.source );
 		programStream = olResult.stream;
 
@@ -805,7 +849,10 @@ public class CommandLineParser implements Closeable {
 			programDirectory,
 			packagePaths,
 			executionTarget,
-			parametersFilepath );
+			parametersFilepath,
+			compile,
+			compileThreshold,
+			moduleCachePath );
 
 	}
 
@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import jolie.Interpreter.StarterThread;
 import jolie.lang.Constants;
@@ -483,6 +484,25 @@ public abstract class ExecutionThread extends JolieThread {
 		setTaskFuture( interpreter().runJolieThread( this ) );
 	}
 
+	/**
+	 * Runs this thread in the calling {@link JolieExecutorThread} instead of starting it on the
+	 * executor of the interpreter. The calling thread refers back to its previous execution thread
+	 * when this method returns.
+	 */
+	public void runInline() {
+		final JolieExecutorThread t = JolieExecutorThread.currentThread();
+		final ExecutionThread previous = t.executionThread();
+		final FutureTask< ? > task = new FutureTask<>( this, null );
+		setTaskFuture( task );
+		try {
+			task.run();
+		} finally {
+			t.setExecutionThread( previous );
+			// Clear the interrupt that killing this thread may have left on the calling thread
+			Thread.interrupted();
+		}
+	}
+
 	public void join()
 		throws InterruptedException {
 		try {
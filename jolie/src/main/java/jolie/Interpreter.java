@@ -27,7 +27,6 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
-import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -49,6 +48,7 @@ import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
+import jolie.compiler.ProcessCompiler;
 import jolie.lang.CodeCheckingException;
 import jolie.lang.Constants;
 import jolie.lang.parse.OLParseTreeOptimizer;
@@ -57,16 +57,19 @@ import jolie.lang.parse.Scanner;
 import jolie.lang.parse.SemanticVerifier;
 import jolie.lang.parse.TypeChecker;
 import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.module.ModuleCache;
 import jolie.lang.parse.module.ModuleException;
 import jolie.lang.parse.module.ModuleParsingConfiguration;
 import jolie.lang.parse.module.Modules;
 import jolie.lang.parse.module.SymbolTable;
 import jolie.monitoring.MonitoringEvent;
+import jolie.monitoring.MonitoringEventQueue;
 import jolie.monitoring.events.MonitorAttachedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
 import jolie.monitoring.events.SessionEndedEvent;
 import jolie.monitoring.events.SessionStartedEvent;
 import jolie.net.CommChannel;
+import jolie.net.CommChannelHandler;
 import jolie.net.CommCore;
 import jolie.net.CommMessage;
 import jolie.net.SessionMessage;
@@ -265,22 +268,50 @@ public class Interpreter {
 	// private long persistentConnectionTimeout = 2 * 60 * 1000; // 4 minutes
 	// private long persistentConnectionTimeout = 1;
 
-	// 11 is the default initial capacity for PriorityQueue
-	private final Queue< WeakReference< TimeoutHandler > > timeoutHandlerQueue =
-		new PriorityQueue<>( 11, new TimeoutHandler.Comparator() );
-
 	private final ExecutorService timeoutHandlerExecutor =
 		Executors.newSingleThreadExecutor( new NativeJolieThreadFactory( this ) );
 
+	private final TimingWheel timingWheel;
+	private final ProcessCompiler processCompiler;
+
 
 	private final File programDirectory;
 	private OutputPort monitor = null;
+	private MonitoringEventQueue monitoringEventQueue = null;
+	private static final int MONITORING_BATCH_SIZE = 64;
 
 	public void setMonitor( OutputPort monitor ) {
+		setMonitor( monitor, 0 );
+	}
+
+	/**
+	 * Sets the monitor of this Interpreter.
+	 *
+	 * @param monitor the output port of the monitor
+	 * @param bufferSize if positive, events are sent asynchronously in batches with the
+	 *        <code>pushEvents</code> operation, and events exceeding this many pending ones are
+	 *        dropped. Otherwise, each event is sent with <code>pushEvent</code> by the thread firing
+	 *        it.
+	 */
+	public void setMonitor( OutputPort monitor, int bufferSize ) {
+		this.monitoringEventQueue = bufferSize > 0
+			? new MonitoringEventQueue( bufferSize, MONITORING_BATCH_SIZE, this::pushMonitoringEvents,
+				this::runMonitoringTask )
+			: null;
 		this.monitor = monitor;
 		fireMonitorEvent( new MonitorAttachedEvent() );
 	}
 
+	/**
+	 * Returns the number of monitoring events dropped because the monitor could not keep up.
+	 *
+	 * @return the number of dropped monitoring events
+	 */
+	public long droppedMonitoringEvents() {
+		final MonitoringEventQueue queue = monitoringEventQueue;
+		return queue == null ? 0 : queue.droppedEvents();
+	}
+
 	public boolean isMonitoring() {
 		return monitor != null;
 	}
@@ -297,26 +328,67 @@ public class Interpreter {
 		return tracer;
 	}
 
+	/**
+	 * Returns the compiler for hot loops of this interpreter.
+	 *
+	 * @return the compiler for hot loops, or null if compilation is disabled
+	 */
+	public ProcessCompiler processCompiler() {
+		return processCompiler;
+	}
+
 	public void fireMonitorEvent( MonitoringEvent event ) {
 		if( monitor != null ) {
-			CommMessage m = CommMessage.createRequest( "pushEvent", "/", MonitoringEvent.toValue( event ) );
-			CommChannel channel = null;
+			final MonitoringEventQueue queue = monitoringEventQueue;
+			if( queue == null ) {
+				sendToMonitor( "pushEvent", MonitoringEvent.toValue( event ) );
+			} else {
+				queue.add( event );
+			}
+		}
+	}
+
+	private void pushMonitoringEvents( List< MonitoringEvent > events, long dropped ) {
+		final Value request = Value.create();
+		final ValueVector eventValues = request.getChildren( "events" );
+		for( MonitoringEvent event : events ) {
+			eventValues.add( MonitoringEvent.toValue( event ) );
+		}
+		request.getFirstChild( "dropped" ).setValue( dropped );
+		sendToMonitor( "pushEvents", request );
+	}
+
+	private void runMonitoringTask( Runnable task ) {
+		commCore.executor().execute( () -> {
+			final CommChannelHandler thread = CommChannelHandler.currentThread();
+			thread.setExecutionThread( initThread().getNewSessionThread() );
 			try {
-				channel = monitor.getCommChannel();
-				channel.send( m );
-				CommMessage response;
-				do {
-					response = channel.recvResponseFor( m ).get();
-				} while( response == null );
-			} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
-				logWarning( e );
+				task.run();
 			} finally {
-				if( channel != null ) {
-					try {
-						channel.release();
-					} catch( IOException e ) {
-						logWarning( e );
-					}
+				thread.setExecutionThread( null );
+			}
+		} );
+	}
+
+	private void sendToMonitor( String operationName, Value value ) {
+		final OutputPort monitor = this.monitor;
+		CommMessage m = CommMessage.createRequest( operationName, "/", value );
+		CommChannel channel = null;
+		try {
+			channel = monitor.getCommChannel();
+			channel.send( m );
+			CommMessage response;
+			do {
+				response = channel.recvResponseFor( m ).get();
+			} while( response == null );
+		} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
+			logWarning( e );
+		} finally {
+			if( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					logWarning( e );
 				}
 			}
 		}
@@ -348,47 +420,17 @@ public class Interpreter {
 	}
 
 	public void addTimeoutHandler( TimeoutHandler handler ) {
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.add( new WeakReference<>( handler ) );
-			if( timeoutHandlerQueue.size() == 1 ) {
-				schedule( new TimerTask() {
-					@Override
-					public void run() {
-						synchronized( timeoutHandlerQueue ) {
-							checkForExpiredTimeoutHandlers();
-						}
-					}
-				}, handler.time() - System.currentTimeMillis() + 1 );
-			} else {
-				checkForExpiredTimeoutHandlers();
-			}
-		}
+		timingWheel.add( handler );
 	}
 
-	/*
-	 * public void removeTimeoutHandler( TimeoutHandler handler ) { synchronized( timeoutHandlerQueue )
-	 * { timeoutHandlerQueue.remove( handler ); checkForExpiredTimeoutHandlers(); } }
+	/**
+	 * Returns the timing wheel running the timeout handlers of this Interpreter, which exposes the
+	 * number of pending handlers and the lag of their processing.
+	 *
+	 * @return the timing wheel of this Interpreter
 	 */
-
-	private void checkForExpiredTimeoutHandlers() {
-		long currentTime = System.currentTimeMillis();
-		WeakReference< TimeoutHandler > whandler = timeoutHandlerQueue.peek();
-		boolean keepRun = true;
-		TimeoutHandler handler;
-		while( whandler != null && keepRun ) {
-			handler = whandler.get();
-			if( handler == null ) {
-				timeoutHandlerQueue.remove();
-				whandler = timeoutHandlerQueue.peek();
-			} else if( handler.time() < currentTime || exiting ) {
-				// final TimeoutHandler h = handler;
-				timeoutHandlerExecutor.execute( handler );
-				timeoutHandlerQueue.poll();
-				whandler = timeoutHandlerQueue.peek();
-			} else {
-				keepRun = false;
-			}
-		}
+	public TimingWheel timingWheel() {
+		return timingWheel;
 	}
 
 	/**
@@ -616,7 +658,7 @@ public class Interpreter {
 		if( timer != null ) {
 			timer.cancel();
 		}
-		checkForExpiredTimeoutHandlers();
+		timingWheel.stop();
 		processExecutorService.shutdown();
 		nativeExecutorService.shutdown();
 		timeoutHandlerExecutor.shutdown();
@@ -860,6 +902,9 @@ public class Interpreter {
 			configuration.programFilepath().getName() +
 			"] ";
 
+		timingWheel = new TimingWheel( configuration.programFilepath().getName() + "-TimingWheel",
+			timeoutHandlerExecutor );
+
 		if( configuration.tracer() ) {
 			if( configuration.tracerMode().equals( "file" ) ) {
 				tracer = new FileTracer( this, tracerLevel );
@@ -870,6 +915,10 @@ public class Interpreter {
 			tracer = new DummyTracer();
 		}
 
+		processCompiler = configuration.compile()
+			? new ProcessCompiler( configuration.compileThreshold(), configuration.tracer() )
+			: null;
+
 		LOGGER.setLevel( configuration.logLevel() );
 
 		exitingLock = new ReentrantLock();
@@ -1219,7 +1268,8 @@ public class Interpreter {
 						configuration().packagePaths(),
 						configuration().jolieClassLoader(),
 						configuration().constants(),
-						false );
+						false,
+						configuration().moduleCachePath().map( ModuleCache::new ) );
 					Modules.ModuleParsedResult parsedResult =
 						Modules.parseModule( configuration, configuration().inputStream(),
 							configuration().programFilepath().toURI() );
@@ -1427,6 +1477,9 @@ public class Interpreter {
 		private final String[] packagePaths;
 		private final String executionTarget;
 		private final Optional< Path > parametersFilePath;
+		private final boolean compile;
+		private final int compileThreshold;
+		private final Optional< Path > moduleCachePath;
 
 		private Configuration( int connectionsLimit,
 			int cellId,
@@ -1452,7 +1505,10 @@ public class Interpreter {
 			File programDirectory,
 			String[] packagePaths,
 			String executionTarget,
-			Optional< Path > parametersFilePath ) {
+			Optional< Path > parametersFilePath,
+			boolean compile,
+			int compileThreshold,
+			Optional< Path > moduleCachePath ) {
 			this.connectionsLimit = connectionsLimit;
 			this.cellId = cellId;
 			this.correlationAlgorithm = correlationAlgorithm;
@@ -1478,6 +1534,9 @@ public class Interpreter {
 			this.packagePaths = packagePaths;
 			this.executionTarget = executionTarget;
 			this.parametersFilePath = parametersFilePath;
+			this.compile = compile;
+			this.compileThreshold = compileThreshold;
+			this.moduleCachePath = moduleCachePath;
 		}
 
 		public static Configuration create( int connectionsLimit,
@@ -1504,11 +1563,15 @@ public class Interpreter {
 			File programDirectory,
 			String[] packagePaths,
 			String executionTarget,
-			Optional< Path > parametersFilePath ) {
+			Optional< Path > parametersFilePath,
+			boolean compile,
+			int compileThreshold,
+			Optional< Path > moduleCachePath ) {
 			return new Configuration( connectionsLimit, cellId, correlationAlgorithm, includeList, optionArgs, libUrls,
 				inputStream, charset, programFilepath, arguments, constants, jolieClassLoader, programCompiled,
 				typeCheck, tracer, tracerLevel, tracerMode, check, printStackTraces, responseTimeout, logLevel,
-				programDirectory, packagePaths, executionTarget, parametersFilePath );
+				programDirectory, packagePaths, executionTarget, parametersFilePath, compile, compileThreshold,
+				moduleCachePath );
 		}
 
 		public static Configuration create( Configuration config,
@@ -1519,7 +1582,8 @@ public class Interpreter {
 				config.libURLs, inputStream, config.charset, programFilepath, config.arguments, config.constants,
 				config.jolieClassLoader, config.isProgramCompiled, config.typeCheck, config.tracer, config.tracerLevel,
 				config.tracerMode, config.check, config.printStackTraces, config.responseTimeout, config.logLevel,
-				config.programDirectory, config.packagePaths, config.executionTarget, config.parametersFilePath );
+				config.programDirectory, config.packagePaths, config.executionTarget, config.parametersFilePath,
+				config.compile, config.compileThreshold, config.moduleCachePath );
 		}
 
 		public static Configuration create( Configuration config,
@@ -1531,7 +1595,8 @@ public class Interpreter {
 				config.libURLs, inputStream, config.charset, programFilepath, config.arguments, config.constants,
 				config.jolieClassLoader, config.isProgramCompiled, config.typeCheck, config.tracer, config.tracerLevel,
 				config.tracerMode, config.check, config.printStackTraces, config.responseTimeout, config.logLevel,
-				config.programDirectory, config.packagePaths, executionTarget, config.parametersFilePath );
+				config.programDirectory, config.packagePaths, executionTarget, config.parametersFilePath,
+				config.compile, config.compileThreshold, config.moduleCachePath );
 		}
 
 		/**
@@ -1754,5 +1819,35 @@ public class Interpreter {
 		public Optional< Path > parametersPath() {
 			return parametersFilePath;
 		}
+
+		/**
+		 * Returns whether hot loops should be compiled, as set by command line with the --compile
+		 * option.
+		 *
+		 * @return true if hot loops should be compiled
+		 */
+		public boolean compile() {
+			return compile;
+		}
+
+		/**
+		 * Returns the number of iterations after which a loop is compiled, as set by command line with
+		 * the --compileThreshold option.
+		 *
+		 * @return the number of iterations after which a loop is compiled
+		 */
+		public int compileThreshold() {
+			return compileThreshold;
+		}
+
+		/**
+		 * Returns the directory of the persistent cache of parsed modules, as set by command line with
+		 * the --moduleCache option.
+		 *
+		 * @return the directory of the module cache, if there is one
+		 */
+		public Optional< Path > moduleCachePath() {
+			return moduleCachePath;
+		}
 	}
 }
@@ -19,6 +19,7 @@
 
 package jolie;
 
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -39,4 +40,23 @@ public final class JolieThreadPoolExecutor extends ThreadPoolExecutor {
 			factory,
 			new ThreadPoolExecutor.AbortPolicy() );
 	}
+
+	/**
+	 * Creates an executor that runs at most <code>maxThreads</code> tasks at a time. Further tasks
+	 * wait in an unbounded queue, so submitters never block.
+	 *
+	 * @param factory the factory for the threads of this executor
+	 * @param maxThreads the maximum number of threads
+	 */
+	public JolieThreadPoolExecutor( final ThreadFactory factory, int maxThreads ) {
+		super(
+			maxThreads,
+			maxThreads,
+			60L,
+			TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(),
+			factory,
+			new ThreadPoolExecutor.AbortPolicy() );
+		allowCoreThreadTimeOut( true );
+	}
 }
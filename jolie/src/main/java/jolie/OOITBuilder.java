@@ -1057,7 +1057,7 @@ public class OOITBuilder implements UnitOLVisitor {
 		n.condition().accept( this );
 		Expression condition = currExpression;
 		n.body().accept( this );
-		currProcess = new WhileProcess( condition, currProcess );
+		currProcess = new WhileProcess( condition, currProcess, interpreter.processCompiler() );
 	}
 
 	public void visit( OrConditionNode n ) {
@@ -1300,7 +1300,7 @@ public class OOITBuilder implements UnitOLVisitor {
 		n.condition().accept( this );
 		Expression condition = currExpression;
 		n.body().accept( this );
-		currProcess = new ForProcess( init, condition, post, currProcess );
+		currProcess = new ForProcess( init, condition, post, currProcess, interpreter.processCompiler() );
 	}
 
 	public void visit( ForEachArrayItemStatement n ) {
@@ -1359,6 +1359,7 @@ public class OOITBuilder implements UnitOLVisitor {
 		currProcess = new SpawnProcess(
 			buildVariablePath( n.indexVariablePath() ),
 			buildExpression( n.upperBoundExpression() ),
+			buildExpression( n.parallelismExpression() ),
 			buildVariablePath( n.inVariablePath() ),
 			new SequentialProcess( children ) );
 	}
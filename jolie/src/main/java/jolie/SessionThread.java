@@ -248,10 +248,21 @@ public class SessionThread extends ExecutionThread {
 	 * @param parent the ExecutionThread to copy
 	 */
 	public SessionThread( Process process, ExecutionThread parent ) {
+		this( process, parent, parent.state().clone() );
+	}
+
+	/**
+	 * Constructs a SessionThread child of another ExecutionThread, with the given State and a copy of
+	 * the Scope stack of the parent.
+	 * 
+	 * @param process the Process this thread has to execute
+	 * @param parent the parent ExecutionThread
+	 * @param state the State of this thread
+	 */
+	protected SessionThread( Process process, ExecutionThread parent, State state ) {
 		super( process, parent );
 		initMessageQueues();
-		assert (parent != null);
-		state = parent.state().clone();
+		this.state = state;
 		parent.scopeStack.forEach( s -> scopeStack.push( s.clone() ) );
 	}
 
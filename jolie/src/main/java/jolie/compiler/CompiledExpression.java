@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.compiler;
+
+import java.util.function.BiPredicate;
+
+import jolie.lang.Constants;
+import jolie.runtime.CompareOperators;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+import jolie.runtime.expression.Expression;
+
+/**
+ * An expression compiled for evaluation over a {@link Frame}, which writes its result in its slot.
+ */
+abstract class CompiledExpression {
+	final int slot;
+
+	CompiledExpression( int slot ) {
+		this.slot = slot;
+	}
+
+	abstract void evaluate( Frame frame );
+
+	boolean test( Frame frame ) {
+		evaluate( frame );
+		return frame.boolValue( slot );
+	}
+
+	static final class Constant extends CompiledExpression {
+		private final Value value;
+
+		Constant( int slot, Value value ) {
+			super( slot );
+			this.value = value;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.load( slot, value );
+		}
+	}
+
+	static final class Path extends CompiledExpression {
+		private final VariablePath path;
+
+		Path( int slot, VariablePath path ) {
+			super( slot );
+			this.path = path;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.load( slot, path.evaluate() );
+		}
+	}
+
+	static final class Interpreted extends CompiledExpression {
+		private final Expression expression;
+
+		Interpreted( int slot, Expression expression ) {
+			super( slot );
+			this.expression = expression;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.load( slot, expression.evaluate() );
+		}
+	}
+
+	/*
+	 * Sums and products fold their operands from left to right like SumExpression and
+	 * ProductExpression, but keep the partial result unboxed as long as all operands are numbers.
+	 * Otherwise, they continue with the arithmetic operations of Value.
+	 */
+
+	static final class Sum extends CompiledExpression {
+		private final CompiledExpression[] operands;
+		private final boolean[] subtract;
+
+		Sum( int slot, CompiledExpression[] operands, boolean[] subtract ) {
+			super( slot );
+			this.operands = operands;
+			this.subtract = subtract;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			final CompiledExpression first = operands[ 0 ];
+			first.evaluate( frame );
+			byte type = frame.types[ first.slot ];
+			long bits = frame.bits[ first.slot ];
+			Value result = Frame.isNumber( type ) ? null : Value.create( frame.value( first.slot ) );
+			for( int i = 1; i < operands.length; i++ ) {
+				final CompiledExpression operand = operands[ i ];
+				operand.evaluate( frame );
+				final byte otherType = frame.types[ operand.slot ];
+				if( result == null && Frame.isNumber( otherType ) ) {
+					final long otherBits = frame.bits[ operand.slot ];
+					if( type == Frame.DOUBLE || otherType == Frame.DOUBLE ) {
+						final double l = Frame.toDouble( type, bits ), r = Frame.toDouble( otherType, otherBits );
+						bits = Double.doubleToRawLongBits( subtract[ i ] ? l - r : l + r );
+						type = Frame.DOUBLE;
+					} else if( type == Frame.LONG || otherType == Frame.LONG ) {
+						bits = subtract[ i ] ? bits - otherBits : bits + otherBits;
+						type = Frame.LONG;
+					} else {
+						bits = subtract[ i ] ? (int) bits - (int) otherBits : (int) bits + (int) otherBits;
+					}
+				} else {
+					if( result == null ) {
+						result = Frame.box( type, bits );
+					}
+					if( subtract[ i ] ) {
+						result.subtract( frame.value( operand.slot ) );
+					} else {
+						result.add( frame.value( operand.slot ) );
+					}
+				}
+			}
+			if( result == null ) {
+				frame.types[ slot ] = type;
+				frame.bits[ slot ] = bits;
+				frame.values[ slot ] = null;
+			} else {
+				frame.load( slot, result );
+			}
+		}
+	}
+
+	static final class Product extends CompiledExpression {
+		private final CompiledExpression[] operands;
+		private final Constants.OperandType[] operators;
+
+		Product( int slot, CompiledExpression[] operands, Constants.OperandType[] operators ) {
+			super( slot );
+			this.operands = operands;
+			this.operators = operators;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			final CompiledExpression first = operands[ 0 ];
+			first.evaluate( frame );
+			byte type = frame.types[ first.slot ];
+			long bits = frame.bits[ first.slot ];
+			Value result = Frame.isNumber( type ) ? null : Value.create( frame.value( first.slot ) );
+			for( int i = 1; i < operands.length; i++ ) {
+				final CompiledExpression operand = operands[ i ];
+				operand.evaluate( frame );
+				final byte otherType = frame.types[ operand.slot ];
+				try {
+					if( result == null && Frame.isNumber( otherType ) ) {
+						final long otherBits = frame.bits[ operand.slot ];
+						if( type == Frame.DOUBLE || otherType == Frame.DOUBLE ) {
+							bits = Double.doubleToRawLongBits( apply( operators[ i ],
+								Frame.toDouble( type, bits ), Frame.toDouble( otherType, otherBits ) ) );
+							type = Frame.DOUBLE;
+						} else if( type == Frame.LONG || otherType == Frame.LONG ) {
+							bits = apply( operators[ i ], bits, otherBits );
+							type = Frame.LONG;
+						} else {
+							bits = apply( operators[ i ], (int) bits, (int) otherBits );
+						}
+					} else {
+						if( result == null ) {
+							result = Frame.box( type, bits );
+						}
+						apply( operators[ i ], result, frame.value( operand.slot ) );
+					}
+				} catch( ArithmeticException e ) {
+					if( operators[ i ] != Constants.OperandType.DIVIDE ) {
+						throw e;
+					}
+					throw new FaultException( "ArithmeticException", e.getLocalizedMessage() )
+						.toRuntimeFaultException();
+				}
+			}
+			if( result == null ) {
+				frame.types[ slot ] = type;
+				frame.bits[ slot ] = bits;
+				frame.values[ slot ] = null;
+			} else {
+				frame.load( slot, result );
+			}
+		}
+
+		private static double apply( Constants.OperandType operator, double l, double r ) {
+			switch( operator ) {
+			case MULTIPLY:
+				return l * r;
+			case DIVIDE:
+				return l / r;
+			default:
+				return l % r;
+			}
+		}
+
+		private static long apply( Constants.OperandType operator, long l, long r ) {
+			switch( operator ) {
+			case MULTIPLY:
+				return l * r;
+			case DIVIDE:
+				return l / r;
+			default:
+				return l % r;
+			}
+		}
+
+		private static int apply( Constants.OperandType operator, int l, int r ) {
+			switch( operator ) {
+			case MULTIPLY:
+				return l * r;
+			case DIVIDE:
+				return l / r;
+			default:
+				return l % r;
+			}
+		}
+
+		private static void apply( Constants.OperandType operator, Value l, Value r ) {
+			switch( operator ) {
+			case MULTIPLY:
+				l.multiply( r );
+				break;
+			case DIVIDE:
+				l.divide( r );
+				break;
+			default:
+				l.modulo( r );
+				break;
+			}
+		}
+	}
+
+	/*
+	 * Comparisons between numbers are computed on the unboxed operands, with the semantics of
+	 * CompareOperators. All other comparisons are delegated to the original operator.
+	 */
+	static final class Compare extends CompiledExpression {
+		private static final int EQUAL = 0, NOT_EQUAL = 1, MINOR = 2, MAJOR = 3, MINOR_OR_EQUAL = 4,
+			MAJOR_OR_EQUAL = 5, OTHER = -1;
+
+		private final CompiledExpression left, right;
+		private final BiPredicate< Value, Value > operator;
+		private final int opcode;
+
+		Compare( int slot, CompiledExpression left, CompiledExpression right,
+			BiPredicate< Value, Value > operator ) {
+			super( slot );
+			this.left = left;
+			this.right = right;
+			this.operator = operator;
+			this.opcode = operator == CompareOperators.EQUAL ? EQUAL
+				: operator == CompareOperators.NOT_EQUAL ? NOT_EQUAL
+					: operator == CompareOperators.MINOR ? MINOR
+						: operator == CompareOperators.MAJOR ? MAJOR
+							: operator == CompareOperators.MINOR_OR_EQUAL ? MINOR_OR_EQUAL
+								: operator == CompareOperators.MAJOR_OR_EQUAL ? MAJOR_OR_EQUAL
+									: OTHER;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.setBool( slot, test( frame ) );
+		}
+
+		@Override
+		boolean test( Frame frame ) {
+			left.evaluate( frame );
+			right.evaluate( frame );
+			final byte lt = frame.types[ left.slot ], rt = frame.types[ right.slot ];
+			if( opcode != OTHER && Frame.isNumber( lt ) && Frame.isNumber( rt ) ) {
+				// The right operand is converted to the type of the left one, as in CompareOperators
+				final long lb = frame.bits[ left.slot ], rb = frame.bits[ right.slot ];
+				if( lt == Frame.DOUBLE ) {
+					return compare( opcode, Double.longBitsToDouble( lb ), Frame.toDouble( rt, rb ) );
+				} else if( lt == Frame.LONG ) {
+					return compare( opcode, lb, Frame.toLong( rt, rb ) );
+				} else {
+					return compare( opcode, (int) lb, Frame.toInt( rt, rb ) );
+				}
+			}
+			return operator.test( frame.value( left.slot ), frame.value( right.slot ) );
+		}
+
+		private static boolean compare( int opcode, double l, double r ) {
+			switch( opcode ) {
+			case EQUAL:
+				return l == r;
+			case NOT_EQUAL:
+				return l != r;
+			case MINOR:
+				return l < r;
+			case MAJOR:
+				return l > r;
+			case MINOR_OR_EQUAL:
+				return l <= r;
+			default:
+				return l >= r;
+			}
+		}
+
+		private static boolean compare( int opcode, long l, long r ) {
+			switch( opcode ) {
+			case EQUAL:
+				return l == r;
+			case NOT_EQUAL:
+				return l != r;
+			case MINOR:
+				return l < r;
+			case MAJOR:
+				return l > r;
+			case MINOR_OR_EQUAL:
+				return l <= r;
+			default:
+				return l >= r;
+			}
+		}
+	}
+
+	static final class And extends CompiledExpression {
+		private final CompiledExpression[] children;
+
+		And( int slot, CompiledExpression[] children ) {
+			super( slot );
+			this.children = children;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.setBool( slot, test( frame ) );
+		}
+
+		@Override
+		boolean test( Frame frame ) {
+			for( CompiledExpression child : children ) {
+				if( !child.test( frame ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	static final class Or extends CompiledExpression {
+		private final CompiledExpression[] children;
+
+		Or( int slot, CompiledExpression[] children ) {
+			super( slot );
+			this.children = children;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.setBool( slot, test( frame ) );
+		}
+
+		@Override
+		boolean test( Frame frame ) {
+			for( CompiledExpression child : children ) {
+				if( child.test( frame ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	static final class Not extends CompiledExpression {
+		private final CompiledExpression expression;
+
+		Not( int slot, CompiledExpression expression ) {
+			super( slot );
+			this.expression = expression;
+		}
+
+		@Override
+		void evaluate( Frame frame ) {
+			frame.setBool( slot, test( frame ) );
+		}
+
+		@Override
+		boolean test( Frame frame ) {
+			return !expression.test( frame );
+		}
+	}
+}
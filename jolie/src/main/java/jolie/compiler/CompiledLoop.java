@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.compiler;
+
+import jolie.process.Process;
+import jolie.process.TransformationReason;
+import jolie.runtime.ExitingException;
+import jolie.runtime.FaultException;
+
+/**
+ * A loop compiled by a {@link ProcessCompiler}, which replaces the interpreted loop it was compiled
+ * from.
+ */
+public final class CompiledLoop implements Process {
+	private final Process source;
+	private final CompiledProcess.Loop loop;
+	private final int frameSize;
+
+	CompiledLoop( Process source, CompiledProcess.Loop loop, int frameSize ) {
+		this.source = source;
+		this.loop = loop;
+		this.frameSize = frameSize;
+	}
+
+	@Override
+	public void run()
+		throws FaultException, ExitingException {
+		loop.run( new Frame( frameSize ) );
+	}
+
+	/**
+	 * Continues an execution of the source loop that has been started by the interpreter, from the
+	 * evaluation of the loop condition.
+	 */
+	public void resume()
+		throws FaultException, ExitingException {
+		loop.resume( new Frame( frameSize ) );
+	}
+
+	@Override
+	public Process copy( TransformationReason reason ) {
+		return source.copy( reason );
+	}
+
+	@Override
+	public boolean isKillable() {
+		return true;
+	}
+}
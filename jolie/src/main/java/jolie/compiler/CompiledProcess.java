@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.compiler;
+
+import jolie.process.Process;
+import jolie.runtime.ExitingException;
+import jolie.runtime.FaultException;
+import jolie.runtime.VariablePath;
+
+/**
+ * A process compiled for execution over a {@link Frame}.
+ */
+abstract class CompiledProcess {
+	final boolean killable;
+
+	CompiledProcess( boolean killable ) {
+		this.killable = killable;
+	}
+
+	abstract void run( Frame frame )
+		throws FaultException, ExitingException;
+
+	static final class Interpreted extends CompiledProcess {
+		private final Process process;
+
+		Interpreted( Process process ) {
+			super( process.isKillable() );
+			this.process = process;
+		}
+
+		@Override
+		void run( Frame frame )
+			throws FaultException, ExitingException {
+			process.run();
+		}
+	}
+
+	static final class Sequence extends CompiledProcess {
+		private final CompiledProcess[] children;
+
+		Sequence( CompiledProcess[] children ) {
+			super( children[ 0 ].killable );
+			this.children = children;
+		}
+
+		@Override
+		void run( Frame frame )
+			throws FaultException, ExitingException {
+			for( CompiledProcess child : children ) {
+				if( frame.thread.isKilled() && child.killable ) {
+					return;
+				}
+				child.run( frame );
+			}
+		}
+	}
+
+	static final class If extends CompiledProcess {
+		private final CompiledExpression[] conditions;
+		private final CompiledProcess[] processes;
+		private final CompiledProcess elseProcess; // May be null
+
+		If( CompiledExpression[] conditions, CompiledProcess[] processes, CompiledProcess elseProcess ) {
+			super( true );
+			this.conditions = conditions;
+			this.processes = processes;
+			this.elseProcess = elseProcess;
+		}
+
+		@Override
+		void run( Frame frame )
+			throws FaultException, ExitingException {
+			if( frame.thread.isKilled() ) {
+				return;
+			}
+			for( int i = 0; i < conditions.length; i++ ) {
+				if( conditions[ i ].test( frame ) ) {
+					processes[ i ].run( frame );
+					return;
+				}
+			}
+			if( elseProcess != null ) {
+				elseProcess.run( frame );
+			}
+		}
+	}
+
+	/**
+	 * A loop, which can also be entered after its initialisation and the check for termination that
+	 * precedes its first iteration.
+	 */
+	abstract static class Loop extends CompiledProcess {
+		Loop() {
+			super( true );
+		}
+
+		@Override
+		final void run( Frame frame )
+			throws FaultException, ExitingException {
+			if( frame.thread.isKilled() ) {
+				return;
+			}
+			init( frame );
+			resume( frame );
+		}
+
+		void init( Frame frame )
+			throws FaultException, ExitingException {}
+
+		abstract void resume( Frame frame )
+			throws FaultException, ExitingException;
+	}
+
+	static final class While extends Loop {
+		private final CompiledExpression condition;
+		private final CompiledProcess process;
+
+		While( CompiledExpression condition, CompiledProcess process ) {
+			this.condition = condition;
+			this.process = process;
+		}
+
+		@Override
+		void resume( Frame frame )
+			throws FaultException, ExitingException {
+			while( condition.test( frame ) ) {
+				process.run( frame );
+				if( frame.thread.isKilled() ) {
+					return;
+				}
+			}
+		}
+	}
+
+	static final class For extends Loop {
+		private final CompiledProcess init, post, process;
+		private final CompiledExpression condition;
+
+		For( CompiledProcess init, CompiledExpression condition, CompiledProcess post, CompiledProcess process ) {
+			this.init = init;
+			this.condition = condition;
+			this.post = post;
+			this.process = process;
+		}
+
+		@Override
+		void init( Frame frame )
+			throws FaultException, ExitingException {
+			init.run( frame );
+		}
+
+		@Override
+		void resume( Frame frame )
+			throws FaultException, ExitingException {
+			while( condition.test( frame ) ) {
+				process.run( frame );
+				if( frame.thread.isKilled() ) {
+					return;
+				}
+				post.run( frame );
+			}
+		}
+	}
+
+	/*
+	 * Assignments store unboxed results directly in the scalar of the target value. They do not
+	 * support tracing, so they are only compiled when the tracer is disabled.
+	 */
+	static final class Assignment extends CompiledProcess {
+		private final VariablePath path;
+		private final CompiledExpression expression;
+
+		Assignment( VariablePath path, CompiledExpression expression ) {
+			super( true );
+			this.path = path;
+			this.expression = expression;
+		}
+
+		@Override
+		void run( Frame frame ) {
+			if( frame.thread.isKilled() ) {
+				return;
+			}
+			expression.evaluate( frame );
+			frame.assignTo( expression.slot, path.getValue() );
+		}
+	}
+
+	static final class AddAssignment extends CompiledProcess {
+		private final VariablePath path;
+		private final CompiledExpression expression;
+		private final boolean subtract;
+
+		AddAssignment( VariablePath path, CompiledExpression expression, boolean subtract ) {
+			super( true );
+			this.path = path;
+			this.expression = expression;
+			this.subtract = subtract;
+		}
+
+		@Override
+		void run( Frame frame ) {
+			if( frame.thread.isKilled() ) {
+				return;
+			}
+			expression.evaluate( frame );
+			if( subtract ) {
+				path.getValue().subtract( frame.value( expression.slot ) );
+			} else {
+				path.getValue().add( frame.value( expression.slot ) );
+			}
+		}
+	}
+}
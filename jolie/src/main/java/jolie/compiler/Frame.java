@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.compiler;
+
+import jolie.ExecutionThread;
+import jolie.runtime.Value;
+
+/**
+ * The working memory of a run of a compiled process. Every compiled expression writes its result in
+ * its own slot of the frame: numbers and bools are stored unboxed in bits, tagged by their type,
+ * while other results are stored as values.
+ */
+final class Frame {
+	static final byte OBJECT = 0;
+	static final byte INT = 1;
+	static final byte LONG = 2;
+	static final byte DOUBLE = 3;
+	static final byte BOOL = 4;
+
+	final ExecutionThread thread;
+	final byte[] types;
+	final long[] bits;
+	final Value[] values; // The value of a slot, or null if it has not been boxed
+
+	Frame( int size ) {
+		this.thread = ExecutionThread.currentThread();
+		this.types = new byte[ size ];
+		this.bits = new long[ size ];
+		this.values = new Value[ size ];
+	}
+
+	static boolean isNumber( byte type ) {
+		return type == INT || type == LONG || type == DOUBLE;
+	}
+
+	void setInt( int slot, int i ) {
+		types[ slot ] = INT;
+		bits[ slot ] = i;
+		values[ slot ] = null;
+	}
+
+	void setLong( int slot, long l ) {
+		types[ slot ] = LONG;
+		bits[ slot ] = l;
+		values[ slot ] = null;
+	}
+
+	void setDouble( int slot, double d ) {
+		types[ slot ] = DOUBLE;
+		bits[ slot ] = Double.doubleToRawLongBits( d );
+		values[ slot ] = null;
+	}
+
+	void setBool( int slot, boolean b ) {
+		types[ slot ] = BOOL;
+		bits[ slot ] = b ? 1L : 0L;
+		values[ slot ] = null;
+	}
+
+	/**
+	 * Stores value in slot, unboxing its scalar if it is a number or a bool.
+	 */
+	void load( int slot, Value value ) {
+		if( value.isInt() ) {
+			types[ slot ] = INT;
+			bits[ slot ] = value.intValue();
+		} else if( value.isLong() ) {
+			types[ slot ] = LONG;
+			bits[ slot ] = value.longValue();
+		} else if( value.isDouble() ) {
+			types[ slot ] = DOUBLE;
+			bits[ slot ] = Double.doubleToRawLongBits( value.doubleValue() );
+		} else if( value.isBool() ) {
+			types[ slot ] = BOOL;
+			bits[ slot ] = value.boolValue() ? 1L : 0L;
+		} else {
+			types[ slot ] = OBJECT;
+		}
+		values[ slot ] = value;
+	}
+
+	/**
+	 * Returns the content of slot as a value, boxing it if necessary.
+	 */
+	Value value( int slot ) {
+		Value value = values[ slot ];
+		if( value == null ) {
+			value = box( types[ slot ], bits[ slot ] );
+			values[ slot ] = value;
+		}
+		return value;
+	}
+
+	static Value box( byte type, long bits ) {
+		switch( type ) {
+		case INT:
+			return Value.create( (int) bits );
+		case LONG:
+			return Value.create( bits );
+		case DOUBLE:
+			return Value.create( Double.longBitsToDouble( bits ) );
+		case BOOL:
+			return Value.create( bits != 0L );
+		default:
+			return Value.create();
+		}
+	}
+
+	boolean boolValue( int slot ) {
+		final long b = bits[ slot ];
+		switch( types[ slot ] ) {
+		case BOOL:
+			return b != 0L;
+		case INT:
+		case LONG:
+			return b > 0;
+		case DOUBLE:
+			return (long) Double.longBitsToDouble( b ) > 0;
+		default:
+			return values[ slot ].boolValue();
+		}
+	}
+
+	/**
+	 * Assigns the content of slot to the scalar of target.
+	 */
+	void assignTo( int slot, Value target ) {
+		final long b = bits[ slot ];
+		switch( types[ slot ] ) {
+		case INT:
+			target.setValue( (int) b );
+			break;
+		case LONG:
+			target.setValue( b );
+			break;
+		case DOUBLE:
+			target.setValue( Double.longBitsToDouble( b ) );
+			break;
+		case BOOL:
+			target.setValue( b != 0L );
+			break;
+		default:
+			target.assignValue( values[ slot ] );
+			break;
+		}
+	}
+
+	// Conversions between numbers, with the semantics of the corresponding methods of Value
+
+	static int toInt( byte type, long bits ) {
+		return type == DOUBLE ? (int) Double.longBitsToDouble( bits ) : (int) bits;
+	}
+
+	static long toLong( byte type, long bits ) {
+		return type == DOUBLE ? (long) Double.longBitsToDouble( bits ) : bits;
+	}
+
+	static double toDouble( byte type, long bits ) {
+		return type == DOUBLE ? Double.longBitsToDouble( bits ) : (double) bits;
+	}
+}
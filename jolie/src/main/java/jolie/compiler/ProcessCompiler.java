@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.compiler;
+
+import jolie.lang.Constants;
+import jolie.process.AddAssignmentProcess;
+import jolie.process.AssignmentProcess;
+import jolie.process.ForProcess;
+import jolie.process.IfProcess;
+import jolie.process.NullProcess;
+import jolie.process.Process;
+import jolie.process.SequentialProcess;
+import jolie.process.SubtractAssignmentProcess;
+import jolie.process.WhileProcess;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+import jolie.runtime.expression.AndCondition;
+import jolie.runtime.expression.CompareCondition;
+import jolie.runtime.expression.Expression;
+import jolie.runtime.expression.NotExpression;
+import jolie.runtime.expression.OrCondition;
+import jolie.runtime.expression.ProductExpression;
+import jolie.runtime.expression.SumExpression;
+
+/**
+ * Compiles hot loops of the interpreter into trees of specialised nodes.
+ *
+ * Loops count their iterations and ask to be compiled once they reach {@link #threshold()}. The
+ * compiled code evaluates numeric and boolean expressions without boxing their intermediate results,
+ * stores unboxed results directly into variables, and caches the execution thread instead of looking
+ * it up at every step. Processes and expressions that are not supported by the compiler are kept
+ * as they are and run by the interpreter.
+ */
+public final class ProcessCompiler {
+	public static final int DEFAULT_THRESHOLD = 1000; // loop iterations
+
+	private final int threshold;
+	private final boolean compileAssignments;
+
+	/**
+	 * @param threshold the number of iterations after which a loop gets compiled
+	 * @param tracing whether the tracer is enabled, in which case assignments are left to the
+	 *        interpreter so that they are traced
+	 */
+	public ProcessCompiler( int threshold, boolean tracing ) {
+		this.threshold = threshold;
+		this.compileAssignments = !tracing;
+	}
+
+	public int threshold() {
+		return threshold;
+	}
+
+	public CompiledLoop compile( WhileProcess process ) {
+		final Compilation c = new Compilation();
+		final CompiledProcess.Loop loop = c.compileWhile( process );
+		return new CompiledLoop( process, loop, c.slots );
+	}
+
+	public CompiledLoop compile( ForProcess process ) {
+		final Compilation c = new Compilation();
+		final CompiledProcess.Loop loop = c.compileFor( process );
+		return new CompiledLoop( process, loop, c.slots );
+	}
+
+	private class Compilation {
+		private int slots = 0;
+
+		private CompiledProcess.Loop compileWhile( WhileProcess process ) {
+			return new CompiledProcess.While(
+				compile( process.condition() ),
+				compile( process.process() ) );
+		}
+
+		private CompiledProcess.Loop compileFor( ForProcess process ) {
+			return new CompiledProcess.For(
+				compile( process.init() ),
+				compile( process.condition() ),
+				compile( process.post() ),
+				compile( process.process() ) );
+		}
+
+		private CompiledProcess compile( Process process ) {
+			if( process instanceof SequentialProcess ) {
+				final Process[] children = ((SequentialProcess) process).children();
+				final CompiledProcess[] compiled = new CompiledProcess[ children.length ];
+				for( int i = 0; i < children.length; i++ ) {
+					compiled[ i ] = compile( children[ i ] );
+				}
+				return new CompiledProcess.Sequence( compiled );
+			} else if( process instanceof WhileProcess ) {
+				return compileWhile( (WhileProcess) process );
+			} else if( process instanceof ForProcess ) {
+				return compileFor( (ForProcess) process );
+			} else if( process instanceof IfProcess ) {
+				final IfProcess.CPPair[] pairs = ((IfProcess) process).pairs();
+				final CompiledExpression[] conditions = new CompiledExpression[ pairs.length ];
+				final CompiledProcess[] processes = new CompiledProcess[ pairs.length ];
+				for( int i = 0; i < pairs.length; i++ ) {
+					conditions[ i ] = compile( pairs[ i ].condition() );
+					processes[ i ] = compile( pairs[ i ].process() );
+				}
+				final Process elseProcess = ((IfProcess) process).elseProcess();
+				return new CompiledProcess.If( conditions, processes,
+					elseProcess == null ? null : compile( elseProcess ) );
+			} else if( process instanceof AssignmentProcess && compileAssignments ) {
+				final AssignmentProcess p = (AssignmentProcess) process;
+				return new CompiledProcess.Assignment( p.varPath(), compile( p.expression() ) );
+			} else if( process instanceof AddAssignmentProcess ) {
+				final AddAssignmentProcess p = (AddAssignmentProcess) process;
+				return new CompiledProcess.AddAssignment( p.varPath(), compile( p.expression() ), false );
+			} else if( process instanceof SubtractAssignmentProcess ) {
+				final SubtractAssignmentProcess p = (SubtractAssignmentProcess) process;
+				return new CompiledProcess.AddAssignment( p.varPath(), compile( p.expression() ), true );
+			} else if( process == null ) {
+				return new CompiledProcess.Interpreted( NullProcess.getInstance() );
+			}
+			return new CompiledProcess.Interpreted( process );
+		}
+
+		private CompiledExpression compile( Expression expression ) {
+			final int slot = slots++;
+			if( expression instanceof Value && !((Value) expression).isLink() ) {
+				return new CompiledExpression.Constant( slot, (Value) expression );
+			} else if( expression instanceof VariablePath ) {
+				return new CompiledExpression.Path( slot, (VariablePath) expression );
+			} else if( expression instanceof SumExpression ) {
+				final Expression.Operand[] operands = ((SumExpression) expression).operands();
+				final CompiledExpression[] compiled = new CompiledExpression[ operands.length ];
+				final boolean[] subtract = new boolean[ operands.length ];
+				for( int i = 0; i < operands.length; i++ ) {
+					compiled[ i ] = compile( operands[ i ].expression() );
+					subtract[ i ] = operands[ i ].type() != Constants.OperandType.ADD;
+				}
+				return new CompiledExpression.Sum( slot, compiled, subtract );
+			} else if( expression instanceof ProductExpression ) {
+				final Expression.Operand[] operands = ((ProductExpression) expression).operands();
+				final CompiledExpression[] compiled = new CompiledExpression[ operands.length ];
+				final Constants.OperandType[] operators = new Constants.OperandType[ operands.length ];
+				for( int i = 0; i < operands.length; i++ ) {
+					compiled[ i ] = compile( operands[ i ].expression() );
+					operators[ i ] = operands[ i ].type();
+				}
+				return new CompiledExpression.Product( slot, compiled, operators );
+			} else if( expression instanceof CompareCondition ) {
+				final CompareCondition c = (CompareCondition) expression;
+				return new CompiledExpression.Compare( slot, compile( c.left() ), compile( c.right() ),
+					c.operator() );
+			} else if( expression instanceof AndCondition ) {
+				return new CompiledExpression.And( slot, compile( ((AndCondition) expression).children() ) );
+			} else if( expression instanceof OrCondition ) {
+				return new CompiledExpression.Or( slot, compile( ((OrCondition) expression).children() ) );
+			} else if( expression instanceof NotExpression ) {
+				return new CompiledExpression.Not( slot, compile( ((NotExpression) expression).expression() ) );
+			}
+			return new CompiledExpression.Interpreted( slot, expression );
+		}
+
+		private CompiledExpression[] compile( Expression[] expressions ) {
+			final CompiledExpression[] compiled = new CompiledExpression[ expressions.length ];
+			for( int i = 0; i < expressions.length; i++ ) {
+				compiled[ i ] = compile( expressions[ i ] );
+			}
+			return compiled;
+		}
+	}
+}
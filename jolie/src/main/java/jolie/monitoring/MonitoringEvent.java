@@ -36,12 +36,17 @@ public class MonitoringEvent implements ValueConverter {
 	private final long memory;
 	private final Value data;
 
+	// How often the memory usage reported by events is sampled
+	private static final long MEMORY_SAMPLING_INTERVAL = 100; // msecs
+	private static volatile long memorySampleTime = 0;
+	private static volatile long memorySample = 0;
+
 	public MonitoringEvent( String type, Value data ) {
-		this(
-			type,
-			System.currentTimeMillis(),
-			Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory(),
-			data );
+		this( type, System.currentTimeMillis(), data );
+	}
+
+	private MonitoringEvent( String type, long timestamp, Value data ) {
+		this( type, timestamp, usedMemory( timestamp ), data );
 	}
 
 	private MonitoringEvent( String type, long timestamp, long memory, Value data ) {
@@ -51,6 +56,15 @@ public class MonitoringEvent implements ValueConverter {
 		this.data = data;
 	}
 
+	private static long usedMemory( long now ) {
+		if( now - memorySampleTime >= MEMORY_SAMPLING_INTERVAL ) {
+			final Runtime runtime = Runtime.getRuntime();
+			memorySample = runtime.totalMemory() - runtime.freeMemory();
+			memorySampleTime = now;
+		}
+		return memorySample;
+	}
+
 	public String type() {
 		return type;
 	}
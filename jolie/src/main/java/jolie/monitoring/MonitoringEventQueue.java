@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free buffer of monitoring events that are delivered in batches by a background
+ * task.
+ *
+ * Producers never block: if the buffer is full, the event is dropped and counted. A single drain
+ * task at a time is scheduled on the given executor when events are available, and it hands them to
+ * the sender in batches of at most {@code maxBatchSize} events, in the order in which they were added.
+ */
+public class MonitoringEventQueue {
+	/**
+	 * Delivers a batch of events to the monitor.
+	 */
+	@FunctionalInterface
+	public interface Sender {
+		/**
+		 * @param events the events to deliver
+		 * @param dropped how many events have been dropped since the previous batch
+		 */
+		void send( List< MonitoringEvent > events, long dropped );
+	}
+
+	// Ring buffer slots, see Dmitry Vyukov's bounded MPMC queue
+	private final AtomicReferenceArray< MonitoringEvent > slots;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong( 0 );
+	private long head = 0; // Only accessed by the drain task
+
+	private final int maxBatchSize;
+	private final Sender sender;
+	private final Executor executor;
+	private final AtomicBoolean draining = new AtomicBoolean( false );
+	private final LongAdder dropped = new LongAdder();
+	private long reportedDropped = 0; // Only accessed by the drain task
+
+	/**
+	 * @param capacity the maximum number of buffered events, rounded up to a power of two
+	 * @param maxBatchSize the maximum number of events delivered at once
+	 * @param sender delivers the batches
+	 * @param executor runs the drain task
+	 */
+	public MonitoringEventQueue( int capacity, int maxBatchSize, Sender sender, Executor executor ) {
+		int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+		this.slots = new AtomicReferenceArray<>( size );
+		this.sequences = new AtomicLongArray( size );
+		for( int i = 0; i < size; i++ ) {
+			sequences.set( i, i );
+		}
+		this.mask = size - 1;
+		this.maxBatchSize = Math.max( 1, maxBatchSize );
+		this.sender = sender;
+		this.executor = executor;
+	}
+
+	/**
+	 * Adds an event to this queue, or drops it if the queue is full.
+	 *
+	 * @param event the event to add
+	 * @return {@code true} if the event has been added, {@code false} if it has been dropped
+	 */
+	public boolean add( MonitoringEvent event ) {
+		if( !offer( event ) ) {
+			dropped.increment();
+			return false;
+		}
+		scheduleDrain();
+		return true;
+	}
+
+	/**
+	 * Returns the total number of events dropped because this queue was full.
+	 */
+	public long droppedEvents() {
+		return dropped.sum();
+	}
+
+	private boolean offer( MonitoringEvent event ) {
+		long position = tail.get();
+		while( true ) {
+			final int index = (int) (position & mask);
+			final long difference = sequences.get( index ) - position;
+			if( difference == 0 ) {
+				if( tail.compareAndSet( position, position + 1 ) ) {
+					slots.set( index, event );
+					sequences.set( index, position + 1 );
+					return true;
+				}
+				position = tail.get();
+			} else if( difference < 0 ) {
+				return false; // Full
+			} else {
+				position = tail.get();
+			}
+		}
+	}
+
+	// Must only be called by the drain task
+	private MonitoringEvent poll() {
+		final int index = (int) (head & mask);
+		if( sequences.get( index ) != head + 1 ) {
+			return null; // Empty, or the producer of this slot has not finished yet
+		}
+		final MonitoringEvent event = slots.get( index );
+		slots.set( index, null );
+		sequences.set( index, head + mask + 1 );
+		head++;
+		return event;
+	}
+
+	private boolean isEmpty() {
+		return sequences.get( (int) (head & mask) ) != head + 1;
+	}
+
+	private void scheduleDrain() {
+		if( draining.compareAndSet( false, true ) ) {
+			executor.execute( this::drain );
+		}
+	}
+
+	private void drain() {
+		do {
+			try {
+				List< MonitoringEvent > batch = new ArrayList<>();
+				MonitoringEvent event;
+				while( (event = poll()) != null ) {
+					batch.add( event );
+					if( batch.size() == maxBatchSize ) {
+						send( batch );
+						batch = new ArrayList<>();
+					}
+				}
+				if( !batch.isEmpty() ) {
+					send( batch );
+				}
+			} finally {
+				draining.set( false );
+			}
+			// Events added after the last poll but before draining was reset would be left behind
+		} while( !isEmpty() && draining.compareAndSet( false, true ) );
+	}
+
+	private void send( List< MonitoringEvent > batch ) {
+		final long totalDropped = dropped.sum();
+		sender.send( batch, totalDropped - reportedDropped );
+		reportedDropped = totalDropped;
+	}
+}
@@ -22,185 +22,188 @@
 package jolie.net;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 
 import jolie.ExecutionThread;
-import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.runtime.FaultException;
-import jolie.runtime.TimeoutHandler;
 import jolie.runtime.Value;
 
 public abstract class AbstractCommChannel extends CommChannel {
 	private static final long RECEIVER_KEEP_ALIVE = 20000; // msecs
 
-	private final Map< Long, CommMessage > pendingResponses = new HashMap<>();
-	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
-	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
+	/*
+	 * Futures of the responses, by request id. The future for an id is created by whichever comes
+	 * first between the request and its response, and removed by the other. A request waiting for its
+	 * response has a future that is not done. If the request stops waiting, it cancels its future,
+	 * which stays here until the response arrives, so that the response is dropped instead of kept.
+	 */
+	private final Map< Long, CompletableFuture< CommMessage > > responses = new ConcurrentHashMap<>();
+	private final Queue< CommMessage > pendingGenericResponses = new ConcurrentLinkedQueue<>();
 	private ResponseReceiver responseReceiver = null;
 	private final Object responseRecvMutex = new Object();
 
-	private static class ResponseContainer {
-		private ResponseContainer() {}
-
-		private CommMessage response = null;
-	}
-
 	@Override
 	public Future< CommMessage > recvResponseFor( CommMessage request )
 		throws IOException {
+		final CompletableFuture< CommMessage > future = new CompletableFuture<>();
+		final CompletableFuture< CommMessage > received = responses.putIfAbsent( request.id(), future );
+		if( received != null ) {
+			responses.remove( request.id(), received );
+			return received;
+		}
+
+		CommMessage genericResponse = pendingGenericResponses.poll();
+		if( genericResponse != null ) {
+			if( responses.remove( request.id(), future ) ) {
+				future.complete( genericResponse );
+				return future;
+			} else {
+				// the response arrived in the meantime
+				pendingGenericResponses.add( genericResponse );
+				return future;
+			}
+		}
+
 		final ExecutionThread ethread = ExecutionThread.currentThread();
-		return CompletableFuture.supplyAsync( () -> {
-			CommMessage response;
-			ResponseContainer monitor = null;
-			synchronized( responseRecvMutex ) {
-				response = pendingResponses.remove( request.id() );
-				if( response == null ) {
-					if( pendingGenericResponses.isEmpty() ) {
-						assert (waiters.containsKey( request.id() ) == false);
-						monitor = new ResponseContainer();
-						waiters.put( request.id(), monitor );
-						// responseRecvMutex.notify();
-					} else {
-						response = pendingGenericResponses.remove( 0 );
-					}
-				}
+		synchronized( responseRecvMutex ) {
+			if( responseReceiver == null ) {
+				responseReceiver = new ResponseReceiver( this, ethread );
+				ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
+			} else {
+				responseRecvMutex.notify();
 			}
-			if( response == null ) {
-				synchronized( responseRecvMutex ) {
-					if( responseReceiver == null ) {
-						responseReceiver = new ResponseReceiver( this, ethread );
-						ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
-					} else {
-						responseReceiver.wakeUp();
-					}
-				}
+		}
+		return future;
+	}
 
-				if( monitor != null ) {
-					synchronized( monitor ) {
-						if( monitor.response == null ) {
-							try {
-								monitor.wait();
-							} catch( InterruptedException e ) {
-								ethread.interpreter().logSevere( e );
-							}
-						}
-						response = monitor.response;
-					}
-				}
+	private boolean hasWaitingRequests() {
+		for( CompletableFuture< CommMessage > future : responses.values() ) {
+			if( !future.isDone() ) {
+				return true;
 			}
-			return response;
-		}, Interpreter.getInstance().commCore().executor() );
+		}
+		return false;
 	}
 
+	/*
+	 * Reads responses from the channel and completes the futures of the requests they are for. It
+	 * stops after RECEIVER_KEEP_ALIVE msecs without waiting requests, if the channel fails, or, once
+	 * no requests are waiting, if the interpreter is shutting down or the receiver is interrupted.
+	 */
 	private static class ResponseReceiver implements Runnable {
 		private final AbstractCommChannel parent;
 		private final ExecutionThread ethread;
-		private boolean keepRun;
-		private TimeoutHandler timeoutHandler;
+		private final Runnable shutdownListener = this::shutdown;
+		private boolean shuttingDown = false; // guarded by parent.responseRecvMutex
 
-		private void timeout() {
-			synchronized( parent.responseRecvMutex ) {
-				if( keepRun == false ) {
-					if( parent.waiters.isEmpty() ) {
-						timeoutHandler = null;
-						parent.responseReceiver = null;
-					} else {
-						keepRun = true;
-					}
-					parent.responseRecvMutex.notify();
-				}
-			}
+		private ResponseReceiver( AbstractCommChannel parent, ExecutionThread ethread ) {
+			this.ethread = ethread;
+			this.parent = parent;
 		}
 
-		private void wakeUp() {
-			// TODO: check race conditions on timeoutHandler, should we sync it?
-			if( timeoutHandler != null ) {
-				timeoutHandler.cancel();
+		private void shutdown() {
+			synchronized( parent.responseRecvMutex ) {
+				shuttingDown = true;
+				parent.responseRecvMutex.notify();
 			}
-			keepRun = true;
-			parent.responseRecvMutex.notify();
 		}
 
-		private void sleep() {
-			final ResponseReceiver receiver = this;
-			timeoutHandler = new TimeoutHandler( RECEIVER_KEEP_ALIVE ) {
-				@Override
-				public void onTimeout() {
-					receiver.timeout();
+		/*
+		 * Waits until there are requests waiting for responses. Returns false if the receiver should stop.
+		 */
+		private boolean awaitRequests() {
+			synchronized( parent.responseRecvMutex ) {
+				final long deadline = System.currentTimeMillis() + RECEIVER_KEEP_ALIVE;
+				long remaining = RECEIVER_KEEP_ALIVE;
+				while( !parent.hasWaitingRequests() ) {
+					if( remaining <= 0 || shuttingDown || ethread.interpreter().exiting() ) {
+						stop();
+						return false;
+					}
+					try {
+						parent.responseRecvMutex.wait( remaining );
+					} catch( InterruptedException e ) {
+						stop();
+						Thread.currentThread().interrupt();
+						return false;
+					}
+					remaining = deadline - System.currentTimeMillis();
 				}
-			};
-			ethread.interpreter().addTimeoutHandler( timeoutHandler );
-			try {
-				keepRun = false;
-				parent.responseRecvMutex.wait();
-			} catch( InterruptedException e ) {
-				Interpreter.getInstance().logSevere( e );
+				return true;
 			}
 		}
 
-		private ResponseReceiver( AbstractCommChannel parent, ExecutionThread ethread ) {
-			this.ethread = ethread;
-			this.parent = parent;
-			this.keepRun = true;
-			this.timeoutHandler = null;
+		/*
+		 * Called with parent.responseRecvMutex held, when no requests are waiting. Drops the cancelled
+		 * futures of requests whose responses never arrived, and responses that were never claimed,
+		 * e.g., duplicates.
+		 */
+		private void stop() {
+			parent.responseReceiver = null;
+			parent.responses.values().removeIf( CompletableFuture::isDone );
 		}
 
 		private void handleGenericMessage( CommMessage response ) {
-			ResponseContainer monitor;
-			if( parent.waiters.isEmpty() ) {
+			if( !completeAnyWaiting( response ) ) {
 				parent.pendingGenericResponses.add( response );
-			} else {
-				Entry< Long, ResponseContainer > entry =
-					parent.waiters.entrySet().iterator().next();
-				monitor = entry.getValue();
-				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
+				// a request may have started waiting in the meantime
+				if( parent.hasWaitingRequests() && parent.pendingGenericResponses.remove( response ) ) {
+					if( !completeAnyWaiting( response ) ) {
+						parent.pendingGenericResponses.add( response );
+					}
+				}
+			}
+		}
+
+		private boolean completeAnyWaiting( CommMessage response ) {
+			for( Map.Entry< Long, CompletableFuture< CommMessage > > entry : parent.responses.entrySet() ) {
+				final CompletableFuture< CommMessage > future = entry.getValue();
+				if( !future.isDone() && parent.responses.remove( entry.getKey(), future ) ) {
+					future.complete( new CommMessage(
 						entry.getKey(),
 						response.operationName(),
 						response.resourcePath(),
 						response.value(),
-						response.fault() );
-					monitor.notify();
+						response.fault() ) );
+					return true;
 				}
 			}
+			return false;
 		}
 
 		private void handleMessage( CommMessage response ) {
-			ResponseContainer monitor;
-			if( (monitor = parent.waiters.remove( response.id() )) == null ) {
-				parent.pendingResponses.put( response.id(), response );
-			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
+			final CompletableFuture< CommMessage > future = new CompletableFuture<>();
+			future.complete( response );
+			final CompletableFuture< CommMessage > waiting = parent.responses.putIfAbsent( response.id(), future );
+			if( waiting != null ) {
+				if( waiting.isCancelled() ) {
+					// The request stopped waiting: drop the late response
+					parent.responses.remove( response.id(), waiting );
+				} else if( !waiting.isDone() ) {
+					parent.responses.remove( response.id(), waiting );
+					waiting.complete( response );
 				}
+				// Otherwise, this duplicates a response that has not been claimed yet: drop it
 			}
 		}
 
 		private void throwIOExceptionFault( IOException e ) {
-			if( parent.waiters.isEmpty() == false ) {
-				ResponseContainer monitor;
-				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
-					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e ) );
-						monitor.notify();
-					}
+			for( Map.Entry< Long, CompletableFuture< CommMessage > > entry : parent.responses.entrySet() ) {
+				final CompletableFuture< CommMessage > future = entry.getValue();
+				if( !future.isDone() && parent.responses.remove( entry.getKey(), future ) ) {
+					future.complete( new CommMessage(
+						entry.getKey(),
+						"",
+						Constants.ROOT_RESOURCE_PATH,
+						Value.create(),
+						new FaultException( "IOException", e ) ) );
 				}
-				parent.waiters.clear();
 			}
 		}
 
@@ -212,26 +215,33 @@ public abstract class AbstractCommChannel extends CommChannel {
 			 */
 			CommChannelHandler.currentThread().setExecutionThread( ethread ); // TODO: this is hacky..
 
-			CommMessage response;
-			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
-					try {
-						response = parent.recv();
-						if( response != null ) {
-							if( response.hasGenericId() ) {
-								handleGenericMessage( response );
-							} else {
-								handleMessage( response );
-							}
-						}
-						if( parent.waiters.isEmpty() ) {
-							sleep();
+			final CommCore commCore = ethread.interpreter().commCore();
+			commCore.addShutdownListener( shutdownListener );
+			try {
+				receive();
+			} finally {
+				commCore.removeShutdownListener( shutdownListener );
+			}
+		}
+
+		private void receive() {
+			while( awaitRequests() ) {
+				try {
+					final CommMessage response = parent.recv();
+					if( response != null ) {
+						if( response.hasGenericId() ) {
+							handleGenericMessage( response );
+						} else {
+							handleMessage( response );
 						}
-					} catch( IOException e ) {
-						throwIOExceptionFault( e );
-						keepRun = false;
+					}
+				} catch( IOException e ) {
+					// Requests arriving from now on start a new receiver
+					synchronized( parent.responseRecvMutex ) {
 						parent.responseReceiver = null;
 					}
+					throwIOExceptionFault( e );
+					return;
 				}
 			}
 		}
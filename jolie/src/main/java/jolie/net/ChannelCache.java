@@ -24,101 +24,194 @@ import jolie.runtime.TimeoutHandler;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * A cache of idle persistent channels, keeping up to a bounded number of channels for each
+ * location and protocol.
+ *
+ * Each endpoint (location and protocol) has its own pool of idle channels, guarded by its own lock,
+ * so that accesses to different endpoints do not contend. When a pool is full, its least recently
+ * used channel is closed. Idle channels are also closed after the persistent connection timeout of
+ * the interpreter.
+ */
 public class ChannelCache {
-	// Location URI -> Protocol name -> Persistent CommChannel object
-	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	public static final int DEFAULT_MAX_IDLE_CHANNELS = 8;
+
+	private static class Endpoint {
+		private final URI location;
+		private final String protocol;
+		private final int hashCode;
 
-	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels ) {
-		protocolChannels.remove( protocol );
-		if( protocolChannels.isEmpty() ) {
-			persistentChannels.remove( location );
+		private Endpoint( URI location, String protocol ) {
+			this.location = location;
+			this.protocol = protocol;
+			this.hashCode = Objects.hash( location, protocol );
 		}
-	}
 
-	private void removePersistentChannel( URI location, String protocol, CommChannel channel ) {
-		if( persistentChannels.containsKey( location ) ) {
-			if( persistentChannels.get( location ).get( protocol ) == channel ) {
-				removePersistentChannel( location, protocol, persistentChannels.get( location ) );
+		@Override
+		public boolean equals( Object obj ) {
+			if( this == obj ) {
+				return true;
+			}
+			if( !(obj instanceof Endpoint) ) {
+				return false;
 			}
+			final Endpoint other = (Endpoint) obj;
+			return location.equals( other.location ) && protocol.equals( other.protocol );
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
 		}
 	}
 
+	// Endpoint -> Idle channels, most recently used first. Each deque is guarded by its own monitor,
+	// and is removed from the map while holding it as soon as it becomes empty.
+	private final Map< Endpoint, Deque< CommChannel > > idleChannels = new ConcurrentHashMap<>();
+	private final int maxIdleChannels;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder opens = new LongAdder();
+
+	public ChannelCache() {
+		this( DEFAULT_MAX_IDLE_CHANNELS );
+	}
+
+	/**
+	 * @param maxIdleChannels the maximum number of idle channels to keep for each location and
+	 *        protocol
+	 */
+	public ChannelCache( int maxIdleChannels ) {
+		this.maxIdleChannels = Math.max( 1, maxIdleChannels );
+	}
+
+	/**
+	 * Returns an idle channel for the given location and protocol, removing it from this cache, or
+	 * <code>null</code> if there is none.
+	 */
 	public CommChannel getPersistentChannel( URI location, String protocol ) {
-		CommChannel ret = null;
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if( protocolChannels != null ) {
-				ret = protocolChannels.get( protocol );
-				if( ret != null ) {
-					if( ret.lock.tryLock() ) {
-						if( ret.isOpen() ) {
-							/*
-							 * We are going to return this channel, but first check if it supports concurrent use. If
-							 * not, then others should not access this until the caller is finished using it.
-							 */
-							// if ( ret.isThreadSafe() == false ) {
-							removePersistentChannel( location, protocol, protocolChannels );
-							// } else {
-							// If we return a channel, make sure it will not timeout!
-							ret.setTimeoutHandler( null );
-							// if ( ret.timeoutHandler() != null ) {
-							// interpreter.removeTimeoutHandler( ret.timeoutHandler() );
-							// ret.setTimeoutHandler( null );
-							// }
-							// }
-							ret.lock.unlock();
-						} else { // Channel is closed
-							removePersistentChannel( location, protocol, protocolChannels );
-							ret.lock.unlock();
-							ret = null;
+		final Endpoint endpoint = new Endpoint( location, protocol );
+		final Deque< CommChannel > channels = idleChannels.get( endpoint );
+		if( channels != null ) {
+			synchronized( channels ) {
+				final Iterator< CommChannel > it = channels.iterator();
+				while( it.hasNext() ) {
+					final CommChannel channel = it.next();
+					if( channel.lock.tryLock() ) {
+						try {
+							it.remove();
+							removeIfEmpty( endpoint, channels );
+							cancelTimeoutHandler( channel );
+							if( channel.isOpen() ) {
+								hits.increment();
+								return channel;
+							}
+						} finally {
+							channel.lock.unlock();
 						}
-					} else { // Channel is busy
-						removePersistentChannel( location, protocol, protocolChannels );
-						ret = null;
-					}
+					} // else the channel is still being released, leave it for others
 				}
 			}
 		}
 
-		return ret;
+		misses.increment();
+		return null;
 	}
 
 	public void putPersistentChannel( URI location, String protocol, final CommChannel channel,
 		Interpreter interpreter ) {
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels =
-				persistentChannels.computeIfAbsent( location, k -> new HashMap<>() );
-			// Set the timeout
-			setTimeoutHandler( channel, location, protocol, interpreter );
-			// Put the protocol in the cache (may overwrite another one)
-			protocolChannels.put( protocol, channel );
-			/*
-			 * if ( protocolChannels.size() <= connectionCacheSize && protocolChannels.containsKey( protocol )
-			 * == false ) { // Set the timeout setTimeoutHandler( channel ); // Put the protocol in the cache
-			 * protocolChannels.put( protocol, channel ); } else { try { if ( protocolChannels.get( protocol )
-			 * != channel ) { channel.close(); } else { setTimeoutHandler( channel ); } } catch( IOException e )
-			 * { interpreter.logWarning( e ); } }
-			 */
+		final Endpoint endpoint = new Endpoint( location, protocol );
+		CommChannel evicted = null;
+		boolean added = false;
+		while( !added ) {
+			final Deque< CommChannel > channels = idleChannels.computeIfAbsent( endpoint, k -> new ArrayDeque<>() );
+			synchronized( channels ) {
+				// The deque may have been emptied and removed before we got its monitor
+				if( idleChannels.get( endpoint ) == channels ) {
+					if( !channels.remove( channel ) && channels.size() >= maxIdleChannels ) {
+						evicted = channels.pollLast();
+						cancelTimeoutHandler( evicted );
+					}
+					// Set the timeout
+					setTimeoutHandler( endpoint, channel, channels, interpreter );
+					channels.addFirst( channel );
+					added = true;
+				}
+			}
+		}
+
+		if( evicted != null ) {
+			try {
+				evicted.close();
+			} catch( IOException e ) {
+				interpreter.logWarning( e );
+			}
 		}
 	}
 
-	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol,
-		Interpreter interpreter ) {
-		/*
-		 * if ( channel.timeoutHandler() != null ) { interpreter.removeTimeoutHandler(
-		 * channel.timeoutHandler() ); }
-		 */
+	/**
+	 * Records that a new channel has been opened because no idle one could be reused.
+	 */
+	public void channelOpened() {
+		opens.increment();
+	}
+
+	/**
+	 * Returns the number of requests served with an idle channel from this cache.
+	 */
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of requests for which this cache had no idle channel.
+	 */
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of channels opened by the users of this cache.
+	 */
+	public long opens() {
+		return opens.sum();
+	}
+
+	// Must be called while holding the monitor of the deque containing the channel.
+	private static void cancelTimeoutHandler( CommChannel channel ) {
+		if( channel.timeoutHandler() != null ) {
+			channel.timeoutHandler().cancel();
+			channel.setTimeoutHandler( null );
+		}
+	}
+
+	// Must be called while holding the monitor of channels.
+	private void removeIfEmpty( Endpoint endpoint, Deque< CommChannel > channels ) {
+		if( channels.isEmpty() ) {
+			idleChannels.remove( endpoint, channels );
+		}
+	}
+
+	private void setTimeoutHandler( final Endpoint endpoint, final CommChannel channel,
+		final Deque< CommChannel > channels, Interpreter interpreter ) {
+		cancelTimeoutHandler( channel );
 
 		final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
 			@Override
 			public void onTimeout() {
 				try {
-					synchronized( persistentChannels ) {
+					synchronized( channels ) {
 						if( channel.timeoutHandler() == this ) {
-							removePersistentChannel( location, protocol, channel );
+							channels.remove( channel );
+							removeIfEmpty( endpoint, channels );
 							channel.close();
 							channel.setTimeoutHandler( null );
 						}
@@ -46,6 +46,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -99,12 +100,12 @@ public class CommCore {
 		this.connectionsLimit = connectionsLimit;
 		// this.connectionCacheSize = connectionsCacheSize;
 		this.threadGroup = new ThreadGroup( "CommCore-" + interpreter.hashCode() );
-		/*
-		 * if ( connectionsLimit > 0 ) { executorService = Executors.newFixedThreadPool( connectionsLimit,
-		 * new CommThreadFactory() ); } else { executorService = Executors.newCachedThreadPool( new
-		 * CommThreadFactory() ); }
-		 */
 		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		if( connectionsLimit > 0 ) {
+			receiveExecutorService = new JolieThreadPoolExecutor( new CommThreadFactory(), connectionsLimit );
+		} else {
+			receiveExecutorService = executorService;
+		}
 
 		// TODO make socket an extension, too?
 		CommListenerFactory listenerFactory = new SocketListenerFactory( this );
@@ -295,6 +296,17 @@ public class CommCore {
 	}
 
 	private final ExecutorService executorService;
+	/*
+	 * Runs the handlers of incoming messages. Bounded by connectionsLimit, if set. Other tasks, like
+	 * waiting for responses, keep using executorService: they may block until some incoming message
+	 * is handled.
+	 *
+	 * Receives beyond the limit wait in the queue of the executor instead of blocking the submitter,
+	 * which may be a selector thread or a receive handler re-registering its channel. A socket channel
+	 * waiting there is not registered for selection, so its data stays in the socket and TCP flow
+	 * control slows down the sender.
+	 */
+	private final ExecutorService receiveExecutorService;
 
 	private final static class CommThreadFactory implements ThreadFactory {
 		@Override
@@ -518,7 +530,7 @@ public class CommCore {
 	 * @param port the <code>Port</code> responsible for the message receiving
 	 */
 	public void scheduleReceive( CommChannel channel, InputPort port ) {
-		executorService.execute( new CommChannelHandlerRunnable( channel, port ) );
+		receiveExecutorService.execute( new CommChannelHandlerRunnable( channel, port ) );
 	}
 
 	protected void startCommChannelHandler( Runnable r ) {
@@ -559,6 +571,7 @@ public class CommCore {
 	}
 
 	private class PollingThread extends Thread {
+		private static final long POLLING_INTERVAL = 50; // msecs
 		private final Set< CommChannel > channels = new HashSet<>();
 
 		private PollingThread() {
@@ -571,13 +584,6 @@ public class CommCore {
 			CommChannel channel;
 			while( active ) {
 				synchronized( this ) {
-					if( channels.isEmpty() ) {
-						// Do not busy-wait for no reason
-						try {
-							this.wait();
-						} catch( InterruptedException e ) {
-						}
-					}
 					it = channels.iterator();
 					while( it.hasNext() ) {
 						channel = it.next();
@@ -590,10 +596,16 @@ public class CommCore {
 							e.printStackTrace();
 						}
 					}
-				}
-				try {
-					Thread.sleep( 50 ); // msecs
-				} catch( InterruptedException e ) {
+					try {
+						if( channels.isEmpty() ) {
+							// Do not busy-wait for no reason
+							this.wait();
+						} else {
+							// Woken up earlier if a new channel registers
+							this.wait( POLLING_INTERVAL );
+						}
+					} catch( InterruptedException e ) {
+					}
 				}
 			}
 
@@ -615,9 +627,7 @@ public class CommCore {
 
 			synchronized( this ) {
 				channels.add( channel );
-				if( channels.size() == 1 ) { // set was empty
-					this.notify();
-				}
+				this.notify();
 			}
 		}
 	}
@@ -633,7 +643,56 @@ public class CommCore {
 	 */
 	public void registerForPolling( CommChannel channel )
 		throws IOException {
-		pollingThread().register( channel );
+		if( channel instanceof PollableCommChannel && ((PollableCommChannel) channel).signalsReadiness() ) {
+			final boolean isReady;
+			synchronized( readinessWaiters ) {
+				isReady = ((PollableCommChannel) channel).isReady();
+				if( !isReady ) {
+					readinessWaiters.add( channel );
+				}
+			}
+			// Schedule outside of the lock, which only guards the readiness check
+			if( isReady ) {
+				scheduleReceive( channel, channel.parentInputPort() );
+			}
+		} else {
+			pollingThread().register( channel );
+		}
+	}
+
+	// Channels registered for polling that signal their own readiness, so they need not be polled
+	private final Set< CommChannel > readinessWaiters = new HashSet<>();
+
+	/*
+	 * Invoked when shutting down, to wake up tasks that would otherwise keep waiting for work, e.g.,
+	 * idle response receivers.
+	 */
+	private final Set< Runnable > shutdownListeners = ConcurrentHashMap.newKeySet();
+
+	protected void addShutdownListener( Runnable listener ) {
+		shutdownListeners.add( listener );
+	}
+
+	protected void removeShutdownListener( Runnable listener ) {
+		shutdownListeners.remove( listener );
+	}
+
+	/**
+	 * Signals that a <code>CommChannel</code> may have become ready for receiving an input message.
+	 * If the channel has been registered for polling, the receiving of its message is scheduled
+	 * immediately. Otherwise, this method does nothing.
+	 *
+	 * @param channel the channel that may have become ready
+	 * @see PollableCommChannel#signalsReadiness()
+	 */
+	public void signalReady( CommChannel channel ) {
+		final boolean wasWaiting;
+		synchronized( readinessWaiters ) {
+			wasWaiting = readinessWaiters.remove( channel );
+		}
+		if( wasWaiting ) {
+			scheduleReceive( channel, channel.parentInputPort() );
+		}
 	}
 
 	private class SelectorThread extends NativeJolieThread {
@@ -820,6 +879,9 @@ public class CommCore {
 		if( active ) {
 			active = false;
 			listenersMap.entrySet().forEach( ( entry ) -> entry.getValue().shutdown() );
+			synchronized( readinessWaiters ) {
+				readinessWaiters.clear();
+			}
 
 			try {
 				for( SelectorThread t : selectorThreads() ) {
@@ -837,8 +899,12 @@ public class CommCore {
 				channelHandlersLock.writeLock().tryLock( CHANNEL_HANDLER_TIMEOUT, TimeUnit.SECONDS );
 			} catch( InterruptedException e ) {
 			}
+			shutdownListeners.forEach( Runnable::run );
+			receiveExecutorService.shutdown();
 			executorService.shutdown();
 			try {
+				receiveExecutorService.awaitTermination( interpreter.persistentConnectionTimeout(),
+					TimeUnit.MILLISECONDS );
 				executorService.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
 			} catch( InterruptedException e ) {
 			}
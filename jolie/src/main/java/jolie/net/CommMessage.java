@@ -118,6 +118,21 @@ public class CommMessage implements Serializable {
 		return new CommMessage( getNewMessageId(), operationName, resourcePath, Value.createDeepCopy( value ), null );
 	}
 
+	/**
+	 * Creates a request message whose data is a lazy copy of the passed value, which is shared with
+	 * the message until either of them is accessed. See {@link Value#createLazyCopy(Value)} for the
+	 * conditions under which this is safe, e.g., when value is a variable or the result of an
+	 * expression.
+	 * 
+	 * @param operationName the name of the operation this request is meant for
+	 * @param resourcePath the resource path of this message
+	 * @param value the message data
+	 * @return a request message as per specified by the parameters
+	 */
+	public static CommMessage createLazyRequest( String operationName, String resourcePath, Value value ) {
+		return new CommMessage( getNewMessageId(), operationName, resourcePath, Value.createLazyCopy( value ), null );
+	}
+
 	/**
 	 * Creates an empty (i.e. without data) response for the passed request.
 	 * 
@@ -140,6 +155,19 @@ public class CommMessage implements Serializable {
 		return new CommMessage( request.id, request.operationName, "/", Value.createDeepCopy( value ), null );
 	}
 
+	/**
+	 * Creates a response for the passed request, whose data is a lazy copy of the passed value. See
+	 * {@link #createLazyRequest(String, String, Value)}.
+	 * 
+	 * @param request the request message that caused this response
+	 * @param value the data to equip the response with
+	 * @return a response for the passed request
+	 */
+	public static CommMessage createLazyResponse( CommMessage request, Value value ) {
+		// TODO support resourcePath
+		return new CommMessage( request.id, request.operationName, "/", Value.createLazyCopy( value ), null );
+	}
+
 	/**
 	 * Creates a response message equipped with the passed fault.
 	 * 
@@ -107,6 +107,7 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		CompletableFuture f = new CompletableFuture<>();
 		responseWaiters.put( message.id(), f );
 		interpreter.commCore().scheduleReceive( new CoLocalCommChannel( message, f ), listener.inputPort() );
+		interpreter.commCore().signalReady( this );
 	}
 
 	@Override
@@ -120,10 +121,15 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		return responseWaiters.isEmpty() == false;
 	}
 
+	@Override
+	public boolean signalsReadiness() {
+		return true;
+	}
+
 	@Override
 	protected void disposeForInputImpl()
 		throws IOException {
-		Interpreter.getInstance().commCore().registerForPolling( this );
+		interpreter.commCore().registerForPolling( this );
 	}
 
 	@Override
@@ -42,4 +42,15 @@ public interface PollableCommChannel {
 	 */
 	boolean isReady()
 		throws IOException;
+
+	/**
+	 * Returns <code>true</code> if this channel calls {@link CommCore#signalReady(CommChannel)}
+	 * whenever it may have become ready for receiving an input message. Such channels are not
+	 * periodically polled by <code>CommCore</code>.
+	 *
+	 * @return <code>true</code> if this channel signals its own readiness, <code>false</code> otherwise
+	 */
+	default boolean signalsReadiness() {
+		return false;
+	}
 }
@@ -224,12 +224,14 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 			if( forceNew ) {
 				// A fresh channel was requested
 				ret = interpreter.commCore().createCommChannel( uri, this );
+				channelCache.channelOpened();
 			} else {
 				// Try reusing an existing channel first
 				String protocol = protocolVariablePath.getValue().strValue();
 				ret = channelCache.getPersistentChannel( uri, protocol );
 				if( ret == null ) {
 					ret = interpreter.commCore().createCommChannel( uri, this );
+					channelCache.channelOpened();
 				}
 			}
 		}
@@ -242,6 +244,15 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		channelCache.putPersistentChannel( location, protocol, channel, interpreter );
 	}
 
+	/**
+	 * Returns the cache of persistent channels of this output port.
+	 *
+	 * @return the cache of persistent channels of this output port
+	 */
+	public ChannelCache channelCache() {
+		return channelCache;
+	}
+
 	private static class LazyLocalUriHolder {
 		private LazyLocalUriHolder() {}
 
@@ -50,6 +50,14 @@ public class AddAssignmentProcess implements Process, Expression {
 		this.expression = expression;
 	}
 
+	public VariablePath varPath() {
+		return varPath;
+	}
+
+	public Expression expression() {
+		return expression;
+	}
+
 	public Process copy( TransformationReason reason ) {
 		return new AddAssignmentProcess(
 			(VariablePath) varPath.cloneExpression( reason ),
@@ -54,6 +54,14 @@ public class AssignmentProcess implements Process, Expression {
 		this.context = context;
 	}
 
+	public VariablePath varPath() {
+		return varPath;
+	}
+
+	public Expression expression() {
+		return expression;
+	}
+
 	public Process copy( TransformationReason reason ) {
 		return new AssignmentProcess(
 			(VariablePath) varPath.cloneExpression( reason ),
@@ -19,11 +19,14 @@
 
 package jolie.process;
 
+import java.util.Arrays;
+
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.VariablePath;
+import jolie.runtime.expression.Expression;
 import jolie.util.Pair;
 
 public class ForEachArrayItemProcess implements Process {
@@ -51,12 +54,14 @@ public class ForEachArrayItemProcess implements Process {
 		final ValueVector targetVector = targetPath.getValueVectorOrNull();
 		if( targetVector != null ) {
 			int size = targetVector.size();
-			VariablePath target = targetPath.copy();
-			int length = target.path().length;
+			final Pair< Expression, Expression >[] path = targetPath.path();
+			final int last = path.length - 1;
 
 			for( int i = 0; i < size; i++ ) {
-				target.path()[ length - 1 ] = new Pair<>( target.path()[ length - 1 ].key(), Value.create( i ) );
-				keyPath.makePointer( target );
+				// Paths resolve their constant elements when created, so each item gets its own path
+				final Pair< Expression, Expression >[] itemPath = Arrays.copyOf( path, path.length );
+				itemPath[ last ] = new Pair<>( path[ last ].key(), Value.create( i ) );
+				keyPath.makePointer( new VariablePath( itemPath ) );
 				process.run();
 			}
 		}
@@ -20,6 +20,8 @@
 package jolie.process;
 
 import jolie.ExecutionThread;
+import jolie.compiler.CompiledLoop;
+import jolie.compiler.ProcessCompiler;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
@@ -27,12 +29,41 @@ import jolie.runtime.expression.Expression;
 public final class ForProcess implements Process {
 	private final Expression condition;
 	private final Process init, post, process;
+	private final ProcessCompiler compiler; // null if compilation is disabled
+	// Iterations run by the interpreter, counted across all executions of this loop to decide when to
+	// compile it. The count is approximate: threads update it without synchronisation, so that the
+	// interpreted loop does not pay for it, and a lost update only delays compilation a little. It
+	// is not used anymore once the loop has been compiled.
+	private int iterations = 0;
+	private volatile CompiledLoop compiled = null;
 
 	public ForProcess( Process init, Expression condition, Process post, Process process ) {
+		this( init, condition, post, process, null );
+	}
+
+	public ForProcess( Process init, Expression condition, Process post, Process process,
+		ProcessCompiler compiler ) {
 		this.init = init;
 		this.condition = condition;
 		this.post = post;
 		this.process = process;
+		this.compiler = compiler;
+	}
+
+	public Process init() {
+		return init;
+	}
+
+	public Expression condition() {
+		return condition;
+	}
+
+	public Process post() {
+		return post;
+	}
+
+	public Process process() {
+		return process;
 	}
 
 	@Override
@@ -41,12 +72,18 @@ public final class ForProcess implements Process {
 			init.copy( reason ),
 			condition.cloneExpression( reason ),
 			post.copy( reason ),
-			process.copy( reason ) );
+			process.copy( reason ),
+			compiler );
 	}
 
 	@Override
 	public void run()
 		throws FaultException, ExitingException {
+		final CompiledLoop c = compiled;
+		if( c != null ) {
+			c.run();
+			return;
+		}
 		final ExecutionThread ethread = ExecutionThread.currentThread();
 		if( ethread.isKilled() ) {
 			return;
@@ -58,7 +95,21 @@ public final class ForProcess implements Process {
 			if( ethread.isKilled() )
 				return;
 			post.run();
+			if( compiler != null && ++iterations >= compiler.threshold() ) {
+				// Continue this execution with the compiled loop
+				compiledLoop().resume();
+				return;
+			}
+		}
+	}
+
+	private CompiledLoop compiledLoop() {
+		CompiledLoop c = compiled;
+		if( c == null ) {
+			c = compiler.compile( this );
+			compiled = c;
 		}
+		return c;
 	}
 
 	@Override
@@ -51,6 +51,14 @@ public final class IfProcess implements Process {
 		this.elseProcess = elseProcess;
 	}
 
+	public CPPair[] pairs() {
+		return pairs;
+	}
+
+	public Process elseProcess() {
+		return elseProcess;
+	}
+
 	@Override
 	public Process copy( TransformationReason reason ) {
 		CPPair[] pairsCopy = new CPPair[ pairs.length ];
@@ -90,8 +90,8 @@ public class NotificationProcess implements Process {
 		try {
 			CommMessage message =
 				(outputExpression == null)
-					? CommMessage.createRequest( operationId, outputPort.getResourcePath(), Value.UNDEFINED_VALUE )
-					: CommMessage.createRequest( operationId, outputPort.getResourcePath(),
+					? CommMessage.createLazyRequest( operationId, outputPort.getResourcePath(), Value.UNDEFINED_VALUE )
+					: CommMessage.createLazyRequest( operationId, outputPort.getResourcePath(),
 						outputExpression.evaluate() );
 			if( oneWayDescription != null ) {
 				try {
@@ -201,7 +201,7 @@ public class RequestResponseProcess implements InputOperationProcess {
 					}
 				} else {
 					response =
-						CommMessage.createResponse(
+						CommMessage.createLazyResponse(
 							message,
 							(outputExpression == null) ? Value.UNDEFINED_VALUE : outputExpression.evaluate() );
 					responseStatus = OperationEndedEvent.SUCCESS;
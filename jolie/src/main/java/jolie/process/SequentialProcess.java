@@ -36,6 +36,10 @@ public class SequentialProcess implements Process {
 		this.children = children;
 	}
 
+	public Process[] children() {
+		return children;
+	}
+
 	public Process copy( TransformationReason reason ) {
 		Process[] p = new Process[ children.length ];
 		int i = 0;
@@ -24,6 +24,7 @@ package jolie.process;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -103,7 +104,7 @@ public class SolicitResponseProcess implements Process {
 		try {
 
 			CommMessage message =
-				CommMessage.createRequest(
+				CommMessage.createLazyRequest(
 					operationId,
 					outputPort.getResourcePath(),
 					(outputExpression == null) ? Value.UNDEFINED_VALUE : outputExpression.evaluate() );
@@ -143,11 +144,17 @@ public class SolicitResponseProcess implements Process {
 
 			CommMessage response = null;
 			do {
+				final Future< CommMessage > futureResponse = channel.recvResponseFor( message );
 				try {
-					response = channel.recvResponseFor( message ).get( Interpreter.getInstance().responseTimeout(),
+					response = futureResponse.get( Interpreter.getInstance().responseTimeout(),
 						TimeUnit.MILLISECONDS );
 				} catch( InterruptedException e ) {
+					futureResponse.cancel( false );
 					throw new IOException( e );
+				} catch( TimeoutException e ) {
+					// Let the channel drop the response, should it arrive later
+					futureResponse.cancel( false );
+					throw e;
 				} catch( ExecutionException e ) {
 					if( e.getCause() instanceof IOException ) {
 						throw (IOException) e.getCause();
@@ -30,16 +30,19 @@ public class SpawnProcess implements Process {
 	private final VariablePath indexPath;
 	private final VariablePath inPath; // may be null
 	private final Expression upperBound;
+	private final Expression parallelism; // may be null
 	private final Process process;
 
 	public SpawnProcess(
 		VariablePath indexPath,
 		Expression upperBound,
+		Expression parallelism,
 		VariablePath inPath,
 		Process process ) {
 		this.indexPath = indexPath;
 		this.inPath = inPath;
 		this.upperBound = upperBound;
+		this.parallelism = parallelism;
 		this.process = process;
 	}
 
@@ -47,6 +50,7 @@ public class SpawnProcess implements Process {
 		return new SpawnProcess(
 			(VariablePath) indexPath.cloneExpression( reason ),
 			upperBound.cloneExpression( reason ),
+			(parallelism == null) ? null : parallelism.cloneExpression( reason ),
 			(inPath == null) ? null : (VariablePath) inPath.cloneExpression( reason ),
 			process.copy( reason ) );
 	}
@@ -60,6 +64,14 @@ public class SpawnProcess implements Process {
 		return upperBound;
 	}
 
+	/**
+	 * Returns the maximum number of iterations to run at the same time, or <code>null</code> if all
+	 * iterations may run at the same time.
+	 */
+	public Expression parallelism() {
+		return parallelism;
+	}
+
 	public VariablePath indexPath() {
 		return indexPath;
 	}
@@ -52,6 +52,14 @@ public class SubtractAssignmentProcess implements Process, Expression {
 		this.context = context;
 	}
 
+	public VariablePath varPath() {
+		return varPath;
+	}
+
+	public Expression expression() {
+		return expression;
+	}
+
 	public Process copy( TransformationReason reason ) {
 		return new SubtractAssignmentProcess(
 			(VariablePath) varPath.cloneExpression( reason ),
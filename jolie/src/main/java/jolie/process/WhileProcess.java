@@ -22,6 +22,8 @@
 package jolie.process;
 
 import jolie.ExecutionThread;
+import jolie.compiler.CompiledLoop;
+import jolie.compiler.ProcessCompiler;
 import jolie.runtime.ExitingException;
 import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
@@ -29,20 +31,46 @@ import jolie.runtime.expression.Expression;
 public class WhileProcess implements Process {
 	private final Expression condition;
 	private final Process process;
+	private final ProcessCompiler compiler; // null if compilation is disabled
+	// Iterations run by the interpreter, counted across all executions of this loop to decide when to
+	// compile it. The count is approximate: threads update it without synchronisation, so that the
+	// interpreted loop does not pay for it, and a lost update only delays compilation a little. It
+	// is not used anymore once the loop has been compiled.
+	private int iterations = 0;
+	private volatile CompiledLoop compiled = null;
 
 	public WhileProcess( Expression condition, Process process ) {
+		this( condition, process, null );
+	}
+
+	public WhileProcess( Expression condition, Process process, ProcessCompiler compiler ) {
 		this.condition = condition;
 		this.process = process;
+		this.compiler = compiler;
+	}
+
+	public Expression condition() {
+		return condition;
+	}
+
+	public Process process() {
+		return process;
 	}
 
 	public Process copy( TransformationReason reason ) {
 		return new WhileProcess(
 			condition.cloneExpression( reason ),
-			process.copy( reason ) );
+			process.copy( reason ),
+			compiler );
 	}
 
 	public void run()
 		throws FaultException, ExitingException {
+		final CompiledLoop c = compiled;
+		if( c != null ) {
+			c.run();
+			return;
+		}
 		if( ExecutionThread.currentThread().isKilled() ) {
 			return;
 		}
@@ -51,7 +79,21 @@ public class WhileProcess implements Process {
 			if( ExecutionThread.currentThread().isKilled() ) {
 				return;
 			}
+			if( compiler != null && ++iterations >= compiler.threshold() ) {
+				// Continue this execution with the compiled loop
+				compiledLoop().resume();
+				return;
+			}
+		}
+	}
+
+	private CompiledLoop compiledLoop() {
+		CompiledLoop c = compiled;
+		if( c == null ) {
+			c = compiler.compile( this );
+			compiled = c;
 		}
+		return c;
 	}
 
 	public boolean isKillable() {
@@ -24,15 +24,26 @@ package jolie.runtime;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import jolie.ExecutionThread;
+import jolie.JolieExecutorThread;
 import jolie.TransparentExecutionThread;
 import jolie.process.Process;
 
+/**
+ * Executes processes in parallel. The branches are queued and claimed both by the calling thread,
+ * which runs them inline, and by helper tasks on the executor of the interpreter. A parallel
+ * statement therefore does not keep a thread blocked while there are branches left to start, and
+ * branches that complete quickly are run by whichever thread is free first.
+ */
 public class ParallelExecution {
 	private class ParallelThread extends TransparentExecutionThread {
-		public ParallelThread( Process process ) {
-			super( process, ExecutionThread.currentThread() );
+		public ParallelThread( Process process, ExecutionThread parent ) {
+			super( process, parent );
 		}
 
 		@Override
@@ -53,56 +64,77 @@ public class ParallelExecution {
 	}
 
 	final private Collection< ParallelThread > threads = new HashSet<>();
+	final private Queue< ParallelThread > pending = new ConcurrentLinkedQueue<>();
+	final private ExecutionThread parent;
+	final private int branches;
 	private FaultException fault = null;
 	private boolean isKilled = false;
 
 	public ParallelExecution( Process[] procs ) {
+		parent = ExecutionThread.currentThread();
+		branches = procs.length;
 		for( Process proc : procs ) {
-			threads.add( new ParallelThread( proc ) );
+			final ParallelThread t = new ParallelThread( proc, parent );
+			threads.add( t );
+			pending.add( t );
 		}
 	}
 
 	public void run()
 		throws FaultException {
-		synchronized( this ) {
-			for( ParallelThread t : threads ) {
-				t.start();
+		// Killing the parent kills the branches. The kill is forwarded from a separate task, since
+		// the parent is locked while it is being killed and branches may lock their parent.
+		final CompletableFuture< Void > parentKilled = new CompletableFuture<>();
+		parentKilled.whenComplete( ( r, e ) -> {
+			if( e instanceof CancellationException ) {
+				parent.interpreter().runJolieThread( () -> kill( parent.killerFault() ) );
 			}
+		} );
+		parent.cancelIfKilled( parentKilled );
 
-			ExecutionThread ethread;
-			while( fault == null && !threads.isEmpty() ) {
-				ethread = ExecutionThread.currentThread();
-				try {
-					ethread.setCanBeInterrupted( true );
-					wait();
-					ethread.setCanBeInterrupted( false );
-				} catch( InterruptedException e ) {
-					synchronized( this ) {
-						if( ethread.isKilled() && !threads.isEmpty() ) {
-							isKilled = true;
-							for( ParallelThread t : threads ) {
-								t.kill( ethread.killerFault() );
-							}
-							try {
-								wait();
-							} catch( InterruptedException ie ) {
-							}
-						}
-					}
-				}
+		try {
+			final boolean canRunInline = JolieExecutorThread.currentThread() != null;
+			for( int i = canRunInline ? 1 : 0; i < branches; i++ ) {
+				parent.interpreter().runJolieThread( this::runPending );
+			}
+			if( canRunInline ) {
+				runPending();
 			}
 
-			if( fault != null ) {
-				for( ParallelThread t : threads ) {
-					t.kill( fault );
-				}
+			synchronized( this ) {
 				while( !threads.isEmpty() ) {
 					try {
 						wait();
 					} catch( InterruptedException e ) {
 					}
 				}
-				throw fault;
+
+				if( fault != null ) {
+					throw fault;
+				}
+			}
+		} finally {
+			parentKilled.complete( null );
+		}
+	}
+
+	/*
+	 * Runs queued branches in the calling thread until none are left.
+	 */
+	private void runPending() {
+		ParallelThread t;
+		while( (t = pending.poll()) != null ) {
+			t.runInline();
+		}
+	}
+
+	private void kill( FaultException f ) {
+		synchronized( this ) {
+			if( fault == null && !threads.isEmpty() ) {
+				isKilled = true;
+				for( ParallelThread t : threads ) {
+					t.kill( f );
+				}
 			}
 		}
 	}
@@ -121,18 +153,15 @@ public class ParallelExecution {
 	private void signalFault( ParallelThread thread, FaultException f ) {
 		synchronized( this ) {
 			threads.remove( thread );
-			if( isKilled ) {
-				if( threads.isEmpty() ) {
-					notify();
-				}
-			} else {
-				if( fault == null ) {
-					fault = f;
-					notify();
-				} else if( threads.isEmpty() ) {
-					notify();
+			if( !isKilled && fault == null ) {
+				fault = f;
+				for( ParallelThread t : threads ) {
+					t.kill( f );
 				}
 			}
+			if( threads.isEmpty() ) {
+				notify();
+			}
 		}
 	}
 
@@ -22,17 +22,29 @@
 package jolie.runtime;
 
 
-import java.util.Collection;
-import java.util.HashSet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import jolie.ExecutionThread;
 import jolie.Interpreter;
+import jolie.JolieExecutorThread;
 import jolie.SessionThread;
+import jolie.State;
 import jolie.process.Process;
 import jolie.process.SpawnProcess;
 
+/**
+ * Executes the iterations of a spawn statement. Each iteration runs in its own
+ * {@link SessionThread}, with a copy of the state of the spawning thread as it was when the spawn
+ * statement started.
+ *
+ * Iterations are claimed in chunks by a number of workers equal to the parallelism of the spawn
+ * statement, or to the number of iterations if the statement does not specify it. The spawning
+ * thread is one of the workers, the others are tasks on the executor of the interpreter.
+ */
 public class SpawnExecution {
+	private static final int CHUNKS_PER_WORKER = 4;
+
 	private class SpawnedThread extends SessionThread {
 		private final int index;
 
@@ -40,7 +52,7 @@ public class SpawnExecution {
 			ExecutionThread parentThread,
 			Process process,
 			int index ) {
-			super( process, parentThread );
+			super( process, parentThread, initialState.clone() );
 			this.index = index;
 		}
 
@@ -56,9 +68,13 @@ public class SpawnExecution {
 		}
 	}
 
-	private final Collection< SpawnedThread > threads = new HashSet<>();
 	private final SpawnProcess parentSpawnProcess;
 	private final ExecutionThread ethread;
+	private final AtomicInteger nextIndex = new AtomicInteger( 0 );
+	private State initialState;
+	private int upperBound;
+	private int chunkSize;
+	private Value[] results; // may be null
 	private CountDownLatch latch;
 
 	public SpawnExecution( SpawnProcess parent ) {
@@ -71,21 +87,32 @@ public class SpawnExecution {
 		if( parentSpawnProcess.inPath() != null ) {
 			parentSpawnProcess.inPath().undef();
 		}
-		int upperBound = parentSpawnProcess.upperBound().evaluate().intValue();
+		upperBound = parentSpawnProcess.upperBound().evaluate().intValue();
 		latch = new CountDownLatch( upperBound );
-		SpawnedThread thread;
-
-		for( int i = 0; i < upperBound; i++ ) {
-			thread = new SpawnedThread(
-				ethread,
-				parentSpawnProcess.body(),
-				i );
-			threads.add( thread );
+		if( parentSpawnProcess.inPath() != null ) {
+			// Results are collected apart, so that iterations started later do not copy them
+			results = new Value[ upperBound ];
 		}
-
-		for( SpawnedThread t : threads ) {
-			// We start threads in this other cycle to avoid race conditions on inPath
-			t.start();
+		// Iterations are started lazily, so they copy this snapshot instead of the current state of
+		// the spawning thread, which may be changed meanwhile by parallel branches
+		initialState = ethread.state().clone();
+
+		int workers = upperBound;
+		if( parentSpawnProcess.parallelism() != null ) {
+			final int parallelism = parentSpawnProcess.parallelism().evaluate().intValue();
+			if( parallelism > 0 && parallelism < workers ) {
+				workers = parallelism;
+			}
+		}
+		if( workers > 0 ) {
+			chunkSize = Math.max( 1, upperBound / (workers * CHUNKS_PER_WORKER) );
+			final boolean canRunInline = JolieExecutorThread.currentThread() != null;
+			for( int i = canRunInline ? 1 : 0; i < workers; i++ ) {
+				ethread.interpreter().runJolieThread( this::runIterations );
+			}
+			if( canRunInline ) {
+				runIterations();
+			}
 		}
 
 		try {
@@ -93,16 +120,35 @@ public class SpawnExecution {
 		} catch( InterruptedException e ) {
 			Interpreter.getInstance().logWarning( e );
 		}
+
+		if( results != null ) {
+			final ValueVector vector = parentSpawnProcess.inPath().getValueVector( ethread.state().root() );
+			for( int i = 0; i < results.length; i++ ) {
+				if( results[ i ] != null ) {
+					vector.get( i ).deepCopy( results[ i ] );
+				}
+			}
+		}
 	}
 
-	private void terminationNotify( SpawnedThread thread ) {
-		synchronized( this ) {
-			if( parentSpawnProcess.inPath() != null ) {
-				parentSpawnProcess.inPath().getValueVector( ethread.state().root() ).get( thread.index )
-					.deepCopy( parentSpawnProcess.inPath().getValueVector().first() );
+	/*
+	 * Claims chunks of iterations and runs them in the calling thread until none are left.
+	 */
+	private void runIterations() {
+		int start;
+		while( (start = nextIndex.getAndAdd( chunkSize )) < upperBound ) {
+			final int end = Math.min( start + chunkSize, upperBound );
+			for( int i = start; i < end; i++ ) {
+				new SpawnedThread( ethread, parentSpawnProcess.body(), i ).runInline();
 			}
+		}
+	}
 
-			latch.countDown();
+	private void terminationNotify( SpawnedThread thread ) {
+		if( results != null ) {
+			results[ thread.index ] = parentSpawnProcess.inPath().getValueVector().first();
 		}
+
+		latch.countDown();
 	}
 }
@@ -21,8 +21,6 @@
 
 package jolie.runtime;
 
-import java.lang.ref.WeakReference;
-
 /**
  * @author Fabrizio Montesi
  */
@@ -30,6 +28,12 @@ public abstract class TimeoutHandler implements Runnable {
 	private final long time;
 	private volatile boolean cancelled = false;
 
+	// Managed by TimingWheel
+	volatile TimingWheel wheel = null;
+	TimeoutHandler prev = null, next = null;
+	int bucket = -1;
+	long remainingRounds = 0;
+
 	public TimeoutHandler( long timeout ) {
 		this.time = System.currentTimeMillis() + timeout;
 	}
@@ -40,6 +44,14 @@ public abstract class TimeoutHandler implements Runnable {
 
 	public void cancel() {
 		cancelled = true;
+		final TimingWheel w = wheel;
+		if( w != null ) {
+			w.cancel( this );
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
 	}
 
 	public void run() {
@@ -49,30 +61,4 @@ public abstract class TimeoutHandler implements Runnable {
 	}
 
 	protected abstract void onTimeout();
-
-	/**
-	 * Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	public static class Comparator implements java.util.Comparator< WeakReference< TimeoutHandler > > {
-		@Override
-		public int compare( WeakReference< TimeoutHandler > wt1, WeakReference< TimeoutHandler > wt2 ) {
-			TimeoutHandler t1 = (wt1 != null) ? wt1.get() : null;
-			TimeoutHandler t2 = (wt2 != null) ? wt2.get() : null;
-			if( t1 == null ) {
-				return -1;
-			} else if( t2 == null ) {
-				return 1;
-			}
-
-			// Both are not null after this
-
-			if( t1.time < t2.time ) {
-				return -1;
-			} else if( t1.time == t2.time ) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
-	}
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.runtime;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timing wheel for {@link TimeoutHandler} objects.
+ *
+ * Handlers are hashed into a circular array of buckets by their expiration time. A single worker
+ * thread advances the wheel every tick ({@link #TICK_DURATION} milliseconds by default) and runs
+ * the expired handlers of the current bucket on the given executor. Handlers expiring further than a
+ * full turn of the wheel are kept in their bucket with a count of the remaining turns. Adding and
+ * cancelling a handler take constant time and do not block: both are queued and applied by the
+ * worker thread at its next tick, which is also the only thread accessing the buckets.
+ */
+public class TimingWheel {
+	public static final long TICK_DURATION = 100; // msecs
+	private static final int WHEEL_SIZE = 512;
+
+	private final long tickDuration;
+	private final int wheelMask;
+	private final TimeoutHandler[] buckets;
+	private final Queue< TimeoutHandler > additions = new ConcurrentLinkedQueue<>();
+	private final Queue< TimeoutHandler > cancellations = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger( 0 );
+	private final Executor executor;
+	private final String name;
+	private final long startTime = System.currentTimeMillis();
+	private long tick = 0;
+	private volatile Thread worker = null;
+	private volatile boolean idle = false;
+	private volatile boolean stopped = false;
+	private volatile long lag = 0;
+	private volatile long maxLag = 0;
+
+	/**
+	 * @param name the name of the worker thread of this wheel
+	 * @param executor the executor running the expired handlers
+	 */
+	public TimingWheel( String name, Executor executor ) {
+		this( name, executor, TICK_DURATION, WHEEL_SIZE );
+	}
+
+	/**
+	 * @param name the name of the worker thread of this wheel
+	 * @param executor the executor running the expired handlers
+	 * @param tickDuration the duration of a tick, in milliseconds
+	 * @param wheelSize the number of buckets, which must be a power of two
+	 */
+	TimingWheel( String name, Executor executor, long tickDuration, int wheelSize ) {
+		if( Integer.bitCount( wheelSize ) != 1 ) {
+			throw new IllegalArgumentException( "wheelSize must be a power of two" );
+		}
+		this.name = name;
+		this.executor = executor;
+		this.tickDuration = tickDuration;
+		this.wheelMask = wheelSize - 1;
+		this.buckets = new TimeoutHandler[ wheelSize ];
+	}
+
+	/**
+	 * Schedules a handler to be run when its time comes. Handlers added after this wheel has been
+	 * stopped are ignored.
+	 *
+	 * @param handler the handler to schedule
+	 */
+	public void add( TimeoutHandler handler ) {
+		if( stopped ) {
+			return;
+		}
+		handler.wheel = this;
+		size.incrementAndGet();
+		additions.add( handler );
+		if( idle ) {
+			synchronized( this ) {
+				notify();
+			}
+		}
+		if( worker == null ) {
+			startWorker();
+		}
+	}
+
+	// Called by TimeoutHandler.cancel()
+	void cancel( TimeoutHandler handler ) {
+		cancellations.add( handler );
+	}
+
+	/**
+	 * Returns the number of handlers that are scheduled and have neither expired nor been cancelled
+	 * yet.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	/**
+	 * Returns how many milliseconds late the last tick of this wheel was processed.
+	 */
+	public long lag() {
+		return lag;
+	}
+
+	/**
+	 * Returns the maximum value observed for {@link #lag()}.
+	 */
+	public long maxLag() {
+		return maxLag;
+	}
+
+	/**
+	 * Stops this wheel and runs all its pending handlers, regardless of their time.
+	 */
+	public void stop() {
+		final Thread w;
+		synchronized( this ) {
+			stopped = true;
+			w = worker;
+			notify();
+		}
+		if( w != null ) {
+			w.interrupt();
+			try {
+				w.join();
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		processCancellations();
+		transferAdditions();
+		for( int i = 0; i < buckets.length; i++ ) {
+			TimeoutHandler handler = buckets[ i ];
+			while( handler != null ) {
+				final TimeoutHandler next = handler.next;
+				unlink( handler );
+				size.decrementAndGet();
+				run( handler );
+				handler = next;
+			}
+		}
+	}
+
+	private synchronized void startWorker() {
+		if( worker == null && !stopped ) {
+			worker = new Thread( this::work, name );
+			worker.setDaemon( true );
+			worker.start();
+		}
+	}
+
+	private void work() {
+		while( !stopped ) {
+			if( size.get() == 0 ) {
+				waitForAdditions();
+			}
+
+			final long deadline = startTime + (tick + 1) * tickDuration;
+			long now = System.currentTimeMillis();
+			while( now < deadline && !stopped ) {
+				try {
+					Thread.sleep( deadline - now );
+				} catch( InterruptedException e ) {
+				}
+				now = System.currentTimeMillis();
+			}
+			if( stopped ) {
+				return;
+			}
+
+			lag = now - deadline;
+			if( lag > maxLag ) {
+				maxLag = lag;
+			}
+
+			processCancellations();
+			transferAdditions();
+			expire( (int) (tick & wheelMask) );
+			tick++;
+		}
+	}
+
+	private void waitForAdditions() {
+		synchronized( this ) {
+			idle = true;
+			while( additions.isEmpty() && !stopped ) {
+				try {
+					wait();
+				} catch( InterruptedException e ) {
+				}
+			}
+			idle = false;
+		}
+		// All buckets are empty, so we can skip the ticks we spent waiting
+		cancellations.clear();
+		tick = Math.max( tick, (System.currentTimeMillis() - startTime) / tickDuration );
+	}
+
+	private void processCancellations() {
+		TimeoutHandler handler;
+		while( (handler = cancellations.poll()) != null ) {
+			if( handler.bucket >= 0 ) {
+				unlink( handler );
+				size.decrementAndGet();
+			}
+		}
+	}
+
+	private void transferAdditions() {
+		TimeoutHandler handler;
+		while( (handler = additions.poll()) != null ) {
+			if( handler.isCancelled() ) {
+				size.decrementAndGet();
+				continue;
+			}
+			// Tick t is processed at startTime + (t + 1) * tickDuration, never before the time of its handlers
+			final long expirationTick =
+				Math.max( tick, (handler.time() - startTime + tickDuration - 1) / tickDuration - 1 );
+			handler.remainingRounds = (expirationTick - tick) / buckets.length;
+			link( handler, (int) (expirationTick & wheelMask) );
+		}
+	}
+
+	private void expire( int bucket ) {
+		TimeoutHandler handler = buckets[ bucket ];
+		while( handler != null ) {
+			final TimeoutHandler next = handler.next;
+			if( handler.remainingRounds <= 0 ) {
+				unlink( handler );
+				size.decrementAndGet();
+				run( handler );
+			} else {
+				handler.remainingRounds--;
+			}
+			handler = next;
+		}
+	}
+
+	private void run( TimeoutHandler handler ) {
+		try {
+			executor.execute( handler );
+		} catch( RejectedExecutionException e ) {
+			// The executor has been shut down, run the handler here
+			handler.run();
+		}
+	}
+
+	private void link( TimeoutHandler handler, int bucket ) {
+		handler.bucket = bucket;
+		handler.prev = null;
+		handler.next = buckets[ bucket ];
+		if( handler.next != null ) {
+			handler.next.prev = handler;
+		}
+		buckets[ bucket ] = handler;
+	}
+
+	private void unlink( TimeoutHandler handler ) {
+		if( handler.prev == null ) {
+			buckets[ handler.bucket ] = handler.next;
+		} else {
+			handler.prev.next = handler.next;
+		}
+		if( handler.next != null ) {
+			handler.next.prev = handler.prev;
+		}
+		handler.prev = null;
+		handler.next = null;
+		handler.bucket = -1;
+	}
+}
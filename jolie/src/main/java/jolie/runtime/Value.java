@@ -26,12 +26,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 import jolie.lang.Constants;
@@ -82,6 +85,11 @@ class ValueLink extends Value implements Cloneable {
 		getLinkedValue().setValueObject( object );
 	}
 
+	@Override
+	protected void setScalar( byte type, long bits ) {
+		getLinkedValue().setScalar( type, bits );
+	}
+
 	@Override
 	public void erase() {
 		getLinkedValue().erase();
@@ -122,12 +130,125 @@ class ValueLink extends Value implements Cloneable {
 class ValueImpl extends Value implements Cloneable, Serializable {
 	private static final long serialVersionUID = 1L;
 
+	private static final AtomicIntegerFieldUpdater< ValueImpl > VERSION =
+		AtomicIntegerFieldUpdater.newUpdater( ValueImpl.class, "version" );
+	private static final AtomicIntegerFieldUpdater< ValueImpl > TYPE =
+		AtomicIntegerFieldUpdater.newUpdater( ValueImpl.class, "type" );
+	private static final AtomicLongFieldUpdater< ValueImpl > BITS =
+		AtomicLongFieldUpdater.newUpdater( ValueImpl.class, "bits" );
+	private static final AtomicReferenceFieldUpdater< ValueImpl, Object > VALUE_OBJECT =
+		AtomicReferenceFieldUpdater.newUpdater( ValueImpl.class, Object.class, "valueObject" );
+
+	/*
+	 * The scalar of this value. Primitive scalars (int, long, double, bool) are stored unboxed in
+	 * bits, tagged by type, and valueObject caches their box once one is requested. Other scalars
+	 * have type OBJECT_TYPE and are stored in valueObject.
+	 *
+	 * The fields are guarded by a sequence lock: writers make version odd with a CAS before writing
+	 * and even again afterwards, and readers retry if version was odd or changed while they read.
+	 * Writers store the fields with ordered (lazySet) stores, which are cheaper than volatile ones:
+	 * the volatile store to version at the end of the write publishes them.
+	 * Arithmetic operations compute their result from a snapshot and commit it only if version is
+	 * still the one of the snapshot, so they are atomic without taking a monitor.
+	 */
+	private volatile int version = 0;
+	private volatile int type = OBJECT_TYPE; // One of the *_TYPE bytes
+	private volatile long bits = 0L;
 	private volatile Object valueObject = null;
-	private final AtomicReference< Map< String, ValueVector > > children = new AtomicReference<>();
+	private volatile Map< String, ValueVector > children = null;
+
+	/*
+	 * Lazy copies. A value with sharedChildren has not copied its children yet, and its children are
+	 * the ones in sharedChildren: a frozen map, which is not modified anymore and can hence be shared
+	 * by many values. Each of them copies the map when its children are first requested. The copied
+	 * children share in turn the (frozen) children of the ones in the map, so a tree is copied one
+	 * level at a time, and only where it is accessed.
+	 *
+	 * The fields are written while holding the monitor of this value: children is set before
+	 * sharedChildren is cleared, and sharedChildren is set before children is cleared.
+	 */
+	private transient volatile Map< String, ValueVector > sharedChildren = null;
+
+	// Waits until no write is in progress and returns the current (even) version
+	private int readVersion() {
+		int v = version;
+		while( (v & 1) != 0 ) {
+			Thread.yield();
+			v = version;
+		}
+		return v;
+	}
+
+	// Acquires the write side of the sequence lock and returns the acquired (odd) version
+	private int beginWrite() {
+		while( true ) {
+			final int v = readVersion();
+			if( VERSION.compareAndSet( this, v, v + 1 ) ) {
+				return v + 1;
+			}
+		}
+	}
+
+	private void endWrite( int v ) {
+		version = v + 1;
+		scalarChanged();
+	}
+
+	/**
+	 * Invoked after every change to the scalar of this value.
+	 */
+	protected void scalarChanged() {}
 
 	@Override
 	public void setValueObject( Object object ) {
-		valueObject = object;
+		final int v = beginWrite();
+		setFields( object );
+		endWrite( v );
+	}
+
+	// Must be called while holding the write side of the sequence lock
+	private void setFields( Object object ) {
+		writeFields( typeOf( object ), bitsOf( object ), object );
+	}
+
+	private static byte typeOf( Object object ) {
+		if( object instanceof Integer ) {
+			return INT_TYPE;
+		} else if( object instanceof Long ) {
+			return LONG_TYPE;
+		} else if( object instanceof Double ) {
+			return DOUBLE_TYPE;
+		} else if( object instanceof Boolean ) {
+			return BOOL_TYPE;
+		}
+		return OBJECT_TYPE;
+	}
+
+	private static long bitsOf( Object object ) {
+		if( object instanceof Integer ) {
+			return (Integer) object;
+		} else if( object instanceof Long ) {
+			return (Long) object;
+		} else if( object instanceof Double ) {
+			return Double.doubleToRawLongBits( (Double) object );
+		} else if( object instanceof Boolean ) {
+			return ((Boolean) object) ? 1L : 0L;
+		}
+		return 0L;
+	}
+
+	// Must be called while holding the write side of the sequence lock
+	private void writeFields( byte t, long b, Object o ) {
+		TYPE.lazySet( this, t );
+		BITS.lazySet( this, b );
+		VALUE_OBJECT.lazySet( this, o );
+	}
+
+	@Override
+	protected void setScalar( byte type, long bits ) {
+		final int v = beginWrite();
+		writeFields( type, bits, null );
+		endWrite( v );
 	}
 
 	@Override
@@ -144,8 +265,12 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 	@Override
 	protected void _refCopy( Value value ) {
-		setValueObject( value.valueObject() );
-		this.children.set( value.children() );
+		assignValue( value );
+		final Map< String, ValueVector > c = value.children();
+		synchronized( this ) {
+			this.children = c;
+			sharedChildren = null;
+		}
 	}
 
 	@Override
@@ -155,8 +280,11 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 	@Override
 	public void erase() {
-		valueObject = null;
-		children.set( null );
+		synchronized( this ) {
+			children = null;
+			sharedChildren = null;
+		}
+		setValueObject( null );
 	}
 
 	protected ValueImpl() {}
@@ -168,16 +296,28 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 	@Override
 	public boolean hasChildren() {
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = currentChildren();
 		return (c != null && !c.isEmpty());
 	}
 
 	@Override
 	public boolean hasChildren( String childId ) {
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = currentChildren();
 		return (c != null && c.containsKey( childId ));
 	}
 
+	// Returns the children of this value, which may be shared, without copying them
+	private Map< String, ValueVector > currentChildren() {
+		Map< String, ValueVector > c = children;
+		if( c == null ) {
+			c = sharedChildren;
+			if( c == null ) {
+				c = children;
+			}
+		}
+		return c;
+	}
+
 	@Override
 	protected void _deepCopy( Value value, boolean copyLinks ) {
 		/**
@@ -215,32 +355,490 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 		return children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
-	private final static int INITIAL_CAPACITY = 8;
-	private final static float LOAD_FACTOR = 0.75f;
-
 	@Override
 	public Map< String, ValueVector > children() {
-		// Create the map if not present
-		children.getAndUpdate( v -> v == null ? new ConcurrentHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR ) : v );
-		return children.get();
+		final Map< String, ValueVector > c = children;
+		return (c != null) ? c : initChildren();
+	}
+
+	// Creates the map of children, copying the shared ones if present
+	private synchronized Map< String, ValueVector > initChildren() {
+		if( children == null ) {
+			final Map< String, ValueVector > shared = sharedChildren;
+			children = (shared == null) ? new ValueChildrenMap() : copyShared( shared );
+			sharedChildren = null;
+		}
+		return children;
+	}
+
+	/**
+	 * Makes this new value a lazy copy of source, which behaves like a deep copy but shares the
+	 * children of source until either value accesses them.
+	 */
+	void copyLazily( ValueImpl source ) {
+		assignValue( source );
+		sharedChildren = source.freezeChildren();
+	}
+
+	// Returns the children of this value as a frozen map, or null if there are none
+	private synchronized Map< String, ValueVector > freezeChildren() {
+		Map< String, ValueVector > c = sharedChildren;
+		if( c == null ) {
+			c = children;
+			if( c == null || c.isEmpty() ) {
+				return null;
+			}
+			sharedChildren = c;
+			children = null;
+		}
+		return c;
+	}
+
+	/**
+	 * Returns true if the sub-tree of this value contains links. Frozen children are not visited, since
+	 * trees that contain links are never frozen.
+	 */
+	boolean containsLinks() {
+		final Map< String, ValueVector > c = children;
+		if( c == null ) {
+			return false;
+		}
+		for( ValueVector vec : c.values() ) {
+			if( vec.isLink() ) {
+				return true;
+			}
+			for( Value v : vec ) {
+				if( v.isLink() || (v instanceof ValueImpl && ((ValueImpl) v).containsLinks()) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static Map< String, ValueVector > copyShared( Map< String, ValueVector > shared ) {
+		final Map< String, ValueVector > ret = new ValueChildrenMap();
+		for( Entry< String, ValueVector > entry : shared.entrySet() ) {
+			final boolean isVectorLink = entry.getValue().isLink();
+			final ValueVector vec = ValueVector.create();
+			int i = 0;
+			for( Value v : entry.getValue().valuesCopy() ) {
+				final ValueImpl newValue = (v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl());
+				if( !isVectorLink && v instanceof ValueImpl ) {
+					newValue.copyLazily( (ValueImpl) v );
+				} else {
+					// Not reached for lazy copies, which are only made of trees without links
+					newValue._deepCopy( v, false );
+				}
+				vec.set( i++, newValue );
+			}
+			ret.put( entry.getKey(), vec );
+		}
+		return ret;
+	}
+
+	private void writeObject( ObjectOutputStream out )
+		throws IOException {
+		if( sharedChildren != null ) {
+			initChildren();
+		}
+		out.defaultWriteObject();
 	}
 
 	@Override
 	public Object valueObject() {
-		return valueObject;
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			final Object o = valueObject;
+			if( version == v ) {
+				if( t == OBJECT_TYPE || o != null ) {
+					return o;
+				}
+				// Cache the box, unless the scalar has been changed in the meantime
+				final Object box = box( t, b );
+				if( VERSION.compareAndSet( this, v, v + 1 ) ) {
+					VALUE_OBJECT.lazySet( this, box );
+					version = v + 2;
+				}
+				return box;
+			}
+		}
+	}
+
+	@Override
+	public void assignValue( Value val ) {
+		if( val instanceof ValueImpl && val != this ) {
+			final ValueImpl other = (ValueImpl) val;
+			byte t;
+			long b;
+			Object o;
+			int v;
+			do {
+				v = other.readVersion();
+				t = (byte) other.type;
+				b = other.bits;
+				o = other.valueObject;
+			} while( other.version != v );
+			final int w = beginWrite();
+			writeFields( t, b, o );
+			endWrite( w );
+		} else {
+			super.assignValue( val );
+		}
+	}
+
+	// Returns the type of the scalar as of a moment in which no write was in progress
+	private byte readType() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			if( version == v ) {
+				return t;
+			}
+		}
+	}
+
+	// Returns the object of a non-primitive scalar, or this value if the scalar is primitive
+	private Object readObject() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final Object o = valueObject;
+			if( version == v ) {
+				return t == OBJECT_TYPE ? o : this;
+			}
+		}
+	}
+
+	@Override
+	public boolean isDefined() {
+		return readObject() != null;
+	}
+
+	@Override
+	public boolean isInt() {
+		return readType() == INT_TYPE;
+	}
+
+	@Override
+	public boolean isLong() {
+		return readType() == LONG_TYPE;
+	}
+
+	@Override
+	public boolean isDouble() {
+		return readType() == DOUBLE_TYPE;
+	}
+
+	@Override
+	public boolean isBool() {
+		return readType() == BOOL_TYPE;
+	}
+
+	@Override
+	public boolean isString() {
+		return readObject() instanceof String;
+	}
+
+	@Override
+	public boolean isByteArray() {
+		return readObject() instanceof ByteArray;
+	}
+
+	@Override
+	public int intValue() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			if( version == v ) {
+				return t == OBJECT_TYPE ? super.intValue() : intOf( t, b );
+			}
+		}
+	}
+
+	@Override
+	public long longValue() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			if( version == v ) {
+				return t == OBJECT_TYPE ? super.longValue() : longOf( t, b );
+			}
+		}
+	}
+
+	@Override
+	public double doubleValue() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			if( version == v ) {
+				return t == OBJECT_TYPE ? super.doubleValue() : doubleOf( t, b );
+			}
+		}
+	}
+
+	@Override
+	public boolean boolValue() {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			if( version == v ) {
+				return t == OBJECT_TYPE ? super.boolValue() : boolOf( t, b );
+			}
+		}
+	}
+
+	@Override
+	public void add( Value val ) {
+		update( ADD, val );
+	}
+
+	@Override
+	public void subtract( Value val ) {
+		update( SUBTRACT, val );
+	}
+
+	@Override
+	public void multiply( Value val ) {
+		update( MULTIPLY, val );
+	}
+
+	@Override
+	public void divide( Value val ) {
+		update( DIVIDE, val );
+	}
+
+	@Override
+	public void modulo( Value val ) {
+		update( MODULO, val );
+	}
+
+	private static final int ADD = 0, SUBTRACT = 1, MULTIPLY = 2, DIVIDE = 3, MODULO = 4;
+
+	/*
+	 * Lock-free version of the arithmetic operations of Value, with the same semantics: the result is
+	 * computed from a snapshot of this scalar and committed only if no other write happened meanwhile.
+	 */
+	private void update( int operation, Value val ) {
+		while( true ) {
+			final int v = readVersion();
+			final byte t = (byte) type;
+			final long b = bits;
+			final Object o = valueObject;
+			if( version != v ) {
+				continue;
+			}
+
+			// Snapshot of the scalar of val, which is hence read only once
+			byte vt;
+			long vb;
+			Object vo;
+			if( val == this ) {
+				vt = t;
+				vb = b;
+				vo = o;
+			} else if( val instanceof ValueImpl ) {
+				final ValueImpl other = (ValueImpl) val;
+				int w;
+				do {
+					w = other.readVersion();
+					vt = (byte) other.type;
+					vb = other.bits;
+					vo = other.valueObject;
+				} while( other.version != w );
+			} else {
+				vo = val.valueObject();
+				vt = typeOf( vo );
+				vb = bitsOf( vo );
+			}
+
+			final boolean defined = t != OBJECT_TYPE || o != null;
+			byte rt = OBJECT_TYPE;
+			long rb = 0L;
+			Object ro = null;
+			boolean assign = false; // Assign the scalar of val instead
+			switch( operation ) {
+			case ADD:
+				if( !defined ) {
+					assign = true;
+				} else if( (t == OBJECT_TYPE && o instanceof String) || (vt == OBJECT_TYPE && vo instanceof String) ) {
+					ro = strOf( t, b, o ) + val.strValue();
+				} else if( t == DOUBLE_TYPE || vt == DOUBLE_TYPE ) {
+					rt = DOUBLE_TYPE;
+					rb = Double.doubleToRawLongBits( doubleOf( t, b, o ) + doubleOf( vt, vb, vo ) );
+				} else if( t == LONG_TYPE || vt == LONG_TYPE ) {
+					rt = LONG_TYPE;
+					rb = longOf( t, b, o ) + longOf( vt, vb, vo );
+				} else if( t == INT_TYPE || vt == INT_TYPE ) {
+					rt = INT_TYPE;
+					rb = intOf( t, b, o ) + intOf( vt, vb, vo );
+				} else if( t == BOOL_TYPE || vt == BOOL_TYPE ) {
+					rt = BOOL_TYPE;
+					rb = (boolOf( t, b, o ) || boolOf( vt, vb, vo )) ? 1L : 0L;
+				} else {
+					ro = strOf( t, b, o ) + val.strValue();
+				}
+				break;
+			case SUBTRACT:
+				if( !defined ) {
+					if( vt == DOUBLE_TYPE ) {
+						rt = DOUBLE_TYPE;
+						rb = Double.doubleToRawLongBits( -doubleOf( vt, vb, vo ) );
+					} else if( vt == LONG_TYPE ) {
+						rt = LONG_TYPE;
+						rb = -longOf( vt, vb, vo );
+					} else if( vt == INT_TYPE ) {
+						rt = INT_TYPE;
+						rb = -intOf( vt, vb, vo );
+					} else if( vt == BOOL_TYPE ) {
+						rt = BOOL_TYPE;
+						rb = boolOf( vt, vb, vo ) ? 0L : 1L;
+					} else {
+						assign = true;
+					}
+				} else if( t == DOUBLE_TYPE || vt == DOUBLE_TYPE ) {
+					rt = DOUBLE_TYPE;
+					rb = Double.doubleToRawLongBits( doubleOf( t, b, o ) - doubleOf( vt, vb, vo ) );
+				} else if( t == LONG_TYPE || vt == LONG_TYPE ) {
+					rt = LONG_TYPE;
+					rb = longOf( t, b, o ) - longOf( vt, vb, vo );
+				} else if( t == INT_TYPE || vt == INT_TYPE ) {
+					rt = INT_TYPE;
+					rb = intOf( t, b, o ) - intOf( vt, vb, vo );
+				} else {
+					return;
+				}
+				break;
+			case MULTIPLY:
+				if( !defined ) {
+					rt = INT_TYPE;
+				} else if( t == DOUBLE_TYPE || vt == DOUBLE_TYPE ) {
+					rt = DOUBLE_TYPE;
+					rb = Double.doubleToRawLongBits( doubleOf( t, b, o ) * doubleOf( vt, vb, vo ) );
+				} else if( t == LONG_TYPE || vt == LONG_TYPE ) {
+					rt = LONG_TYPE;
+					rb = longOf( t, b, o ) * longOf( vt, vb, vo );
+				} else if( t == INT_TYPE || vt == INT_TYPE ) {
+					rt = INT_TYPE;
+					rb = intOf( t, b, o ) * intOf( vt, vb, vo );
+				} else if( t == BOOL_TYPE || vt == BOOL_TYPE ) {
+					rt = BOOL_TYPE;
+					rb = (boolOf( t, b, o ) && boolOf( vt, vb, vo )) ? 1L : 0L;
+				} else {
+					return;
+				}
+				break;
+			case DIVIDE:
+				if( !defined ) {
+					rt = INT_TYPE;
+				} else if( t == DOUBLE_TYPE || vt == DOUBLE_TYPE ) {
+					rt = DOUBLE_TYPE;
+					rb = Double.doubleToRawLongBits( doubleOf( t, b, o ) / doubleOf( vt, vb, vo ) );
+				} else if( t == LONG_TYPE || vt == LONG_TYPE ) {
+					rt = LONG_TYPE;
+					rb = longOf( t, b, o ) / longOf( vt, vb, vo );
+				} else if( t == INT_TYPE || vt == INT_TYPE ) {
+					rt = INT_TYPE;
+					rb = intOf( t, b, o ) / intOf( vt, vb, vo );
+				} else {
+					return;
+				}
+				break;
+			case MODULO:
+			default:
+				if( !defined ) {
+					assign = true;
+				} else if( t == DOUBLE_TYPE || vt == DOUBLE_TYPE ) {
+					rt = DOUBLE_TYPE;
+					rb = Double.doubleToRawLongBits( doubleOf( t, b, o ) % doubleOf( vt, vb, vo ) );
+				} else if( t == LONG_TYPE || vt == LONG_TYPE ) {
+					rt = LONG_TYPE;
+					rb = longOf( t, b, o ) % longOf( vt, vb, vo );
+				} else if( t == INT_TYPE || vt == INT_TYPE ) {
+					rt = INT_TYPE;
+					rb = intOf( t, b, o ) % intOf( vt, vb, vo );
+				} else {
+					return;
+				}
+				break;
+			}
+
+			if( assign ) {
+				// The scalar of val is read before taking the write lock, as val may be this value
+				ro = val.valueObject();
+			}
+			if( VERSION.compareAndSet( this, v, v + 1 ) ) {
+				if( assign ) {
+					setFields( ro );
+				} else {
+					writeFields( rt, rb, ro );
+				}
+				endWrite( v + 1 );
+				return;
+			}
+		}
+	}
+
+	private int intOf( byte t, long b, Object o ) {
+		return t == OBJECT_TYPE ? new ValueImpl( o ).intValue() : intOf( t, b );
+	}
+
+	private long longOf( byte t, long b, Object o ) {
+		return t == OBJECT_TYPE ? new ValueImpl( o ).longValue() : longOf( t, b );
+	}
+
+	private double doubleOf( byte t, long b, Object o ) {
+		return t == OBJECT_TYPE ? new ValueImpl( o ).doubleValue() : doubleOf( t, b );
+	}
+
+	private boolean boolOf( byte t, long b, Object o ) {
+		return t == OBJECT_TYPE ? new ValueImpl( o ).boolValue() : boolOf( t, b );
+	}
+
+	private static String strOf( byte t, long b, Object o ) {
+		if( t == OBJECT_TYPE ) {
+			return o == null ? "" : o.toString();
+		}
+		return box( t, b ).toString();
 	}
 
 	protected ValueImpl( Object object ) {
-		valueObject = object;
+		setFields( object );
+	}
+
+	// A new value is not shared yet, so its scalar is initialised without the sequence lock
+	ValueImpl( byte type, long bits ) {
+		writeFields( type, bits, null );
 	}
 
 	public ValueImpl( Value val ) {
-		valueObject = val.valueObject();
+		if( val instanceof ValueImpl ) {
+			final ValueImpl other = (ValueImpl) val;
+			byte t;
+			long b;
+			Object o;
+			int v;
+			do {
+				v = other.readVersion();
+				t = (byte) other.type;
+				b = other.bits;
+				o = other.valueObject;
+			} while( other.version != v );
+			writeFields( t, b, o );
+		} else {
+			setFields( val.valueObject() );
+		}
 	}
 }
 
 
-/** TODO: remove code duplication from ValueImpl */
 class RootValueImpl extends Value implements Cloneable {
 	private final static int INITIAL_CAPACITY = 8;
 	private final static float LOAD_FACTOR = 0.75f;
@@ -337,15 +935,22 @@ class RootValueImpl extends Value implements Cloneable {
 class CSetValue extends ValueImpl {
 	private static final long serialVersionUID = Constants.serialVersionUID();
 
-	// @Override
-	// public void setValueObject( Object object ) {
-	// // CommCore commCore = Interpreter.getInstance().commCore();
-	// // synchronized( commCore.correlationLock() )
-	// // removeFromRadixTree();
-	// super.setValueObject( object );
-	// // addToRadixTree();
-	// // }
-	// }
+	private final transient Runnable updateListener;
+
+	public CSetValue() {
+		this( null );
+	}
+
+	public CSetValue( Runnable updateListener ) {
+		this.updateListener = updateListener;
+	}
+
+	@Override
+	protected void scalarChanged() {
+		if( updateListener != null ) {
+			updateListener.run();
+		}
+	}
 
 	@Override
 	public CSetValue clone() {
@@ -392,6 +997,16 @@ public abstract class Value implements Expression, Cloneable {
 		return new CSetValue();
 	}
 
+	/**
+	 * Creates a correlation value that invokes the given listener every time its content is changed.
+	 * 
+	 * @param updateListener the listener to invoke on updates
+	 * @return the created value
+	 */
+	public static Value createCSetValue( Runnable updateListener ) {
+		return new CSetValue( updateListener );
+	}
+
 	public static Value create( Boolean bool ) {
 		return new ValueImpl( bool );
 	}
@@ -412,6 +1027,26 @@ public abstract class Value implements Expression, Cloneable {
 		return new ValueImpl( d );
 	}
 
+	public static Value create( int i ) {
+		return createScalar( INT_TYPE, i );
+	}
+
+	public static Value create( long l ) {
+		return createScalar( LONG_TYPE, l );
+	}
+
+	public static Value create( double d ) {
+		return createScalar( DOUBLE_TYPE, Double.doubleToRawLongBits( d ) );
+	}
+
+	public static Value create( boolean b ) {
+		return createScalar( BOOL_TYPE, b ? 1L : 0L );
+	}
+
+	private static Value createScalar( byte type, long bits ) {
+		return new ValueImpl( type, bits );
+	}
+
 	public static Value create( ByteArray b ) {
 		return new ValueImpl( b );
 	}
@@ -430,6 +1065,35 @@ public abstract class Value implements Expression, Cloneable {
 		return ret;
 	}
 
+	/**
+	 * Creates a copy of the passed value that is equivalent to {@link #createDeepCopy(Value)}, but
+	 * copies the sub-tree lazily. The sub-tree is frozen and shared by the original value and the copy,
+	 * and each of them copies a level of the sub-tree only when it accesses it, e.g., to read or modify
+	 * a child.
+	 * <p>
+	 * This is safe when the nodes of the sub-tree are only reached from the original value, as it
+	 * happens for variables. Java code that keeps references to inner nodes and modifies them later
+	 * should use {@link #createDeepCopy(Value)} instead.
+	 * <p>
+	 * Sub-trees that contain links are copied eagerly with {@link #createDeepCopy(Value)}, so that the
+	 * copy holds the values pointed by the links when this method is called.
+	 * 
+	 * @param value The value to be copied.
+	 * @return a lazy copy of value
+	 */
+	public static Value createLazyCopy( Value value ) {
+		Value source = value;
+		while( source.isLink() ) {
+			source = source.evaluate();
+		}
+		if( source instanceof ValueImpl && !((ValueImpl) source).containsLinks() ) {
+			final ValueImpl ret = new ValueImpl();
+			ret.copyLazily( (ValueImpl) source );
+			return ret;
+		}
+		return createDeepCopy( value );
+	}
+
 	/**
 	 * Makes this value an identical copy (by value) of the parameter, considering also its sub-tree. In
 	 * case of a sub-link, its pointed Value tree is copied.
@@ -532,6 +1196,78 @@ public abstract class Value implements Expression, Cloneable {
 		setValueObject( object );
 	}
 
+	public final void setValue( int i ) {
+		setScalar( INT_TYPE, i );
+	}
+
+	public final void setValue( long l ) {
+		setScalar( LONG_TYPE, l );
+	}
+
+	public final void setValue( double d ) {
+		setScalar( DOUBLE_TYPE, Double.doubleToRawLongBits( d ) );
+	}
+
+	public final void setValue( boolean b ) {
+		setScalar( BOOL_TYPE, b ? 1L : 0L );
+	}
+
+	/*
+	 * Tags of the scalar types that can be stored without boxing. A scalar of one of these types is
+	 * encoded in a long: ints and longs as themselves, doubles by their raw bits, bools as 0 or 1.
+	 */
+	static final byte OBJECT_TYPE = 0;
+	static final byte INT_TYPE = 1;
+	static final byte LONG_TYPE = 2;
+	static final byte DOUBLE_TYPE = 3;
+	static final byte BOOL_TYPE = 4;
+
+	/**
+	 * Sets the scalar of this value to the primitive encoded by bits.
+	 */
+	protected void setScalar( byte type, long bits ) {
+		setValueObject( box( type, bits ) );
+	}
+
+	static Object box( byte type, long bits ) {
+		switch( type ) {
+		case INT_TYPE:
+			return Integer.valueOf( (int) bits );
+		case LONG_TYPE:
+			return Long.valueOf( bits );
+		case DOUBLE_TYPE:
+			return Double.valueOf( Double.longBitsToDouble( bits ) );
+		case BOOL_TYPE:
+			return Boolean.valueOf( bits != 0L );
+		default:
+			return null;
+		}
+	}
+
+	static int intOf( byte type, long bits ) {
+		return type == DOUBLE_TYPE ? (int) Double.longBitsToDouble( bits ) : (int) bits;
+	}
+
+	static long longOf( byte type, long bits ) {
+		return type == DOUBLE_TYPE ? (long) Double.longBitsToDouble( bits ) : bits;
+	}
+
+	static double doubleOf( byte type, long bits ) {
+		return type == DOUBLE_TYPE ? Double.longBitsToDouble( bits ) : (double) bits;
+	}
+
+	static boolean boolOf( byte type, long bits ) {
+		switch( type ) {
+		case DOUBLE_TYPE:
+			return (long) Double.longBitsToDouble( bits ) > 0;
+		case INT_TYPE:
+		case LONG_TYPE:
+			return bits > 0;
+		default:
+			return bits != 0L;
+		}
+	}
+
 	public final synchronized boolean equals( Value val ) {
 		boolean r = false;
 		if( val.isDefined() ) {
@@ -557,27 +1293,27 @@ public abstract class Value implements Expression, Cloneable {
 		return r;
 	}
 
-	public final boolean isInt() {
+	public boolean isInt() {
 		return (valueObject() instanceof Integer);
 	}
 
-	public final boolean isLong() {
+	public boolean isLong() {
 		return (valueObject() instanceof Long);
 	}
 
-	public final boolean isBool() {
+	public boolean isBool() {
 		return (valueObject() instanceof Boolean);
 	}
 
-	public final boolean isByteArray() {
+	public boolean isByteArray() {
 		return (valueObject() instanceof ByteArray);
 	}
 
-	public final boolean isDouble() {
+	public boolean isDouble() {
 		return (valueObject() instanceof Double);
 	}
 
-	public final boolean isString() {
+	public boolean isString() {
 		return (valueObject() instanceof String);
 	}
 
@@ -585,7 +1321,7 @@ public abstract class Value implements Expression, Cloneable {
 		return (valueObject() instanceof CommChannel);
 	}
 
-	public final boolean isDefined() {
+	public boolean isDefined() {
 		return (valueObject() != null);
 	}
 
@@ -825,7 +1561,7 @@ public abstract class Value implements Expression, Cloneable {
 		return r;
 	}
 
-	public final synchronized void add( Value val ) {
+	public synchronized void add( Value val ) {
 		if( isDefined() ) {
 			if( isString() || val.isString() ) {
 				setValue( strValue() + val.strValue() );
@@ -845,7 +1581,7 @@ public abstract class Value implements Expression, Cloneable {
 		}
 	}
 
-	public final synchronized void subtract( Value val ) {
+	public synchronized void subtract( Value val ) {
 		if( !isDefined() ) {
 			if( val.isDouble() ) {
 				setValue( -val.doubleValue() );
@@ -867,7 +1603,7 @@ public abstract class Value implements Expression, Cloneable {
 		}
 	}
 
-	public synchronized final void multiply( Value val ) {
+	public synchronized void multiply( Value val ) {
 		if( isDefined() ) {
 			if( isDouble() || val.isDouble() ) {
 				setValue( doubleValue() * val.doubleValue() );
@@ -883,7 +1619,7 @@ public abstract class Value implements Expression, Cloneable {
 		}
 	}
 
-	public synchronized final void divide( Value val ) {
+	public synchronized void divide( Value val ) {
 		if( !isDefined() ) {
 			setValue( 0 );
 		} else if( isDouble() || val.isDouble() ) {
@@ -895,7 +1631,7 @@ public abstract class Value implements Expression, Cloneable {
 		}
 	}
 
-	public synchronized final void modulo( Value val ) {
+	public synchronized void modulo( Value val ) {
 		if( !isDefined() ) {
 			assignValue( val );
 		} else if( isDouble() || val.isDouble() ) {
@@ -907,7 +1643,7 @@ public abstract class Value implements Expression, Cloneable {
 		}
 	}
 
-	public final void assignValue( Value val ) {
+	public void assignValue( Value val ) {
 		setValueObject( val.valueObject() );
 	}
 
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.runtime;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The map from child names to vectors of a {@link ValueImpl}.
+ *
+ * Up to {@link #MAX_INLINE_SIZE} children are stored inline in an array of alternating keys and
+ * vectors, which is replaced by a copy on every change so that readers never need to lock. Nodes
+ * with more children are promoted to a {@link ConcurrentHashMap}, and are never demoted.
+ */
+class ValueChildrenMap extends AbstractMap< String, ValueVector > implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int MAX_INLINE_SIZE = 8;
+	private static final Object[] EMPTY = new Object[ 0 ];
+
+	/*
+	 * Either an Object[] of alternating keys and vectors, or a ConcurrentHashMap. Changes to the
+	 * inline array are made under the monitor of this map.
+	 */
+	private volatile Object entries = EMPTY;
+
+	@SuppressWarnings( "unchecked" )
+	private static ConcurrentHashMap< String, ValueVector > asMap( Object entries ) {
+		return (ConcurrentHashMap< String, ValueVector >) entries;
+	}
+
+	private static int indexOf( Object[] array, Object key ) {
+		for( int i = 0; i < array.length; i += 2 ) {
+			if( array[ i ] == key ) {
+				return i;
+			}
+		}
+		for( int i = 0; i < array.length; i += 2 ) {
+			if( array[ i ].equals( key ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		final Object e = entries;
+		return e instanceof Object[] ? ((Object[]) e).length / 2 : asMap( e ).size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public ValueVector get( Object key ) {
+		final Object e = entries;
+		if( e instanceof Object[] ) {
+			final Object[] array = (Object[]) e;
+			final int i = indexOf( array, key );
+			return i < 0 ? null : (ValueVector) array[ i + 1 ];
+		}
+		return asMap( e ).get( key );
+	}
+
+	@Override
+	public boolean containsKey( Object key ) {
+		return get( key ) != null;
+	}
+
+	@Override
+	public ValueVector put( String key, ValueVector vector ) {
+		return put( key, vector, false );
+	}
+
+	@Override
+	public ValueVector putIfAbsent( String key, ValueVector vector ) {
+		return put( key, vector, true );
+	}
+
+	private ValueVector put( String key, ValueVector vector, boolean onlyIfAbsent ) {
+		if( key == null || vector == null ) {
+			throw new NullPointerException();
+		}
+		Object e = entries;
+		if( e instanceof Object[] ) {
+			synchronized( this ) {
+				e = entries;
+				if( e instanceof Object[] ) {
+					final Object[] array = (Object[]) e;
+					final int i = indexOf( array, key );
+					if( i >= 0 ) {
+						final ValueVector old = (ValueVector) array[ i + 1 ];
+						if( !onlyIfAbsent ) {
+							final Object[] copy = array.clone();
+							copy[ i + 1 ] = vector;
+							entries = copy;
+						}
+						return old;
+					}
+					insert( array, key, vector );
+					return null;
+				}
+			}
+		}
+		return onlyIfAbsent ? asMap( e ).putIfAbsent( key, vector ) : asMap( e ).put( key, vector );
+	}
+
+	// Must be called while holding the monitor of this map, with a key that is not in array
+	private void insert( Object[] array, String key, ValueVector vector ) {
+		if( array.length / 2 < MAX_INLINE_SIZE ) {
+			final Object[] copy = new Object[ array.length + 2 ];
+			System.arraycopy( array, 0, copy, 0, array.length );
+			copy[ array.length ] = key;
+			copy[ array.length + 1 ] = vector;
+			entries = copy;
+		} else {
+			final ConcurrentHashMap< String, ValueVector > map = new ConcurrentHashMap<>( MAX_INLINE_SIZE * 4 );
+			for( int i = 0; i < array.length; i += 2 ) {
+				map.put( (String) array[ i ], (ValueVector) array[ i + 1 ] );
+			}
+			map.put( key, vector );
+			entries = map;
+		}
+	}
+
+	@Override
+	public ValueVector computeIfAbsent( String key,
+		Function< ? super String, ? extends ValueVector > mappingFunction ) {
+		Object e = entries;
+		if( e instanceof Object[] ) {
+			final Object[] array = (Object[]) e;
+			final int i = indexOf( array, key );
+			if( i >= 0 ) {
+				return (ValueVector) array[ i + 1 ];
+			}
+			synchronized( this ) {
+				e = entries;
+				if( e instanceof Object[] ) {
+					final Object[] current = (Object[]) e;
+					final int j = indexOf( current, key );
+					if( j >= 0 ) {
+						return (ValueVector) current[ j + 1 ];
+					}
+					final ValueVector vector = mappingFunction.apply( key );
+					if( vector != null ) {
+						insert( current, key, vector );
+					}
+					return vector;
+				}
+			}
+		}
+		return asMap( e ).computeIfAbsent( key, mappingFunction );
+	}
+
+	@Override
+	public ValueVector remove( Object key ) {
+		Object e = entries;
+		if( e instanceof Object[] ) {
+			synchronized( this ) {
+				e = entries;
+				if( e instanceof Object[] ) {
+					final Object[] array = (Object[]) e;
+					final int i = indexOf( array, key );
+					if( i < 0 ) {
+						return null;
+					}
+					final Object[] copy = new Object[ array.length - 2 ];
+					System.arraycopy( array, 0, copy, 0, i );
+					System.arraycopy( array, i + 2, copy, i, array.length - i - 2 );
+					entries = copy;
+					return (ValueVector) array[ i + 1 ];
+				}
+			}
+		}
+		return asMap( e ).remove( key );
+	}
+
+	@Override
+	public void clear() {
+		Object e = entries;
+		if( e instanceof Object[] ) {
+			synchronized( this ) {
+				e = entries;
+				if( e instanceof Object[] ) {
+					entries = EMPTY;
+					return;
+				}
+			}
+		}
+		asMap( e ).clear();
+	}
+
+	@Override
+	public Set< Entry< String, ValueVector > > entrySet() {
+		return new AbstractSet< Entry< String, ValueVector > >() {
+			@Override
+			public Iterator< Entry< String, ValueVector > > iterator() {
+				final Object e = entries;
+				return e instanceof Object[] ? new InlineIterator( (Object[]) e ) : asMap( e ).entrySet().iterator();
+			}
+
+			@Override
+			public int size() {
+				return ValueChildrenMap.this.size();
+			}
+		};
+	}
+
+	/*
+	 * Iterates over a snapshot of the inline entries. Changes made through the iterator or its
+	 * entries are applied to the map.
+	 */
+	private class InlineIterator implements Iterator< Entry< String, ValueVector > > {
+		private final Object[] array;
+		private int next = 0;
+		private String lastKey = null;
+
+		private InlineIterator( Object[] array ) {
+			this.array = array;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < array.length;
+		}
+
+		@Override
+		public Entry< String, ValueVector > next() {
+			if( next >= array.length ) {
+				throw new NoSuchElementException();
+			}
+			lastKey = (String) array[ next ];
+			final Entry< String, ValueVector > entry =
+				new SimpleEntry< String, ValueVector >( lastKey, (ValueVector) array[ next + 1 ] ) {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public ValueVector setValue( ValueVector vector ) {
+						super.setValue( vector );
+						return put( getKey(), vector );
+					}
+				};
+			next += 2;
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if( lastKey == null ) {
+				throw new IllegalStateException();
+			}
+			ValueChildrenMap.this.remove( lastKey );
+			lastKey = null;
+		}
+	}
+}
@@ -23,6 +23,7 @@ package jolie.runtime;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Stream;
@@ -62,8 +63,23 @@ class ValueVectorLink extends ValueVector implements Cloneable {
 	}
 
 	@Override
-	protected List< Value > values() {
-		return getLinkedValueVector().values();
+	public void add( Value value ) {
+		getLinkedValueVector().add( value );
+	}
+
+	@Override
+	public Value remove( int i ) {
+		return getLinkedValueVector().remove( i );
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return getLinkedValueVector().isEmpty();
+	}
+
+	@Override
+	public Iterator< Value > iterator() {
+		return getLinkedValueVector().iterator();
 	}
 
 	@Override
@@ -79,37 +95,87 @@ class ValueVectorLink extends ValueVector implements Cloneable {
 }
 
 
+/*
+ * Most vectors hold a single value, so the elements are stored as the value itself until a second
+ * one is added, and only then in an ArrayList. Vectors never go back to the single-value form.
+ */
 class ValueVectorImpl extends ValueVector implements Serializable {
 	private static final long serialVersionUID = Constants.serialVersionUID();
-	private final ArrayList< Value > values;
 
-	@Override
-	protected List< Value > values() {
-		return values;
+	// null if empty, a Value if holding a single value, or an ArrayList< Value >
+	private volatile Object elements = null;
+
+	@SuppressWarnings( "unchecked" )
+	private static ArrayList< Value > asList( Object elements ) {
+		return (ArrayList< Value >) elements;
+	}
+
+	// Must be called while holding the monitor of this vector
+	private ArrayList< Value > list() {
+		final Object e = elements;
+		if( e instanceof ArrayList ) {
+			return asList( e );
+		}
+		final ArrayList< Value > list = new ArrayList<>( 2 );
+		if( e != null ) {
+			list.add( (Value) e );
+		}
+		elements = list;
+		return list;
 	}
 
 	@Override
-	public synchronized int size() {
-		return values().size();
+	public int size() {
+		final Object e = elements;
+		if( e == null ) {
+			return 0;
+		} else if( e instanceof Value ) {
+			return 1;
+		}
+		synchronized( this ) {
+			return asList( e ).size();
+		}
 	}
 
 	@Override
 	public Value get( int i ) {
-		if( i >= values.size() ) {
-			synchronized( this ) {
-				if( i >= values.size() ) {
-					values.ensureCapacity( i + 1 );
-					for( int k = values.size(); k <= i; k++ ) {
-						values.add( Value.create() );
-					}
+		final Object e = elements;
+		if( e instanceof Value ) {
+			if( i == 0 ) {
+				return (Value) e;
+			}
+		} else if( e instanceof ArrayList ) {
+			final ArrayList< Value > values = asList( e );
+			if( i < values.size() ) {
+				return values.get( i );
+			}
+		}
+		synchronized( this ) {
+			if( i == 0 && elements == null ) {
+				final Value value = Value.create();
+				elements = value;
+				return value;
+			} else if( i == 0 && elements instanceof Value ) {
+				return (Value) elements;
+			}
+			final ArrayList< Value > values = list();
+			if( i >= values.size() ) {
+				values.ensureCapacity( i + 1 );
+				for( int k = values.size(); k <= i; k++ ) {
+					values.add( Value.create() );
 				}
 			}
+			return values.get( i );
 		}
-		return values.get( i );
 	}
 
 	@Override
 	public synchronized void set( int i, Value value ) {
+		if( i == 0 && !(elements instanceof ArrayList) ) {
+			elements = value;
+			return;
+		}
+		final ArrayList< Value > values = list();
 		if( i >= values.size() ) {
 			values.ensureCapacity( i + 1 );
 			for( int k = values.size(); k < i; k++ ) {
@@ -121,6 +187,41 @@ class ValueVectorImpl extends ValueVector implements Serializable {
 		}
 	}
 
+	@Override
+	public synchronized void add( Value value ) {
+		if( elements == null ) {
+			elements = value;
+		} else {
+			list().add( value );
+		}
+	}
+
+	@Override
+	public synchronized Value remove( int i ) {
+		final Object e = elements;
+		if( e instanceof Value && i == 0 ) {
+			elements = null;
+			return (Value) e;
+		}
+		return list().remove( i );
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	public synchronized Iterator< Value > iterator() {
+		final Object e = elements;
+		if( e == null ) {
+			return Collections.emptyIterator();
+		} else if( e instanceof Value ) {
+			return Collections.singletonList( (Value) e ).iterator();
+		}
+		return asList( e ).iterator();
+	}
+
 	@Override
 	public boolean isLink() {
 		return false;
@@ -128,11 +229,17 @@ class ValueVectorImpl extends ValueVector implements Serializable {
 
 	@Override
 	public synchronized List< Value > valuesCopy() {
-		return new ArrayList<>( values );
-	}
-
-	public ValueVectorImpl() {
-		values = new ArrayList<>( 1 );
+		final Object e = elements;
+		final ArrayList< Value > copy;
+		if( e instanceof ArrayList ) {
+			copy = new ArrayList<>( asList( e ) );
+		} else {
+			copy = new ArrayList<>( 1 );
+			if( e != null ) {
+				copy.add( (Value) e );
+			}
+		}
+		return copy;
 	}
 }
 
@@ -142,9 +249,7 @@ public abstract class ValueVector implements Iterable< Value > {
 		return new ValueVectorImpl();
 	}
 
-	public synchronized Value remove( int i ) {
-		return values().remove( i );
-	}
+	public abstract Value remove( int i );
 
 	public static ValueVector createLink( VariablePath path ) {
 		return new ValueVectorLink( path );
@@ -169,14 +274,7 @@ public abstract class ValueVector implements Iterable< Value > {
 		return get( 0 );
 	}
 
-	public synchronized boolean isEmpty() {
-		return values().isEmpty();
-	}
-
-	@Override
-	public synchronized Iterator< Value > iterator() {
-		return values().iterator();
-	}
+	public abstract boolean isEmpty();
 
 	public abstract Value get( int i );
 
@@ -187,9 +285,7 @@ public abstract class ValueVector implements Iterable< Value > {
 	public abstract List< Value > valuesCopy();
 
 
-	public synchronized void add( Value value ) {
-		values().add( value );
-	}
+	public abstract void add( Value value );
 
 	// TODO: improve performance
 	public synchronized void deepCopy( ValueVector vec ) {
@@ -205,8 +301,6 @@ public abstract class ValueVector implements Iterable< Value > {
 	}
 
 
-	protected abstract List< Value > values();
-
 	public abstract boolean isLink();
 
 	public final Stream< Value > stream() {
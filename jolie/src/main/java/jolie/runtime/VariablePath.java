@@ -46,10 +46,36 @@ public class VariablePath implements Expression {
 
 	private final Pair< Expression, Expression >[] path; // Right Expression may be null
 
+	/*
+	 * Resolution of the constant parts of path, computed once at construction: keys[i] is the interned
+	 * name of element i if it is a constant (null otherwise), and indexes[i] is its index if it is a
+	 * constant or absent (DYNAMIC_INDEX otherwise).
+	 */
+	private final String[] keys;
+	private final int[] indexes;
+	private static final int DYNAMIC_INDEX = -1;
+
+	/**
+	 * Returns the elements of this path. The returned array must not be modified.
+	 */
 	public final Pair< Expression, Expression >[] path() {
 		return path;
 	}
 
+	private static boolean isConstant( Expression expression ) {
+		return expression instanceof Value && !((Value) expression).isLink();
+	}
+
+	private String key( int i ) {
+		final String key = keys[ i ];
+		return key == null ? path[ i ].key().evaluate().strValue() : key;
+	}
+
+	private int index( int i ) {
+		final int index = indexes[ i ];
+		return index == DYNAMIC_INDEX ? path[ i ].value().evaluate().intValue() : index;
+	}
+
 	public boolean isGlobal() {
 		return false;
 	}
@@ -84,24 +110,14 @@ public class VariablePath implements Expression {
 		if( otherVarPath.path.length < path.length )
 			return null;
 
-		int i, myIndex, otherIndex;
-		Pair< Expression, Expression > pair, otherPair;
-		Expression expr, otherExpr;
+		int i;
 		for( i = 0; i < path.length; i++ ) {
-			pair = path[ i ];
-			otherPair = otherVarPath.path[ i ];
-
 			// *.element_name is not a subpath of *.other_name
-			if( !pair.key().evaluate().strValue().equals( otherPair.key().evaluate().strValue() ) )
+			if( !key( i ).equals( otherVarPath.key( i ) ) )
 				return null;
 
 			// If element name is equal, check for the same index
-			expr = pair.value();
-			otherExpr = otherPair.value();
-
-			myIndex = (expr == null) ? 0 : expr.evaluate().intValue();
-			otherIndex = (otherExpr == null) ? 0 : otherExpr.evaluate().intValue();
-			if( myIndex != otherIndex )
+			if( index( i ) != otherVarPath.index( i ) )
 				return null;
 		}
 
@@ -122,6 +138,22 @@ public class VariablePath implements Expression {
 
 	public VariablePath( Pair< Expression, Expression >[] path ) {
 		this.path = path;
+		this.keys = new String[ path.length ];
+		this.indexes = new int[ path.length ];
+		for( int i = 0; i < path.length; i++ ) {
+			final Expression key = path[ i ].key();
+			if( isConstant( key ) ) {
+				keys[ i ] = ((Value) key).strValue().intern();
+			}
+			final Expression index = path[ i ].value();
+			if( index == null ) {
+				indexes[ i ] = 0;
+			} else if( isConstant( index ) && ((Value) index).intValue() >= 0 ) {
+				indexes[ i ] = ((Value) index).intValue();
+			} else {
+				indexes[ i ] = DYNAMIC_INDEX;
+			}
+		}
 	}
 
 	protected Value getRootValue() {
@@ -137,7 +169,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			keyStr = pair.key().evaluate().strValue();
+			keyStr = key( i );
 			currVector = currValue.children().get( keyStr );
 			if( currVector == null ) {
 				return;
@@ -152,7 +184,7 @@ public class VariablePath implements Expression {
 					currValue.children().remove( keyStr );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					if( currVector.size() <= index ) {
 						return;
@@ -186,12 +218,8 @@ public class VariablePath implements Expression {
 	}
 
 	public final Value getValue( Value currValue ) {
-		for( Pair< Expression, Expression > pair : path ) {
-			final String keyStr = pair.key().evaluate().strValue();
-			currValue =
-				pair.value() == null
-					? currValue.getFirstChild( keyStr )
-					: currValue.getChildren( keyStr ).get( pair.value().evaluate().intValue() );
+		for( int i = 0; i < path.length; i++ ) {
+			currValue = currValue.getChildren( key( i ) ).get( index( i ) );
 		}
 
 		return currValue;
@@ -209,7 +237,7 @@ public class VariablePath implements Expression {
 		} else {
 			for( int i = 0; i < path.length; i++ ) {
 				pair = path[ i ];
-				keyStr = pair.key().evaluate().strValue();
+				keyStr = key( i );
 				currVector = currValue.getChildren( keyStr );
 				if( pair.value() == null ) {
 					if( (i + 1) < path.length ) {
@@ -222,7 +250,7 @@ public class VariablePath implements Expression {
 						}
 					}
 				} else {
-					index = pair.value().evaluate().intValue();
+					index = index( i );
 					if( (i + 1) < path.length ) {
 						currValue = currVector.get( index );
 					} else {
@@ -248,7 +276,7 @@ public class VariablePath implements Expression {
 	public final Value getValueOrNull( Value currValue ) {
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			final ValueVector currVector = currValue.children().get( pair.key().evaluate().strValue() );
+			final ValueVector currVector = currValue.children().get( key( i ) );
 			if( currVector == null ) {
 				return null;
 			}
@@ -266,7 +294,7 @@ public class VariablePath implements Expression {
 					}
 				}
 			} else {
-				final int index = pair.value().evaluate().intValue();
+				final int index = index( i );
 				if( currVector.size() <= index ) {
 					return null;
 				}
@@ -315,12 +343,12 @@ public class VariablePath implements Expression {
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( key( i ) );
 			if( (i + 1) < path.length ) {
 				if( pair.value() == null ) {
 					currValue = currVector.get( 0 );
 				} else {
-					currValue = currVector.get( pair.value().evaluate().intValue() );
+					currValue = currVector.get( index( i ) );
 				}
 			}
 		}
@@ -331,7 +359,7 @@ public class VariablePath implements Expression {
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			currVector = currValue.children().get( pair.key().evaluate().strValue() );
+			currVector = currValue.children().get( key( i ) );
 			if( currVector == null ) {
 				return null;
 			}
@@ -342,7 +370,7 @@ public class VariablePath implements Expression {
 					}
 					currValue = currVector.get( 0 );
 				} else {
-					final int index = pair.value().evaluate().intValue();
+					final int index = index( i );
 					if( currVector.size() <= index ) {
 						return null;
 					}
@@ -373,7 +401,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			keyStr = pair.key().evaluate().strValue();
+			keyStr = key( i );
 			currVector = currValue.getChildren( keyStr );
 			if( pair.value() == null ) {
 				if( (i + 1) < path.length ) {
@@ -382,7 +410,7 @@ public class VariablePath implements Expression {
 					currValue.children().put( keyStr, ValueVector.createLink( rightPath ) );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
@@ -400,7 +428,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( key( i ) );
 			if( pair.value() == null ) {
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( 0 );
@@ -408,7 +436,7 @@ public class VariablePath implements Expression {
 					return currVector;
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
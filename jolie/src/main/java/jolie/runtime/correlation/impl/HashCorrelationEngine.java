@@ -21,15 +21,294 @@
 
 package jolie.runtime.correlation.impl;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import jolie.Interpreter;
+import jolie.SessionThread;
+import jolie.lang.Constants.ExecutionMode;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.net.SessionMessage;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.VariablePath;
+import jolie.runtime.correlation.CorrelationSet;
+import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
 
 /**
- * A hash table based correlation algorithm (stub).
+ * A hash table based correlation algorithm.
+ * 
+ * Every correlation set gets an index that maps the tuple of correlation values of a session to the
+ * sessions with those values, so that routing a message requires a single lookup instead of a scan of
+ * all running sessions. The correlation variables of each session are stored in values that notify
+ * this engine when they are assigned, which keeps the index up to date.
+ * 
+ * Keys are typed: a message is found through the index only if its correlation values have the same
+ * types of those of the session (int and long values are considered the same type). Messages that
+ * are not found through the index are routed by falling back to {@link SimpleCorrelationEngine},
+ * which compares values with {@link Value#equals(Value)}, so that, e.g., a string "5" still
+ * correlates with an int 5. Such messages, and those that correlate with no session, cost a scan of
+ * all running sessions. Operations whose correlation pairs do not cover all the variables of their
+ * correlation set are always routed by {@link SimpleCorrelationEngine}.
  * 
  * @author Fabrizio Montesi
  */
 public class HashCorrelationEngine extends SimpleCorrelationEngine {
+	private static class SessionKeys {
+		private final Map< CorrelationSet, List< Object > > keys = new HashMap<>();
+		private boolean active = true;
+	}
+
+	private final Set< SessionThread > initialisingSessions = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+	private final Map< SessionThread, SessionKeys > sessionKeys = new ConcurrentHashMap<>();
+	// Sessions sharing the same key are kept in immutable lists, in the order in which they got it.
+	private final Map< CorrelationSet, Map< List< Object >, List< SessionThread > > > indexes =
+		new ConcurrentHashMap<>();
+	// Maps operation names to the positions of their correlation pairs in the key tuple.
+	private final Map< String, Optional< int[] > > operationLayouts = new ConcurrentHashMap<>();
+
 	public HashCorrelationEngine( Interpreter interpreter ) {
 		super( interpreter );
 	}
+
+	@Override
+	public boolean routeMessage( CommMessage message, CommChannel channel ) {
+		final Iterator< SessionThread > initialisingIterator = initialisingSessions.iterator();
+		if( initialisingIterator.hasNext() ) {
+			// The init procedure receives every message.
+			initialisingIterator.next().pushMessage( new SessionMessage( message, channel ) );
+			return true;
+		}
+
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.operationName() );
+		if( cset == null ) {
+			return interpreter().executionMode() == ExecutionMode.SINGLE
+				&& super.routeMessage( message, channel );
+		}
+
+		final Optional< int[] > layout = operationLayouts.computeIfAbsent(
+			message.operationName(), operationName -> buildLayout( cset, operationName ) );
+		if( !layout.isPresent() ) {
+			return super.routeMessage( message, channel );
+		}
+
+		final List< Object > key = messageKey( cset, layout.get(), message );
+		if( key == null ) {
+			return false;
+		}
+
+		final List< SessionThread > candidates = index( cset ).get( key );
+		if( candidates != null ) {
+			for( SessionThread session : candidates ) {
+				if( correlate( session, message ) ) {
+					session.pushMessage( new SessionMessage( message, channel ) );
+					return true;
+				}
+			}
+		}
+		// The values of the message may still be equal to those of a session with different types
+		return super.routeMessage( message, channel );
+	}
+
+	@Override
+	public void onSessionStart( SessionThread session, Interpreter.SessionStarter starter, CommMessage message ) {
+		track( session );
+		super.onSessionStart( session, starter, message );
+		updateIndexes( session );
+	}
+
+	@Override
+	public void onSingleExecutionSessionStart( SessionThread session ) {
+		super.onSingleExecutionSessionStart( session );
+		if( session.isInitialisingThread() ) {
+			initialisingSessions.add( session );
+		} else {
+			track( session );
+			updateIndexes( session );
+		}
+	}
+
+	@Override
+	public void onSessionExecuted( SessionThread session ) {
+		super.onSessionExecuted( session );
+		initialisingSessions.remove( session );
+		final SessionKeys record = sessionKeys.remove( session );
+		if( record != null ) {
+			synchronized( record ) {
+				record.active = false;
+				record.keys.forEach( ( cset, key ) -> unindex( cset, key, session ) );
+				record.keys.clear();
+			}
+		}
+	}
+
+	@Override
+	public void onSessionError( SessionThread session, FaultException fault ) {
+		onSessionExecuted( session );
+	}
+
+	/**
+	 * Starts tracking the correlation variables of a session, by replacing them with values that
+	 * update the indexes of this engine whenever they are assigned.
+	 */
+	private void track( SessionThread session ) {
+		sessionKeys.put( session, new SessionKeys() );
+		final Runnable listener = () -> updateIndexes( session );
+		for( CorrelationSet cset : interpreter().correlationSets() ) {
+			for( VariablePath path : cset.correlationVariablePaths() ) {
+				final Pair< Expression, Expression >[] pairs = path.path();
+				if( pairs.length == 0 ) {
+					continue;
+				}
+				final Expression indexExpression = pairs[ pairs.length - 1 ].value();
+				final int index = indexExpression == null ? 0 : indexExpression.evaluate().intValue();
+				final ValueVector vector = path.getValueVector( session.state().root() );
+				final Value trackedValue = Value.createCSetValue( listener );
+				trackedValue.deepCopy( vector.get( index ) );
+				vector.set( index, trackedValue );
+			}
+		}
+	}
+
+	private void updateIndexes( SessionThread session ) {
+		final SessionKeys record = sessionKeys.get( session );
+		if( record == null ) {
+			return;
+		}
+		synchronized( record ) {
+			if( !record.active ) {
+				return;
+			}
+			for( CorrelationSet cset : interpreter().correlationSets() ) {
+				final List< Object > newKey = sessionKey( cset, session );
+				final List< Object > oldKey = record.keys.get( cset );
+				if( newKey == null ? oldKey == null : newKey.equals( oldKey ) ) {
+					continue;
+				}
+				if( oldKey != null ) {
+					unindex( cset, oldKey, session );
+					record.keys.remove( cset );
+				}
+				if( newKey != null ) {
+					index( cset ).compute( newKey, ( k, sessions ) -> {
+						if( sessions == null ) {
+							return Collections.singletonList( session );
+						}
+						final List< SessionThread > list = new ArrayList<>( sessions.size() + 1 );
+						list.addAll( sessions );
+						list.add( session );
+						return Collections.unmodifiableList( list );
+					} );
+					record.keys.put( cset, newKey );
+				}
+			}
+		}
+	}
+
+	private void unindex( CorrelationSet cset, List< Object > key, SessionThread session ) {
+		index( cset ).computeIfPresent( key, ( k, sessions ) -> {
+			if( sessions.size() == 1 ) {
+				return sessions.get( 0 ) == session ? null : sessions;
+			}
+			final List< SessionThread > list = new ArrayList<>( sessions );
+			list.remove( session );
+			return Collections.unmodifiableList( list );
+		} );
+	}
+
+	private Map< List< Object >, List< SessionThread > > index( CorrelationSet cset ) {
+		return indexes.computeIfAbsent( cset, k -> new ConcurrentHashMap<>() );
+	}
+
+	private static List< Object > sessionKey( CorrelationSet cset, SessionThread session ) {
+		final List< VariablePath > paths = cset.correlationVariablePaths();
+		final Object[] key = new Object[ paths.size() ];
+		for( int i = 0; i < key.length; i++ ) {
+			final Value value = paths.get( i ).getValueOrNull( session.state().root() );
+			if( value == null || !value.isDefined() ) {
+				return null;
+			}
+			key[ i ] = keyElement( value );
+		}
+		return Arrays.asList( key );
+	}
+
+	private static List< Object > messageKey( CorrelationSet cset, int[] layout, CommMessage message ) {
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( message.operationName() );
+		final Object[] key = new Object[ layout.length ];
+		for( int i = 0; i < layout.length; i++ ) {
+			final Value value = pairs.get( i ).messagePath().getValueOrNull( message.value() );
+			if( value == null || !value.isDefined() ) {
+				return null;
+			}
+			key[ layout[ i ] ] = keyElement( value );
+		}
+		return Arrays.asList( key );
+	}
+
+	private static Object keyElement( Value value ) {
+		final Object object = value.valueObject();
+		if( object instanceof Integer ) {
+			return ((Integer) object).longValue();
+		} else if( object instanceof ByteArray ) {
+			return ByteBuffer.wrap( ((ByteArray) object).getBytes() );
+		}
+		return object;
+	}
+
+	/**
+	 * Maps each correlation pair of an operation to the position of its session variable in the
+	 * correlation set. Returns an empty optional if the pairs do not cover every variable of the set
+	 * exactly once, in which case the operation cannot be routed through the index.
+	 */
+	private static Optional< int[] > buildLayout( CorrelationSet cset, String operationName ) {
+		final List< VariablePath > paths = cset.correlationVariablePaths();
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( operationName );
+		if( pairs == null || pairs.size() != paths.size() ) {
+			return Optional.empty();
+		}
+
+		final Map< String, Integer > positions = new HashMap<>();
+		for( int i = 0; i < paths.size(); i++ ) {
+			positions.put( pathName( paths.get( i ) ), i );
+		}
+
+		final int[] layout = new int[ pairs.size() ];
+		final boolean[] covered = new boolean[ paths.size() ];
+		for( int i = 0; i < layout.length; i++ ) {
+			final Integer position = positions.get( pathName( pairs.get( i ).sessionPath() ) );
+			if( position == null || covered[ position ] ) {
+				return Optional.empty();
+			}
+			covered[ position ] = true;
+			layout[ i ] = position;
+		}
+		return Optional.of( layout );
+	}
+
+	private static String pathName( VariablePath path ) {
+		final StringBuilder builder = new StringBuilder();
+		for( Pair< Expression, Expression > pair : path.path() ) {
+			builder.append( '.' )
+				.append( pair.key().evaluate().strValue() )
+				.append( '[' )
+				.append( pair.value() == null ? 0 : pair.value().evaluate().intValue() )
+				.append( ']' );
+		}
+		return builder.toString();
+	}
 }
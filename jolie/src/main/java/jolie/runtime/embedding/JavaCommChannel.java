@@ -37,8 +37,6 @@ import jolie.runtime.InvalidIdException;
 import jolie.runtime.JavaService;
 
 
-// TODO: this should not be polled
-
 /**
  * @author Fabrizio Montesi
  */
@@ -55,6 +53,11 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		return messages.isEmpty() == false;
 	}
 
+	@Override
+	public boolean signalsReadiness() {
+		return true;
+	}
+
 	@Override
 	protected void disposeForInputImpl()
 		throws IOException {
@@ -77,6 +80,7 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		throws IOException {
 		final CompletableFuture< CommMessage > f = new CompletableFuture<>();
 		messages.put( message.id(), f );
+		Interpreter.getInstance().commCore().signalReady( this );
 
 		final ExecutionThread ethread = ExecutionThread.currentThread();
 		Interpreter.getInstance().commCore().executor().submit( () -> {
@@ -42,6 +42,10 @@ public class AndCondition implements Expression {
 		this.children = children;
 	}
 
+	public Expression[] children() {
+		return children;
+	}
+
 	public Expression cloneExpression( TransformationReason reason ) {
 		return new AndCondition( children );
 	}
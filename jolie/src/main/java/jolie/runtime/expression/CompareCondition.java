@@ -42,6 +42,18 @@ public class CompareCondition implements Expression {
 		this.compareOperator = compareOperator;
 	}
 
+	public Expression left() {
+		return leftExpression;
+	}
+
+	public Expression right() {
+		return rightExpression;
+	}
+
+	public BiPredicate< Value, Value > operator() {
+		return compareOperator;
+	}
+
 	public Expression cloneExpression( TransformationReason reason ) {
 		return new CompareCondition(
 			leftExpression.cloneExpression( reason ),
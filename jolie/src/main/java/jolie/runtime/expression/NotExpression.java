@@ -32,6 +32,10 @@ public class NotExpression implements Expression {
 		this.expression = expression;
 	}
 
+	public Expression expression() {
+		return expression;
+	}
+
 	public Expression cloneExpression( TransformationReason reason ) {
 		return new NotExpression( expression.cloneExpression( reason ) );
 	}
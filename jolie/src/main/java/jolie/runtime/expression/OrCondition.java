@@ -33,6 +33,10 @@ public class OrCondition implements Expression {
 		this.children = children;
 	}
 
+	public Expression[] children() {
+		return children;
+	}
+
 	public Expression cloneExpression( TransformationReason reason ) {
 		return new OrCondition( children );
 	}
@@ -32,6 +32,10 @@ public class ProductExpression implements Expression {
 		this.children = children;
 	}
 
+	public Operand[] operands() {
+		return children;
+	}
+
 	public Expression cloneExpression( TransformationReason reason ) {
 		Operand[] cc = new Operand[ children.length ];
 
@@ -34,6 +34,10 @@ public final class SumExpression implements Expression {
 		this.children = children;
 	}
 
+	public Operand[] operands() {
+		return children;
+	}
+
 	@Override
 	public Expression cloneExpression( TransformationReason reason ) {
 		Operand[] cc = new Operand[ children.length ];
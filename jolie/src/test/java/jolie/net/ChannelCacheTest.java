@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jolie.Interpreter;
+import jolie.runtime.TimeoutHandler;
+import jolie.runtime.correlation.CorrelationEngine;
+
+public class ChannelCacheTest {
+	private static final URI LOCATION = URI.create( "socket://localhost:9000" );
+	private static final String PROTOCOL = "sodep";
+
+	private Interpreter interpreter;
+
+	private static class TestChannel extends CommChannel {
+		private final AtomicInteger closes = new AtomicInteger();
+
+		@Override
+		public Future< CommMessage > recvResponseFor( CommMessage request ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected CommMessage recvImpl() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected void sendImpl( CommMessage message ) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		protected void closeImpl() {
+			closes.incrementAndGet();
+		}
+	}
+
+	@Before
+	public void createInterpreter()
+		throws IOException {
+		final Interpreter.Configuration configuration = Interpreter.Configuration.create( 0, -1,
+			CorrelationEngine.Type.SIMPLE, new String[ 0 ], new String[ 0 ], new URL[ 0 ],
+			new ByteArrayInputStream( new byte[ 0 ] ), "UTF-8", new File( "ChannelCacheTest.ol" ), new String[ 0 ],
+			new HashMap<>(), null, false, false, false, "all", "stream", false, false, 36000, Level.OFF,
+			new File( "." ), new String[ 0 ], null, Optional.empty(), false, 0, Optional.empty() );
+		interpreter = new Interpreter( configuration, new File( "." ), Optional.empty() );
+	}
+
+	@After
+	public void stopInterpreter() {
+		interpreter.timingWheel().stop();
+		interpreter.commCore().executor().shutdown();
+	}
+
+	private TestChannel put( ChannelCache cache ) {
+		final TestChannel channel = new TestChannel();
+		cache.putPersistentChannel( LOCATION, PROTOCOL, channel, interpreter );
+		return channel;
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedChannel() {
+		final ChannelCache cache = new ChannelCache( 2 );
+		final TestChannel first = put( cache );
+		final TestChannel second = put( cache );
+		// Putting a cached channel again makes it the most recently used one, without evicting others
+		cache.putPersistentChannel( LOCATION, PROTOCOL, first, interpreter );
+		final TestChannel third = put( cache );
+
+		assertEquals( 1, second.closes.get() );
+		assertFalse( second.isOpen() );
+		assertEquals( 0, first.closes.get() );
+		assertEquals( 0, third.closes.get() );
+		assertSame( third, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		assertSame( first, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+	}
+
+	@Test
+	public void keepsOnePoolPerEndpoint() {
+		final ChannelCache cache = new ChannelCache( 1 );
+		final TestChannel channel = put( cache );
+		final TestChannel other = new TestChannel();
+		cache.putPersistentChannel( LOCATION, "http", other, interpreter );
+
+		assertEquals( 0, channel.closes.get() );
+		assertSame( other, cache.getPersistentChannel( LOCATION, "http" ) );
+		assertSame( channel, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+	}
+
+	@Test
+	public void skipsBusyChannels()
+		throws InterruptedException {
+		final ChannelCache cache = new ChannelCache( 2 );
+		final TestChannel idle = put( cache );
+		final TestChannel busy = put( cache );
+
+		// The lock is reentrant, so another thread must hold it
+		final CountDownLatch locked = new CountDownLatch( 1 );
+		final CountDownLatch unlock = new CountDownLatch( 1 );
+		final Thread releaser = new Thread( () -> {
+			busy.lock.lock();
+			try {
+				locked.countDown();
+				unlock.await();
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			} finally {
+				busy.lock.unlock();
+			}
+		} );
+		releaser.start();
+		locked.await();
+		try {
+			assertSame( idle, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+			assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		} finally {
+			unlock.countDown();
+			releaser.join();
+		}
+		// The busy channel has been left in the cache
+		assertSame( busy, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		assertEquals( 0, busy.closes.get() );
+	}
+
+	@Test
+	public void timeoutClosesIdleChannel() {
+		final ChannelCache cache = new ChannelCache( 2 );
+		final TestChannel channel = put( cache );
+		channel.timeoutHandler().run();
+
+		assertEquals( 1, channel.closes.get() );
+		assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+	}
+
+	@Test
+	public void takenChannelsAreNotTimedOut() {
+		final ChannelCache cache = new ChannelCache( 2 );
+		final TestChannel channel = put( cache );
+		final TimeoutHandler handler = channel.timeoutHandler();
+		assertSame( channel, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		handler.run();
+
+		assertTrue( channel.isOpen() );
+		assertNull( channel.timeoutHandler() );
+	}
+
+	@Test
+	public void timeoutRacesWithGetPersistentChannel()
+		throws Exception {
+		final ChannelCache cache = new ChannelCache( 2 );
+		for( int i = 0; i < 500; i++ ) {
+			final TestChannel channel = put( cache );
+			final TimeoutHandler handler = channel.timeoutHandler();
+			final CyclicBarrier barrier = new CyclicBarrier( 2 );
+			final AtomicReference< CommChannel > taken = new AtomicReference<>();
+			final Thread getter = new Thread( () -> {
+				try {
+					barrier.await();
+					taken.set( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+				} catch( Exception e ) {
+					throw new RuntimeException( e );
+				}
+			} );
+			getter.start();
+			barrier.await();
+			handler.run();
+			getter.join();
+
+			if( taken.get() == null ) {
+				assertEquals( 1, channel.closes.get() );
+			} else {
+				assertSame( channel, taken.get() );
+				assertEquals( 0, channel.closes.get() );
+				assertTrue( channel.isOpen() );
+			}
+			assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		}
+	}
+
+	@Test
+	public void countsHitsMissesAndOpens()
+		throws IOException {
+		final ChannelCache cache = new ChannelCache( 2 );
+		assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+		cache.channelOpened();
+		final TestChannel channel = put( cache );
+		assertSame( channel, cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+
+		// A cached channel that has been closed is discarded, and is a miss
+		put( cache ).close();
+		assertNull( cache.getPersistentChannel( LOCATION, PROTOCOL ) );
+
+		assertEquals( 1, cache.hits() );
+		assertEquals( 2, cache.misses() );
+		assertEquals( 1, cache.opens() );
+	}
+}
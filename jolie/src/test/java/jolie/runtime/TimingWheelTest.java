@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TimingWheelTest {
+	private static final long AWAIT_TIMEOUT = 5000; // msecs
+
+	private TimingWheel wheel;
+
+	private static class RecordingHandler extends TimeoutHandler {
+		private final CountDownLatch latch = new CountDownLatch( 1 );
+		private volatile long runAt = -1;
+
+		private RecordingHandler( long timeout ) {
+			super( timeout );
+		}
+
+		@Override
+		protected void onTimeout() {
+			runAt = System.currentTimeMillis();
+			latch.countDown();
+		}
+
+		private boolean hasRun() {
+			return latch.getCount() == 0;
+		}
+
+		private void await()
+			throws InterruptedException {
+			assertTrue( "handler did not run", latch.await( AWAIT_TIMEOUT, TimeUnit.MILLISECONDS ) );
+		}
+	}
+
+	private static void waitFor( BooleanSupplier condition )
+		throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT;
+		while( !condition.getAsBoolean() && System.currentTimeMillis() < deadline ) {
+			Thread.sleep( 5 );
+		}
+	}
+
+	private RecordingHandler add( long timeout ) {
+		final RecordingHandler handler = new RecordingHandler( timeout );
+		wheel.add( handler );
+		return handler;
+	}
+
+	@After
+	public void stopWheel() {
+		if( wheel != null ) {
+			wheel.stop();
+		}
+	}
+
+	@Test
+	public void handlersDoNotExpireBeforeTheirTime()
+		throws InterruptedException {
+		wheel = new TimingWheel( "test", Runnable::run, 10, 8 );
+		final List< RecordingHandler > handlers = new ArrayList<>();
+		for( long timeout = 0; timeout < 200; timeout += 7 ) {
+			handlers.add( add( timeout ) );
+		}
+		for( RecordingHandler handler : handlers ) {
+			handler.await();
+			assertTrue( "handler ran " + (handler.time() - handler.runAt) + " msecs early",
+				handler.runAt >= handler.time() );
+		}
+	}
+
+	@Test
+	public void handlersSpanningMultipleRounds()
+		throws InterruptedException {
+		// A round of this wheel takes 40 msecs
+		wheel = new TimingWheel( "test", Runnable::run, 10, 4 );
+		final RecordingHandler longHandler = add( 250 );
+		final RecordingHandler shortHandler = add( 20 );
+		shortHandler.await();
+		assertFalse( longHandler.hasRun() );
+		longHandler.await();
+		assertTrue( longHandler.runAt >= longHandler.time() );
+		assertEquals( 0, wheel.size() );
+	}
+
+	@Test
+	public void cancelBeforeTransfer()
+		throws InterruptedException {
+		wheel = new TimingWheel( "test", Runnable::run, 200, 8 );
+		final RecordingHandler handler = add( 0 );
+		// The worker applies additions at its first tick, 200 msecs from now
+		handler.cancel();
+		final RecordingHandler sentinel = add( 0 );
+		sentinel.await();
+		assertFalse( handler.hasRun() );
+		assertEquals( 0, wheel.size() );
+	}
+
+	@Test
+	public void cancelAfterTransfer()
+		throws InterruptedException {
+		wheel = new TimingWheel( "test", Runnable::run, 10, 8 );
+		final RecordingHandler handler = add( 2000 );
+		// Let the worker move the handler into its bucket
+		Thread.sleep( 50 );
+		assertEquals( 1, wheel.size() );
+		handler.cancel();
+		waitFor( () -> wheel.size() == 0 );
+		assertEquals( 0, wheel.size() );
+		assertFalse( handler.hasRun() );
+	}
+
+	@Test
+	public void sizeCountsScheduledHandlers()
+		throws InterruptedException {
+		wheel = new TimingWheel( "test", Runnable::run, 10, 8 );
+		assertEquals( 0, wheel.size() );
+		final RecordingHandler first = add( 30 );
+		final RecordingHandler second = add( 60 );
+		final RecordingHandler cancelled = add( 10000 );
+		assertEquals( 3, wheel.size() );
+		cancelled.cancel();
+		first.await();
+		second.await();
+		waitFor( () -> wheel.size() == 0 );
+		assertEquals( 0, wheel.size() );
+		assertFalse( cancelled.hasRun() );
+	}
+
+	@Test
+	public void stopRunsPendingHandlers() {
+		wheel = new TimingWheel( "test", Runnable::run, 10, 8 );
+		final RecordingHandler first = add( 10000 );
+		final RecordingHandler second = add( 20000 );
+		final RecordingHandler cancelled = add( 10000 );
+		cancelled.cancel();
+		wheel.stop();
+		assertTrue( first.hasRun() );
+		assertTrue( second.hasRun() );
+		assertFalse( cancelled.hasRun() );
+		assertEquals( 0, wheel.size() );
+
+		final RecordingHandler late = add( 0 );
+		assertEquals( 0, wheel.size() );
+		assertFalse( late.hasRun() );
+	}
+}
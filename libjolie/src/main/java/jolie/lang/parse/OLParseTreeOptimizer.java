@@ -339,6 +339,7 @@ public class OLParseTreeOptimizer {
 				n.context(),
 				optimizePath( n.indexVariablePath() ),
 				optimizeNode( n.upperBoundExpression() ),
+				optimizeNode( n.parallelismExpression() ),
 				optimizePath( n.inVariablePath() ),
 				optimizeNode( n.body() ) );
 		}
@@ -152,6 +152,13 @@ public class OLParser extends AbstractParser {
 		return programBuilder.toProgram();
 	}
 
+	/**
+	 * Returns true if the parsed program included other files through include directives.
+	 */
+	public boolean hasIncludeDirective() {
+		return hasIncludeDirective;
+	}
+
 	private void parseLoop( ParsingRunnable... parseRunnables )
 		throws IOException, ParserException {
 		nextToken();
@@ -2284,6 +2291,11 @@ public class OLParser extends AbstractParser {
 			}
 			nextToken();
 			OLSyntaxNode upperBoundExpression = parseBasicExpression();
+			OLSyntaxNode parallelismExpression = null;
+			if( token.isKeyword( "parallel" ) ) {
+				nextToken();
+				parallelismExpression = parseBasicExpression();
+			}
 			eat( Scanner.TokenType.RPAREN, "expected )" );
 
 			VariablePathNode inVariablePath = null;
@@ -2298,6 +2310,7 @@ public class OLParser extends AbstractParser {
 				getContext(),
 				indexVariablePath,
 				upperBoundExpression,
+				parallelismExpression,
 				inVariablePath,
 				process );
 			break;
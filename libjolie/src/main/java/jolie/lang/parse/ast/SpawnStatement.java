@@ -29,20 +29,32 @@ public class SpawnStatement extends OLSyntaxNode {
 	private final VariablePathNode indexVariablePath;
 	private final VariablePathNode inVariablePath; // may be null
 	private final OLSyntaxNode upperBoundExpression, body;
+	private final OLSyntaxNode parallelismExpression; // may be null
 
 	public SpawnStatement(
 		ParsingContext context,
 		VariablePathNode indexVariablePath,
 		OLSyntaxNode upperBoundExpression,
+		OLSyntaxNode parallelismExpression,
 		VariablePathNode inVariablePath,
 		OLSyntaxNode body ) {
 		super( context );
 		this.indexVariablePath = indexVariablePath;
 		this.inVariablePath = inVariablePath;
 		this.upperBoundExpression = upperBoundExpression;
+		this.parallelismExpression = parallelismExpression;
 		this.body = body;
 	}
 
+	public SpawnStatement(
+		ParsingContext context,
+		VariablePathNode indexVariablePath,
+		OLSyntaxNode upperBoundExpression,
+		VariablePathNode inVariablePath,
+		OLSyntaxNode body ) {
+		this( context, indexVariablePath, upperBoundExpression, null, inVariablePath, body );
+	}
+
 	public OLSyntaxNode body() {
 		return body;
 	}
@@ -51,6 +63,14 @@ public class SpawnStatement extends OLSyntaxNode {
 		return upperBoundExpression;
 	}
 
+	/**
+	 * Returns the maximum number of iterations to run at the same time, or <code>null</code> if all
+	 * iterations may run at the same time.
+	 */
+	public OLSyntaxNode parallelismExpression() {
+		return parallelismExpression;
+	}
+
 	public VariablePathNode indexVariablePath() {
 		return indexVariablePath;
 	}
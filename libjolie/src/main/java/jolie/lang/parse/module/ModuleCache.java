@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.lang.parse.module;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jolie.lang.Constants;
+import jolie.lang.parse.Scanner;
+import jolie.lang.parse.ast.Program;
+
+/**
+ * A persistent cache of parsed modules, stored as serialized syntax trees in a directory.
+ *
+ * Entries are keyed by the URI and the content of the module source, together with the parsing
+ * options and the version of the parser that produced them, so stale entries are never read. Each
+ * entry starts with a header repeating the parser version and the key, which is checked before
+ * deserializing the syntax tree, and deserialization only accepts the classes that syntax trees
+ * are made of. Failures in reading or writing the cache are logged and treated as misses.
+ */
+public class ModuleCache {
+	private static final Logger LOGGER = Logger.getLogger( "JOLIE" );
+	private static final String FILE_EXTENSION = ".ast";
+	private static final String MAGIC = "jolie-module-cache";
+	private static final String PARSER_FINGERPRINT = parserFingerprint();
+	// Packages of the classes that syntax trees may contain
+	private static final String[] ALLOWED_PACKAGES = { "jolie.lang.", "jolie.util.", "java.lang.", "java.util.",
+		"java.net.", "java.math." };
+
+	private final Path directory;
+
+	/**
+	 * @param directory the directory the cache entries are stored in, which is created if needed
+	 */
+	public ModuleCache( Path directory ) {
+		this.directory = directory;
+	}
+
+	public Path directory() {
+		return directory;
+	}
+
+	/**
+	 * Computes the key of the entry for a module source.
+	 *
+	 * @param uri the URI of the module
+	 * @param source the content of the module
+	 * @param configuration the configuration the module is parsed with
+	 * @return the key of the entry
+	 */
+	public String key( URI uri, byte[] source, ModuleParsingConfiguration configuration ) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance( "SHA-256" );
+		} catch( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException( e );
+		}
+		update( digest, PARSER_FINGERPRINT );
+		update( digest, uri.toString() );
+		update( digest, configuration.charset() == null ? "" : configuration.charset() );
+		update( digest, Boolean.toString( configuration.includeDocumentation() ) );
+		if( configuration.constantsMap() != null ) {
+			for( Map.Entry< String, Scanner.Token > entry : new TreeMap<>( configuration.constantsMap() )
+				.entrySet() ) {
+				update( digest, entry.getKey() );
+				update( digest, entry.getValue().type().name() );
+				update( digest, entry.getValue().content() );
+			}
+		}
+		digest.update( source );
+
+		final StringBuilder builder = new StringBuilder();
+		for( byte b : digest.digest() ) {
+			builder.append( String.format( "%02x", b ) );
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the program stored under the given key, if any.
+	 */
+	public Optional< Program > get( String key ) {
+		final Path file = directory.resolve( key + FILE_EXTENSION );
+		if( !Files.isRegularFile( file ) ) {
+			return Optional.empty();
+		}
+		try( ObjectInputStream istream =
+			new EntryInputStream( new ByteArrayInputStream( Files.readAllBytes( file ) ) ) ) {
+			if( !MAGIC.equals( istream.readUTF() ) || !PARSER_FINGERPRINT.equals( istream.readUTF() ) ) {
+				LOGGER.fine( "Discarding module cache entry " + file + ": written by a different parser" );
+			} else if( !key.equals( istream.readUTF() ) ) {
+				LOGGER.warning( "Discarding module cache entry " + file + ": its content does not match its name" );
+			} else {
+				final Object o = istream.readObject();
+				if( o instanceof Program ) {
+					return Optional.of( (Program) o );
+				}
+				LOGGER.warning( "Discarding module cache entry " + file + ": it does not contain a program" );
+			}
+		} catch( IOException | ClassNotFoundException | ClassCastException e ) {
+			LOGGER.log( Level.WARNING, "Discarding unreadable module cache entry " + file, e );
+		}
+		try {
+			Files.deleteIfExists( file );
+		} catch( IOException e ) {
+			LOGGER.log( Level.WARNING, "Could not delete module cache entry " + file, e );
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Stores a program under the given key. The entry is written to a temporary file first, so
+	 * concurrent readers never see partial entries.
+	 */
+	public void put( String key, Program program ) {
+		final Path file = directory.resolve( key + FILE_EXTENSION );
+		Path tmpFile = null;
+		try {
+			Files.createDirectories( directory );
+			tmpFile = Files.createTempFile( directory, key, ".tmp" );
+			try( OutputStream ostream = Files.newOutputStream( tmpFile );
+				ObjectOutputStream oostream = new ObjectOutputStream( ostream ) ) {
+				oostream.writeUTF( MAGIC );
+				oostream.writeUTF( PARSER_FINGERPRINT );
+				oostream.writeUTF( key );
+				oostream.writeObject( program );
+			}
+			try {
+				Files.move( tmpFile, file, StandardCopyOption.ATOMIC_MOVE );
+			} catch( AtomicMoveNotSupportedException e ) {
+				Files.move( tmpFile, file, StandardCopyOption.REPLACE_EXISTING );
+			}
+			tmpFile = null;
+		} catch( IOException e ) {
+			LOGGER.log( Level.WARNING, "Could not write module cache entry " + file, e );
+		} finally {
+			if( tmpFile != null ) {
+				try {
+					Files.deleteIfExists( tmpFile );
+				} catch( IOException e ) {
+					LOGGER.log( Level.WARNING, "Could not delete temporary module cache file " + tmpFile, e );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a stream to its end and closes it.
+	 */
+	static byte[] readAllBytes( InputStream stream )
+		throws IOException {
+		try( InputStream istream = stream ) {
+			final ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[ 8192 ];
+			int read;
+			while( (read = istream.read( buffer )) != -1 ) {
+				ostream.write( buffer, 0, read );
+			}
+			return ostream.toByteArray();
+		}
+	}
+
+	/*
+	 * Refuses to deserialize classes that cannot be part of a syntax tree, so that a tampered entry
+	 * cannot instantiate arbitrary serializable classes.
+	 */
+	private static class EntryInputStream extends ObjectInputStream {
+		private EntryInputStream( InputStream istream )
+			throws IOException {
+			super( istream );
+		}
+
+		@Override
+		protected Class< ? > resolveClass( ObjectStreamClass desc )
+			throws IOException, ClassNotFoundException {
+			String name = desc.getName();
+			int dimensions = 0;
+			while( name.startsWith( "[", dimensions ) ) {
+				dimensions++;
+			}
+			if( dimensions > 0 ) {
+				if( name.charAt( dimensions ) != 'L' ) {
+					// An array of primitive values
+					return super.resolveClass( desc );
+				}
+				// An array of objects, named [Lclass;
+				name = name.substring( dimensions + 1 );
+			}
+			for( String prefix : ALLOWED_PACKAGES ) {
+				if( name.startsWith( prefix ) ) {
+					return super.resolveClass( desc );
+				}
+			}
+			throw new InvalidClassException( desc.getName(), "not allowed in a module cache entry" );
+		}
+
+		@Override
+		protected Class< ? > resolveProxyClass( String[] interfaces )
+			throws IOException {
+			throw new InvalidClassException( "Proxy classes are not allowed in a module cache entry" );
+		}
+	}
+
+	private static void update( MessageDigest digest, String s ) {
+		final byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+		digest.update( (byte) (bytes.length >>> 24) );
+		digest.update( (byte) (bytes.length >>> 16) );
+		digest.update( (byte) (bytes.length >>> 8) );
+		digest.update( (byte) bytes.length );
+		digest.update( bytes );
+	}
+
+	/*
+	 * Identifies the build of the parser, so that entries written by a different build (whose syntax
+	 * tree classes may have a different shape) are not read.
+	 */
+	private static String parserFingerprint() {
+		final StringBuilder builder = new StringBuilder( Constants.VERSION )
+			.append( ':' ).append( Constants.serialVersionUID() );
+		try {
+			final CodeSource codeSource = Program.class.getProtectionDomain().getCodeSource();
+			final URL location = codeSource == null ? null : codeSource.getLocation();
+			if( location != null && "file".equals( location.getProtocol() ) ) {
+				final File file = new File( location.toURI() );
+				builder.append( ':' ).append( file.length() ).append( ':' ).append( file.lastModified() );
+			}
+		} catch( SecurityException | URISyntaxException | IllegalArgumentException e ) {
+			// Entries are still told apart by the version of Jolie
+		}
+		return builder.toString();
+	}
+}
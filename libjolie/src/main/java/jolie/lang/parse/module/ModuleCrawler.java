@@ -23,11 +23,14 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import jolie.lang.parse.ParserException;
 import jolie.lang.parse.module.exceptions.ModuleNotFoundException;
 
@@ -37,17 +40,13 @@ class ModuleCrawler {
 		private final Map< URI, ModuleRecord > moduleCrawled;
 
 		private CrawlerResult() {
-			this.moduleCrawled = new HashMap<>();
+			this.moduleCrawled = new ConcurrentHashMap<>();
 		}
 
 		private void addModuleRecord( ModuleRecord mr ) {
 			this.moduleCrawled.put( mr.uri(), mr );
 		}
 
-		private boolean isRecordInResult( URI source ) {
-			return this.moduleCrawled.containsKey( source );
-		}
-
 		protected Map< URI, ModuleRecord > toMap() {
 			return this.moduleCrawled;
 		}
@@ -102,28 +101,87 @@ class ModuleCrawler {
 		return modulesToCrawl;
 	}
 
+	/**
+	 * Parses a module and forks the crawling of its dependencies. Each module is crawled by at most
+	 * one task, the first one to claim its URI. Failures are recorded by module URI instead of being
+	 * thrown, so that the other tasks are not cancelled and the reported error does not depend on
+	 * which task fails first.
+	 */
+	private class CrawlTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ModuleSource module;
+		private final CrawlerResult result;
+		private final Set< URI > visited;
+		private final SortedMap< String, Exception > errors;
+
+		private CrawlTask( ModuleSource module, CrawlerResult result, Set< URI > visited,
+			SortedMap< String, Exception > errors ) {
+			this.module = module;
+			this.result = result;
+			this.visited = visited;
+			this.errors = errors;
+		}
+
+		@Override
+		protected void compute() {
+			if( !visited.add( module.uri() ) ) {
+				return;
+			}
+
+			if( ModuleCrawler.inCache( module.uri() ) ) {
+				result.addModuleRecord( ModuleCrawler.getRecordFromCache( module.uri() ) );
+			} else {
+				try {
+					ModuleRecord record = new ModuleParser( parserConfiguration ).parse( module );
+					result.addModuleRecord( record );
+					invokeAll( tasks( crawlModule( record ), result, visited, errors ) );
+				} catch( ParserException | IOException | ModuleException e ) {
+					errors.put( module.uri().toString(), e );
+				}
+			}
+		}
+	}
+
+	private List< CrawlTask > tasks( List< ModuleSource > modules, CrawlerResult result, Set< URI > visited,
+		SortedMap< String, Exception > errors ) {
+		List< CrawlTask > tasks = new ArrayList<>( modules.size() );
+		for( ModuleSource module : modules ) {
+			tasks.add( new CrawlTask( module, result, visited, errors ) );
+		}
+		return tasks;
+	}
+
 	private CrawlerResult crawl( ModuleRecord mainRecord )
 		throws ParserException, IOException, ModuleException {
 		CrawlerResult result = new CrawlerResult();
+		Set< URI > visited = ConcurrentHashMap.newKeySet();
+		SortedMap< String, Exception > errors = new ConcurrentSkipListMap<>();
 		// start with main module record
-		Queue< ModuleSource > dependencies = new LinkedList<>();
 		result.addModuleRecord( mainRecord );
-		dependencies.addAll( this.crawlModule( mainRecord ) );
+		visited.add( mainRecord.uri() );
+		List< CrawlTask > tasks = tasks( this.crawlModule( mainRecord ), result, visited, errors );
 
-		// walk through dependencies
-		while( dependencies.peek() != null ) {
-			ModuleSource module = dependencies.poll();
+		// walk through dependencies, in parallel
+		ForkJoinPool.commonPool().invoke( new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
 
-			if( result.isRecordInResult( module.uri() ) ) {
-				continue;
+			@Override
+			protected void compute() {
+				invokeAll( tasks );
 			}
-
-			if( ModuleCrawler.inCache( module.uri() ) ) {
-				result.addModuleRecord( ModuleCrawler.getRecordFromCache( module.uri() ) );
+		} );
+
+		if( !errors.isEmpty() ) {
+			// report the error of the first failed module by URI, so that it is the same in every run
+			Exception error = errors.remove( errors.firstKey() );
+			errors.values().forEach( error::addSuppressed );
+			if( error instanceof ParserException ) {
+				throw (ParserException) error;
+			} else if( error instanceof ModuleException ) {
+				throw (ModuleException) error;
 			} else {
-				ModuleRecord record = new ModuleParser( parserConfiguration ).parse( module );
-				result.addModuleRecord( record );
-				dependencies.addAll( crawlModule( record ) );
+				throw (IOException) error;
 			}
 		}
 
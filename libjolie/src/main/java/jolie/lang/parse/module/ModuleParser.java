@@ -19,8 +19,12 @@
 
 package jolie.lang.parse.module;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.stream.Stream;
 import jolie.lang.parse.OLParseTreeOptimizer;
 import jolie.lang.parse.OLParser;
@@ -51,21 +55,59 @@ public class ModuleParser {
 		} else {
 			additionalPath = new String[ 0 ];
 		}
-		return this.parse( new Scanner( module.openStream().get(), module.uri(),
-			parserConfiguration.charset(), parserConfiguration.includeDocumentation() ), additionalPath );
+		return this.parse( module.openStream().get(), module.uri(), additionalPath );
 
 	}
 
+	/**
+	 * Parses the module read from the given stream, looking it up in the persistent module cache of
+	 * the parsing configuration first, if there is one.
+	 */
+	public ModuleRecord parse( InputStream stream, URI uri, String[] additionalIncludePaths )
+		throws ParserException, IOException, ModuleException {
+		if( !parserConfiguration.moduleCache().isPresent() ) {
+			return parse( new Scanner( stream, uri, parserConfiguration.charset(),
+				parserConfiguration.includeDocumentation() ), additionalIncludePaths );
+		}
+
+		ModuleCache cache = parserConfiguration.moduleCache().get();
+		byte[] source = ModuleCache.readAllBytes( stream );
+		String key = cache.key( uri, source, parserConfiguration );
+		Optional< Program > cachedProgram = cache.get( key );
+		if( cachedProgram.isPresent() ) {
+			Program program = cachedProgram.get();
+			return new ModuleRecord( uri, program, SymbolTableGenerator.generate( program ) );
+		}
+
+		Scanner scanner = new Scanner( new ByteArrayInputStream( source ), uri, parserConfiguration.charset(),
+			parserConfiguration.includeDocumentation() );
+		OLParser olParser = createParser( scanner, additionalIncludePaths );
+		Program program = parse( olParser );
+		// Included files are not part of the key, so programs that include them cannot be cached
+		if( !olParser.hasIncludeDirective() ) {
+			cache.put( key, program );
+		}
+		return new ModuleRecord( uri, program, SymbolTableGenerator.generate( program ) );
+	}
+
 	public ModuleRecord parse( Scanner scanner, String[] additionalIncludePaths )
 		throws ParserException, IOException, ModuleException {
+		Program program = parse( createParser( scanner, additionalIncludePaths ) );
+		SymbolTable st = SymbolTableGenerator.generate( program );
+		return new ModuleRecord( scanner.source(), program, st );
+	}
+
+	private OLParser createParser( Scanner scanner, String[] additionalIncludePaths ) {
 		String[] includePaths = Stream.concat( Arrays.stream( parserConfiguration.includePaths() ),
 			Arrays.stream( additionalIncludePaths ) )
 			.distinct().toArray( String[]::new );
 		OLParser olParser = new OLParser( scanner, includePaths, parserConfiguration.classLoader() );
 		olParser.putConstants( parserConfiguration.constantsMap() );
-		Program program = olParser.parse();
-		program = OLParseTreeOptimizer.optimize( program );
-		SymbolTable st = SymbolTableGenerator.generate( program );
-		return new ModuleRecord( scanner.source(), program, st );
+		return olParser;
+	}
+
+	private static Program parse( OLParser olParser )
+		throws ParserException, IOException {
+		return OLParseTreeOptimizer.optimize( olParser.parse() );
 	}
 }
@@ -1,6 +1,7 @@
 package jolie.lang.parse.module;
 
 import java.util.Map;
+import java.util.Optional;
 import jolie.lang.parse.Scanner;
 
 public class ModuleParsingConfiguration {
@@ -18,16 +19,29 @@ public class ModuleParsingConfiguration {
 
 	private final Map< String, Scanner.Token > constantsMap;
 
+	private final Optional< ModuleCache > moduleCache;
 
 	public ModuleParsingConfiguration( String charset, String[] includePaths, String[] packagePaths,
 		ClassLoader classLoader,
 		Map< String, Scanner.Token > constantsMap, boolean includeDocumentation ) {
+		this( charset, includePaths, packagePaths, classLoader, constantsMap, includeDocumentation,
+			Optional.empty() );
+	}
+
+	/**
+	 * @param moduleCache a persistent cache to look up parsed modules in before parsing them
+	 */
+	public ModuleParsingConfiguration( String charset, String[] includePaths, String[] packagePaths,
+		ClassLoader classLoader,
+		Map< String, Scanner.Token > constantsMap, boolean includeDocumentation,
+		Optional< ModuleCache > moduleCache ) {
 		this.charset = charset;
 		this.includePaths = includePaths;
 		this.packagePaths = packagePaths;
 		this.classLoader = classLoader;
 		this.constantsMap = constantsMap;
 		this.includeDocumentation = includeDocumentation;
+		this.moduleCache = moduleCache;
 	}
 
 	public String[] includePaths() {
@@ -53,4 +67,8 @@ public class ModuleParsingConfiguration {
 	public Map< String, Scanner.Token > constantsMap() {
 		return constantsMap;
 	}
+
+	public Optional< ModuleCache > moduleCache() {
+		return moduleCache;
+	}
 }
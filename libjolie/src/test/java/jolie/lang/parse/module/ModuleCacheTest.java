@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+
+package jolie.lang.parse.module;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import jolie.lang.parse.ast.ImportStatement;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.context.URIParsingContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ModuleCacheTest {
+	private static final URI MODULE_URI = URI.create( "file:///tmp/module.ol" );
+	private static final String SOURCE =
+		"from console import Console\n"
+			+ "service Main {\n"
+			+ "\tembed Console as Console\n"
+			+ "\tmain { x = 1 }\n"
+			+ "}\n";
+
+	private Path directory;
+	private ModuleCache cache;
+	private ModuleParsingConfiguration configuration;
+
+	@Before
+	public void setUp()
+		throws IOException {
+		directory = Files.createTempDirectory( "module-cache-test" );
+		cache = new ModuleCache( directory );
+		configuration = new ModuleParsingConfiguration( "UTF-8", new String[ 0 ], new String[ 0 ],
+			ModuleCacheTest.class.getClassLoader(), new HashMap<>(), false, Optional.of( cache ) );
+	}
+
+	@After
+	public void tearDown()
+		throws IOException {
+		try( Stream< Path > files = Files.walk( directory ) ) {
+			files.sorted( Comparator.reverseOrder() ).forEach( path -> path.toFile().delete() );
+		}
+	}
+
+	private ModuleRecord parse( String source )
+		throws Exception {
+		return new ModuleParser( configuration ).parse(
+			new ByteArrayInputStream( source.getBytes( StandardCharsets.UTF_8 ) ), MODULE_URI, new String[ 0 ] );
+	}
+
+	private String key( String source ) {
+		return cache.key( MODULE_URI, source.getBytes( StandardCharsets.UTF_8 ), configuration );
+	}
+
+	private Path entry( String key ) {
+		return directory.resolve( key + ".ast" );
+	}
+
+	private static Program emptyProgram() {
+		return new Program( URIParsingContext.DEFAULT, new ArrayList<>() );
+	}
+
+	@Test
+	public void missStoresTheParsedModule()
+		throws Exception {
+		assertFalse( cache.get( key( SOURCE ) ).isPresent() );
+		final ModuleRecord record = parse( SOURCE );
+		assertEquals( MODULE_URI, record.uri() );
+
+		final Optional< Program > cached = cache.get( key( SOURCE ) );
+		assertTrue( cached.isPresent() );
+		assertEquals( record.program().children().size(), cached.get().children().size() );
+		assertTrue( cached.get().children().get( 0 ) instanceof ImportStatement );
+	}
+
+	@Test
+	public void hitReturnsTheCachedModule()
+		throws Exception {
+		parse( SOURCE );
+		cache.put( key( SOURCE ), emptyProgram() );
+
+		final ModuleRecord record = parse( SOURCE );
+		assertTrue( record.program().children().isEmpty() );
+		assertEquals( MODULE_URI, record.uri() );
+	}
+
+	@Test
+	public void changedSourceIsAMiss()
+		throws Exception {
+		parse( SOURCE );
+		final String changed = SOURCE.replace( "x = 1", "x = 2" );
+		assertNotEquals( key( SOURCE ), key( changed ) );
+		assertFalse( cache.get( key( changed ) ).isPresent() );
+	}
+
+	@Test
+	public void entryOfAnotherParserIsDiscarded()
+		throws Exception {
+		final String key = key( SOURCE );
+		final String[] header = readHeader( key );
+		parse( SOURCE );
+		writeEntry( key, header[ 0 ], "another parser", key, emptyProgram() );
+
+		assertFalse( cache.get( key ).isPresent() );
+		assertFalse( Files.exists( entry( key ) ) );
+	}
+
+	@Test
+	public void renamedEntryIsDiscarded()
+		throws Exception {
+		parse( SOURCE );
+		final String other = key( SOURCE.replace( "x = 1", "x = 2" ) );
+		Files.copy( entry( key( SOURCE ) ), entry( other ) );
+
+		assertFalse( cache.get( other ).isPresent() );
+		assertFalse( Files.exists( entry( other ) ) );
+	}
+
+	@Test
+	public void disallowedClassesAreNotDeserialized()
+		throws Exception {
+		final String key = key( SOURCE );
+		final String[] header = readHeader( key );
+		writeEntry( key, header[ 0 ], header[ 1 ], key, new SimpleDateFormat() );
+
+		assertFalse( cache.get( key ).isPresent() );
+		assertFalse( Files.exists( entry( key ) ) );
+	}
+
+	private String[] readHeader( String key )
+		throws Exception {
+		cache.put( key, emptyProgram() );
+		try( ObjectInputStream istream = new ObjectInputStream( Files.newInputStream( entry( key ) ) ) ) {
+			return new String[] { istream.readUTF(), istream.readUTF(), istream.readUTF() };
+		}
+	}
+
+	private void writeEntry( String key, String magic, String fingerprint, String entryKey, Object content )
+		throws IOException {
+		try( OutputStream ostream = Files.newOutputStream( entry( key ) );
+			ObjectOutputStream oostream = new ObjectOutputStream( ostream ) ) {
+			oostream.writeUTF( magic );
+			oostream.writeUTF( fingerprint );
+			oostream.writeUTF( entryKey );
+			oostream.writeObject( content );
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+package jolie.lang.parse.module;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ModuleCrawlerTest {
+	private static final int LAYERS = 4;
+	private static final int WIDTH = 6;
+
+	private Path directory;
+	private ModuleParsingConfiguration configuration;
+
+	@Before
+	public void setUp()
+		throws IOException {
+		directory = Files.createTempDirectory( "module-crawler-test" );
+		configuration = new ModuleParsingConfiguration( "UTF-8", new String[ 0 ], new String[ 0 ],
+			ModuleCrawlerTest.class.getClassLoader(), new HashMap<>(), false, Optional.empty() );
+	}
+
+	@After
+	public void tearDown()
+		throws IOException {
+		try( Stream< Path > files = Files.walk( directory ) ) {
+			files.sorted( Comparator.reverseOrder() ).forEach( path -> path.toFile().delete() );
+		}
+	}
+
+	private static Path write( Path directory, String name, String content )
+		throws IOException {
+		return Files.write( directory.resolve( name + ".ol" ), content.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	private static String module( int layer, int index ) {
+		return "m_" + layer + "_" + index;
+	}
+
+	private static String type( int layer, int index ) {
+		return "T_" + layer + "_" + index;
+	}
+
+	private static String importAll( int layer ) {
+		final StringBuilder builder = new StringBuilder();
+		for( int i = 0; i < WIDTH; i++ ) {
+			builder.append( "from ." ).append( module( layer, i ) ).append( " import " ).append( type( layer, i ) )
+				.append( '\n' );
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Writes a graph of modules in which every module imports all the modules of the next layer, so
+	 * that most modules are reached through several paths.
+	 */
+	private static Set< URI > writeGraph( Path directory )
+		throws IOException {
+		final Set< URI > modules = new HashSet<>();
+		for( int layer = 0; layer < LAYERS; layer++ ) {
+			for( int i = 0; i < WIDTH; i++ ) {
+				final String imports = layer + 1 < LAYERS ? importAll( layer + 1 ) : "";
+				modules.add( write( directory, module( layer, i ), imports + "type " + type( layer, i ) + " { x:int }\n" )
+					.toUri() );
+			}
+		}
+		return modules;
+	}
+
+	private ModuleCrawler.CrawlerResult crawl( Path main )
+		throws Exception {
+		final ModuleRecord mainRecord = new ModuleParser( configuration ).parse( new PathSource( main ) );
+		return ModuleCrawler.crawl( mainRecord, configuration,
+			new ModuleFinderImpl( main.getParent(), new String[ 0 ] ) );
+	}
+
+	@Test
+	public void crawlsEveryReachableModuleOnce()
+		throws Exception {
+		final Set< URI > expected = writeGraph( directory );
+		final Path main = write( directory, "main", importAll( 0 ) + "service Main {\n\tmain { nullProcess }\n}\n" );
+		expected.add( main.toUri() );
+		write( directory, "unreachable", "type U { x:int }\n" );
+
+		final ModuleCrawler.CrawlerResult result = crawl( main );
+		assertEquals( expected, result.toMap().keySet() );
+		assertEquals( expected, result.symbolTables().keySet() );
+		for( URI uri : expected ) {
+			assertEquals( uri, result.toMap().get( uri ).uri() );
+		}
+	}
+
+	@Test
+	public void reportsTheSameErrorInEveryRun()
+		throws Exception {
+		for( int i = 0; i < 10; i++ ) {
+			// crawled modules are cached by URI, so every run needs its own copy of the graph
+			final Path run = Files.createDirectory( directory.resolve( "run" + i ) );
+			writeGraph( run );
+			// m_1_0 is the failed module with the first URI, so its error is reported and the others are suppressed
+			write( run, module( 1, 0 ), importAll( 2 ) + "from .missing import M\ntype T_1_0 { x:int }\n" );
+			write( run, module( 2, WIDTH - 1 ), "type " + type( 2, WIDTH - 1 ) + " { x:int \n" );
+			write( run, module( LAYERS - 1, WIDTH - 1 ),
+				"from .missing import M\ntype " + type( LAYERS - 1, WIDTH - 1 ) + " { x:int }\n" );
+			final Path main = write( run, "main", importAll( 0 ) + "service Main {\n\tmain { nullProcess }\n}\n" );
+			try {
+				crawl( main );
+				fail( "Crawling a graph with broken modules must fail" );
+			} catch( Exception e ) {
+				assertTrue( e.getMessage(), e.getMessage().contains( module( 1, 0 ) ) );
+				assertEquals( 2, e.getSuppressed().length );
+			}
+		}
+	}
+}
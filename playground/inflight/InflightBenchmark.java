@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2021 The Jolie contributors
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * For details about the authors of this software, see the AUTHORS file.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import jolie.ExecutionThread;
+import jolie.net.CommChannel;
+import jolie.net.CommChannelHandler;
+import jolie.net.CommMessage;
+import jolie.net.ports.OutputPort;
+import jolie.runtime.FaultException;
+import jolie.runtime.InvalidIdException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+
+/*
+ * Sends requests over a single channel of an output port, keeping inFlight of them waiting for
+ * their responses at any time, and reports the latency percentiles of the responses.
+ */
+public class InflightBenchmark extends JavaService {
+	public Value run( Value request )
+		throws FaultException {
+		final int inFlight = request.getFirstChild( "inFlight" ).intValue();
+		final int requests = request.getFirstChild( "requests" ).intValue();
+		final String operation = request.getFirstChild( "operation" ).strValue();
+		final long[] latencies = new long[ requests ];
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger mismatches = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch( inFlight );
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		final CommChannel channel;
+		try {
+			final OutputPort port = interpreter().getOutputPort( request.getFirstChild( "port" ).strValue() );
+			channel = port.getNewCommChannel();
+		} catch( InvalidIdException | IOException | java.net.URISyntaxException e ) {
+			throw new FaultException( "IOException", e );
+		}
+
+		final long start = System.nanoTime();
+		for( int i = 0; i < inFlight; i++ ) {
+			interpreter().commCore().executor().execute( () -> {
+				CommChannelHandler.currentThread().setExecutionThread( ethread );
+				try {
+					int n;
+					while( (n = next.getAndIncrement()) < requests ) {
+						final CommMessage message = CommMessage.createRequest( operation, "/", Value.create( n ) );
+						final long sent = System.nanoTime();
+						channel.send( message );
+						final CommMessage response = channel.recvResponseFor( message ).get();
+						latencies[ n ] = System.nanoTime() - sent;
+						if( response.isFault() || response.value().intValue() != n ) {
+							mismatches.incrementAndGet();
+						}
+					}
+				} catch( IOException | InterruptedException | ExecutionException e ) {
+					interpreter().logSevere( e );
+					mismatches.incrementAndGet();
+				} finally {
+					done.countDown();
+				}
+			} );
+		}
+		try {
+			done.await();
+		} catch( InterruptedException e ) {
+			throw new FaultException( "IOException", e );
+		}
+		final long time = System.nanoTime() - start;
+
+		try {
+			channel.setToBeClosed( true );
+			channel.release();
+		} catch( IOException e ) {
+			interpreter().logWarning( e );
+		}
+
+		Arrays.sort( latencies );
+		final Value response = Value.create();
+		response.getFirstChild( "p50" ).setValue( latencies[ requests / 2 ] / 1000L );
+		response.getFirstChild( "p99" ).setValue( latencies[ (int) (requests * 0.99) ] / 1000L );
+		response.getFirstChild( "max" ).setValue( latencies[ requests - 1 ] / 1000L );
+		response.getFirstChild( "throughput" ).setValue( requests * 1000000000L / time );
+		response.getFirstChild( "mismatches" ).setValue( mismatches.get() );
+		return response;
+	}
+}